@@ -0,0 +1,66 @@
+// http://webdatacommons.org/isadb/
+// The WebIsADb and the API are licensed under a Creative Commons Attribution-Non Commercial-Share Alike 3.0 License: http://creativecommons.org/licenses/by-nc-sa/3.0/.
+// Acknowledgements
+// This work was partially funded by the Deutsche Forschungsgemeinschaft within the JOIN-T project (research grant PO 1900/1-1). Part of the computational resources used for this work were provide by an Amazon AWS in Education Grant award.
+// this software is meant to be part of the CommonCrawl framework: http://commoncrawl.org/ to re-build a new WebIsADb from fresh CommonCrawl dumps.
+
+package org.webdatacommons.isadb.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.webdatacommons.isadb.processor.FastWetProcessor;
+import org.webdatacommons.isadb.util.ApostropheNormalizer;
+
+/**
+ * Contraction replacement and quote stripping of 1000 sentences.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class ApostropheBenchmark {
+
+	private String[] sentences;
+
+	@Setup
+	public void setup()
+	{
+		SyntheticWet generator = new SyntheticWet(4);
+		sentences = new String[1000];
+		for (int i=0; i<sentences.length; i++)
+		{
+			sentences[i] = generator.createText(1, 0.3).trim();
+		}
+	}
+
+	@Benchmark
+	public void replaceVerbApostrophies(Blackhole blackhole)
+	{
+		for (String sentence : sentences)
+		{
+			blackhole.consume(FastWetProcessor.replaceVerbApostrophies(sentence));
+		}
+	}
+
+	@Benchmark
+	public void normalizeAndStripQuotes(Blackhole blackhole)
+	{
+		for (String sentence : sentences)
+		{
+			blackhole.consume(ApostropheNormalizer.normalize(sentence, true));
+		}
+	}
+}
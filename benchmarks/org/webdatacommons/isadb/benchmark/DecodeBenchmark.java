@@ -0,0 +1,125 @@
+// http://webdatacommons.org/isadb/
+// The WebIsADb and the API are licensed under a Creative Commons Attribution-Non Commercial-Share Alike 3.0 License: http://creativecommons.org/licenses/by-nc-sa/3.0/.
+// Acknowledgements
+// This work was partially funded by the Deutsche Forschungsgemeinschaft within the JOIN-T project (research grant PO 1900/1-1). Part of the computational resources used for this work were provide by an Amazon AWS in Education Grant award.
+// this software is meant to be part of the CommonCrawl framework: http://commoncrawl.org/ to re-build a new WebIsADb from fresh CommonCrawl dumps.
+
+
+package org.webdatacommons.isadb.benchmark;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.webdatacommons.isadb.processor.BinaryResultReader;
+import org.webdatacommons.isadb.processor.BinaryResultSink;
+import org.webdatacommons.isadb.processor.ExtractedMatch;
+import org.webdatacommons.isadb.processor.TsvResultSink;
+import org.webdatacommons.isadb.util.ParallelGzipOutputStream;
+
+/**
+ * Reading 100000 rows back, as an aggregation job does: the gzipped TSV file is split into its fields and
+ * noun phrase lists, the gzipped binary stream is decoded by the BinaryResultReader. The sizes of both files
+ * are printed by the setup.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class DecodeBenchmark {
+
+	private byte[] tsv;
+	private byte[] binary;
+
+	@Setup
+	public void setup() throws Exception
+	{
+		ArrayList<ExtractedMatch> matches = new SyntheticWet(17).createMatches(100000);
+		ByteArrayOutputStream tsvOut = new ByteArrayOutputStream();
+		TsvResultSink tsvSink = new TsvResultSink(new ParallelGzipOutputStream(tsvOut, 1, 1 << 20, -1));
+		ByteArrayOutputStream binaryOut = new ByteArrayOutputStream();
+		BinaryResultSink binarySink = new BinaryResultSink(new ParallelGzipOutputStream(binaryOut, 1, 1 << 20, -1));
+		for (ExtractedMatch match : matches)
+		{
+			tsvSink.write(match);
+			binarySink.write(match);
+		}
+		tsvSink.close();
+		binarySink.close();
+		tsv = tsvOut.toByteArray();
+		binary = binaryOut.toByteArray();
+		System.out.println("gzipped TSV: " + tsv.length + " bytes, gzipped binary: " + binary.length + " bytes");
+	}
+
+	@Benchmark
+	public void decodeTsv(Blackhole blackhole) throws Exception
+	{
+		BufferedReader reader = new BufferedReader(new InputStreamReader(new GZIPInputStream(new ByteArrayInputStream(tsv), 1 << 16), "UTF-8"));
+		try
+		{
+			//header
+			reader.readLine();
+			String line;
+			while ((line = reader.readLine())!=null)
+			{
+				String[] fields = line.split("\t", -1);
+				ExtractedMatch match = new ExtractedMatch();
+				match.pid = fields[0];
+				match.sentence = fields[1];
+				match.instances = splitList(fields[2]);
+				match.instanceTags = splitList(fields[3]);
+				match.classes = splitList(fields[4]);
+				match.classTags = splitList(fields[5]);
+				match.onset = Integer.parseInt(fields[6]);
+				match.offset = Integer.parseInt(fields[7]);
+				match.pld = fields[8];
+				match.matchingTime = Long.parseLong(fields[9]);
+				blackhole.consume(match);
+			}
+		}
+		finally
+		{
+			reader.close();
+		}
+	}
+
+	@Benchmark
+	public void decodeBinary(Blackhole blackhole) throws Exception
+	{
+		BinaryResultReader reader = new BinaryResultReader(new GZIPInputStream(new ByteArrayInputStream(binary), 1 << 16));
+		try
+		{
+			ExtractedMatch match = new ExtractedMatch();
+			while (reader.next(match))
+			{
+				blackhole.consume(match);
+			}
+		}
+		finally
+		{
+			reader.close();
+		}
+	}
+
+	private static String[] splitList(String list)
+	{
+		return list.substring(1, list.length() - 1).split("\\|", -1);
+	}
+}
@@ -0,0 +1,124 @@
+// http://webdatacommons.org/isadb/
+// The WebIsADb and the API are licensed under a Creative Commons Attribution-Non Commercial-Share Alike 3.0 License: http://creativecommons.org/licenses/by-nc-sa/3.0/.
+// Acknowledgements
+// This work was partially funded by the Deutsche Forschungsgemeinschaft within the JOIN-T project (research grant PO 1900/1-1). Part of the computational resources used for this work were provide by an Amazon AWS in Education Grant award.
+// this software is meant to be part of the CommonCrawl framework: http://commoncrawl.org/ to re-build a new WebIsADb from fresh CommonCrawl dumps.
+
+package org.webdatacommons.isadb.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.webdatacommons.isadb.processor.FastWetProcessor;
+import org.webdatacommons.isadb.processor.NounPhraseChunker;
+import org.webdatacommons.isadb.util.NounPhrase;
+import org.webdatacommons.isadb.util.NounPhraseSpan;
+
+import edu.stanford.nlp.ling.TaggedWord;
+
+/**
+ * Noun phrase chunking of pre-tagged word lists, as they occur before and after a pattern.
+ * The tags are fixed, so the benchmark does not depend on the tagger. The string based methods of FastWetProcessor
+ * are compared with the NounPhraseChunker, which works on tag IDs.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class NounPhraseBenchmark {
+
+	//word lists behind a pattern, e.g. "fruits such as | apples, pears and plums are popular"
+	private static final String[] AFTER_PATTERN = {
+		"apples,/NNS pears/NNS and/CC plums/NNS are/VBP popular/JJ ./.",
+		"the/DT red/JJ fox/NN ,/, old/JJ wooden/JJ boats/NNS or/CC the/DT grand/JJ piano/NN were/VBD shown/VBN",
+		"Germany/NNP ,/, France/NNP ,/, Italy/NNP and/CC Berlin/NNP can/MD be/VB found/VBN here/RB",
+		"ice/NN hockey/NN ./."};
+	//word lists in front of a pattern, e.g. "We sell apples, pears and | other fruits"
+	private static final String[] BEFORE_PATTERN = {
+		"We/PRP sell/VBP apples,/NNS pears/NNS and/CC",
+		"The/DT report/NN mentioned/VBD the/DT violin/NN",
+		"Many/JJ people/NNS like/VBP old/JJ wooden/JJ boats/NNS and/CC",
+		"Monet/NNP"};
+
+	private List<List<TaggedWord>> after;
+	private List<List<TaggedWord>> before;
+	private final NounPhraseChunker chunker = new NounPhraseChunker(4, 64);
+	private final ArrayList<NounPhraseSpan> nps = new ArrayList<NounPhraseSpan>();
+
+	@Setup
+	public void setup()
+	{
+		after = toTaggedLists(AFTER_PATTERN);
+		before = toTaggedLists(BEFORE_PATTERN);
+	}
+
+	@Benchmark
+	public void findNextNounPhrase(Blackhole blackhole)
+	{
+		for (List<TaggedWord> words : after)
+		{
+			blackhole.consume(FastWetProcessor.findNextNounPhrase(0, words, new ArrayList<NounPhrase>()));
+		}
+	}
+
+	@Benchmark
+	public void findNextNounPhraseReverse(Blackhole blackhole)
+	{
+		for (List<TaggedWord> words : before)
+		{
+			blackhole.consume(FastWetProcessor.findNextNounPhraseReverse(0, words, new ArrayList<NounPhrase>()));
+		}
+	}
+
+	@Benchmark
+	public void chunk(Blackhole blackhole)
+	{
+		for (List<TaggedWord> words : after)
+		{
+			chunker.chunk(words, nps);
+			blackhole.consume(nps.size());
+			chunker.release(nps);
+		}
+	}
+
+	@Benchmark
+	public void chunkReverse(Blackhole blackhole)
+	{
+		for (List<TaggedWord> words : before)
+		{
+			chunker.chunkReverse(words, nps);
+			blackhole.consume(nps.size());
+			chunker.release(nps);
+		}
+	}
+
+	private static List<List<TaggedWord>> toTaggedLists(String[] sentences)
+	{
+		List<List<TaggedWord>> lists = new ArrayList<List<TaggedWord>>();
+		for (String sentence : sentences)
+		{
+			List<TaggedWord> words = new ArrayList<TaggedWord>();
+			for (String token : sentence.split(" "))
+			{
+				int slash = token.lastIndexOf('/');
+				words.add(new TaggedWord(token.substring(0, slash), token.substring(slash+1)));
+			}
+			lists.add(words);
+		}
+		return lists;
+	}
+}
@@ -0,0 +1,114 @@
+// http://webdatacommons.org/isadb/
+// The WebIsADb and the API are licensed under a Creative Commons Attribution-Non Commercial-Share Alike 3.0 License: http://creativecommons.org/licenses/by-nc-sa/3.0/.
+// Acknowledgements
+// This work was partially funded by the Deutsche Forschungsgemeinschaft within the JOIN-T project (research grant PO 1900/1-1). Part of the computational resources used for this work were provide by an Amazon AWS in Education Grant award.
+// this software is meant to be part of the CommonCrawl framework: http://commoncrawl.org/ to re-build a new WebIsADb from fresh CommonCrawl dumps.
+
+
+package org.webdatacommons.isadb.benchmark;
+
+import java.io.BufferedWriter;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.webdatacommons.isadb.processor.BinaryResultSink;
+import org.webdatacommons.isadb.processor.ColumnarResultSink;
+import org.webdatacommons.isadb.processor.ExtractedMatch;
+import org.webdatacommons.isadb.processor.ResultSink;
+import org.webdatacommons.isadb.processor.TsvResultSink;
+import org.webdatacommons.isadb.processor.WriterResultSink;
+import org.webdatacommons.isadb.util.ParallelGzipOutputStream;
+
+/**
+ * Writing 20000 rows to a compressed output: the String based BufferedWriter over a GZIPOutputStream, the
+ * TsvResultSink and the BinaryResultSink over a ParallelGzipOutputStream and the ColumnarResultSink.
+ * The compressed bytes are discarded.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class OutputBenchmark {
+
+	@Param({"1", "4"})
+	public int threads;
+
+	private ArrayList<ExtractedMatch> matches;
+
+	@Setup
+	public void setup()
+	{
+		matches = new SyntheticWet(13).createMatches(20000);
+	}
+
+	@Benchmark
+	public void writerGzip() throws Exception
+	{
+		BufferedWriter bw = new BufferedWriter(new OutputStreamWriter(new GZIPOutputStream(new NullOutputStream()), "UTF-8"));
+		bw.write(ExtractedMatch.TSV_HEADER);
+		bw.newLine();
+		write(new WriterResultSink(bw));
+	}
+
+	@Benchmark
+	public void parallelGzip() throws Exception
+	{
+		write(new TsvResultSink(new ParallelGzipOutputStream(new NullOutputStream(), threads, 1 << 20, -1)));
+	}
+
+	@Benchmark
+	public void binary() throws Exception
+	{
+		write(new BinaryResultSink(new ParallelGzipOutputStream(new NullOutputStream(), threads, 1 << 20, -1)));
+	}
+
+	@Benchmark
+	public void columnar() throws Exception
+	{
+		write(new ColumnarResultSink(new NullOutputStream(), 100000, -1));
+	}
+
+	private void write(ResultSink sink) throws Exception
+	{
+		try
+		{
+			for (ExtractedMatch match : matches)
+			{
+				sink.write(match);
+			}
+		}
+		finally
+		{
+			sink.close();
+		}
+	}
+
+	private static class NullOutputStream extends OutputStream
+	{
+		@Override
+		public void write(int b)
+		{
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len)
+		{
+		}
+	}
+}
@@ -0,0 +1,66 @@
+// http://webdatacommons.org/isadb/
+// The WebIsADb and the API are licensed under a Creative Commons Attribution-Non Commercial-Share Alike 3.0 License: http://creativecommons.org/licenses/by-nc-sa/3.0/.
+// Acknowledgements
+// This work was partially funded by the Deutsche Forschungsgemeinschaft within the JOIN-T project (research grant PO 1900/1-1). Part of the computational resources used for this work were provide by an Amazon AWS in Education Grant award.
+// this software is meant to be part of the CommonCrawl framework: http://commoncrawl.org/ to re-build a new WebIsADb from fresh CommonCrawl dumps.
+
+package org.webdatacommons.isadb.benchmark;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.webdatacommons.isadb.processor.PatternSet;
+import org.webdatacommons.isadb.util.CustomPattern;
+
+/**
+ * Regex of a single CustomPattern on 1000 sentences, half of them containing a Hearst pattern.
+ * The pattern is selected by its index in the pattern catalog; -p index=0,1,... benchmarks further patterns.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class PatternBenchmark {
+
+	@Param({"0", "1", "2", "3", "4", "5", "6", "7", "8", "9"})
+	public int index;
+
+	private CustomPattern pattern;
+	private String[] sentences;
+
+	@Setup
+	public void setup() throws IOException
+	{
+		pattern = PatternSet.get().getPatterns().get(index);
+		SyntheticWet generator = new SyntheticWet(3);
+		sentences = new String[1000];
+		for (int i=0; i<sentences.length; i++)
+		{
+			sentences[i] = i%2==0 ? generator.createHearstSentence() : generator.createText(1, 0).trim();
+		}
+	}
+
+	@Benchmark
+	public int find()
+	{
+		int matches = 0;
+		for (String sentence : sentences)
+		{
+			if (pattern.pattern.matcher(sentence).find()) matches++;
+		}
+		return matches;
+	}
+}
@@ -0,0 +1,63 @@
+// http://webdatacommons.org/isadb/
+// The WebIsADb and the API are licensed under a Creative Commons Attribution-Non Commercial-Share Alike 3.0 License: http://creativecommons.org/licenses/by-nc-sa/3.0/.
+// Acknowledgements
+// This work was partially funded by the Deutsche Forschungsgemeinschaft within the JOIN-T project (research grant PO 1900/1-1). Part of the computational resources used for this work were provide by an Amazon AWS in Education Grant award.
+// this software is meant to be part of the CommonCrawl framework: http://commoncrawl.org/ to re-build a new WebIsADb from fresh CommonCrawl dumps.
+
+package org.webdatacommons.isadb.benchmark;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.webdatacommons.isadb.util.PldResolver;
+
+/**
+ * PLD extraction of 1000 URLs, with the cache of the extraction and without any cache (every host is resolved).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class PldBenchmark {
+
+	private ArrayList<String> urls;
+	private PldResolver cachedResolver;
+
+	@Setup
+	public void setup()
+	{
+		urls = new SyntheticWet(5).createUrls(1000);
+		cachedResolver = new PldResolver(100000);
+	}
+
+	@Benchmark
+	public void resolveCached(Blackhole blackhole)
+	{
+		for (String url : urls)
+		{
+			blackhole.consume(cachedResolver.resolve(url));
+		}
+	}
+
+	@Benchmark
+	public void resolveUncached(Blackhole blackhole)
+	{
+		for (String url : urls)
+		{
+			blackhole.consume(cachedResolver.resolveHost(PldResolver.extractHost(url)));
+		}
+	}
+}
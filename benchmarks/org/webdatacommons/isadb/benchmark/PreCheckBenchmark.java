@@ -0,0 +1,81 @@
+// http://webdatacommons.org/isadb/
+// The WebIsADb and the API are licensed under a Creative Commons Attribution-Non Commercial-Share Alike 3.0 License: http://creativecommons.org/licenses/by-nc-sa/3.0/.
+// Acknowledgements
+// This work was partially funded by the Deutsche Forschungsgemeinschaft within the JOIN-T project (research grant PO 1900/1-1). Part of the computational resources used for this work were provide by an Amazon AWS in Education Grant award.
+// this software is meant to be part of the CommonCrawl framework: http://commoncrawl.org/ to re-build a new WebIsADb from fresh CommonCrawl dumps.
+
+package org.webdatacommons.isadb.benchmark;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.webdatacommons.isadb.processor.PatternSet;
+import org.webdatacommons.isadb.util.PatternAutomaton;
+
+/**
+ * Line precheck: the alternation of all pattern preconditions and the keyword automaton which selects the candidate patterns of a sentence.
+ * The score is the time for 1000 lines.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class PreCheckBenchmark {
+
+	@Param({"0.05", "0.3"})
+	public double hearstRatio;
+
+	private String[] lines;
+	private Pattern preCheckPattern;
+	private PatternAutomaton patternAutomaton;
+	private long[] candidates;
+
+	@Setup
+	public void setup() throws IOException
+	{
+		PatternSet patternSet = PatternSet.get();
+		preCheckPattern = patternSet.getPreCheckPattern();
+		patternAutomaton = patternSet.getAutomaton();
+		candidates = patternAutomaton.newCandidateSet();
+		lines = new SyntheticWet(1).createText(2500, hearstRatio).split("\n");
+		lines = Arrays.copyOf(lines, Math.min(lines.length, 1000));
+	}
+
+	@Benchmark
+	public int preCheckRegex()
+	{
+		int matches = 0;
+		for (String line : lines)
+		{
+			if (preCheckPattern.matcher(line).find()) matches++;
+		}
+		return matches;
+	}
+
+	@Benchmark
+	public long patternAutomaton()
+	{
+		long found = 0;
+		for (String line : lines)
+		{
+			patternAutomaton.findCandidates(line, candidates);
+			found += candidates[0];
+		}
+		return found;
+	}
+}
@@ -0,0 +1,93 @@
+// http://webdatacommons.org/isadb/
+// The WebIsADb and the API are licensed under a Creative Commons Attribution-Non Commercial-Share Alike 3.0 License: http://creativecommons.org/licenses/by-nc-sa/3.0/.
+// Acknowledgements
+// This work was partially funded by the Deutsche Forschungsgemeinschaft within the JOIN-T project (research grant PO 1900/1-1). Part of the computational resources used for this work were provide by an Amazon AWS in Education Grant award.
+// this software is meant to be part of the CommonCrawl framework: http://commoncrawl.org/ to re-build a new WebIsADb from fresh CommonCrawl dumps.
+
+package org.webdatacommons.isadb.benchmark;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.Writer;
+import java.nio.channels.FileChannel;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.webdatacommons.isadb.processor.FastWetProcessor;
+
+/**
+ * End-to-end extraction of a synthetic WET file: reading, splitting, matching, tagging, chunking, dedup and the TSV rows.
+ * Only the upload is left out, the rows are discarded. The POS tagger model has to be on the classpath
+ * (or set with -Disadb.taggerModel); the options of ExtractionConfig can be passed with -jvmArgsAppend.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+public class ProcessBenchmark {
+
+	@Param({"500"})
+	public int records;
+
+	@Param({"40"})
+	public int sentencesPerRecord;
+
+	@Param({"0.2"})
+	public double hearstRatio;
+
+	private File wetFile;
+
+	@Setup
+	public void setup() throws Exception
+	{
+		wetFile = new SyntheticWet(42).writeWetFile(records, sentencesPerRecord, hearstRatio);
+	}
+
+	@Benchmark
+	public Map<String, String> process() throws Exception
+	{
+		FileChannel channel = new FileInputStream(wetFile).getChannel();
+		BufferedWriter bw = new BufferedWriter(new NullWriter());
+		try
+		{
+			return FastWetProcessor.extract(channel, wetFile.getName(), bw);
+		}
+		finally
+		{
+			bw.close();
+			channel.close();
+		}
+	}
+
+	private static class NullWriter extends Writer
+	{
+		@Override
+		public void write(char[] cbuf, int off, int len)
+		{
+		}
+
+		@Override
+		public void flush()
+		{
+		}
+
+		@Override
+		public void close()
+		{
+		}
+	}
+}
@@ -0,0 +1,60 @@
+// http://webdatacommons.org/isadb/
+// The WebIsADb and the API are licensed under a Creative Commons Attribution-Non Commercial-Share Alike 3.0 License: http://creativecommons.org/licenses/by-nc-sa/3.0/.
+// Acknowledgements
+// This work was partially funded by the Deutsche Forschungsgemeinschaft within the JOIN-T project (research grant PO 1900/1-1). Part of the computational resources used for this work were provide by an Amazon AWS in Education Grant award.
+// this software is meant to be part of the CommonCrawl framework: http://commoncrawl.org/ to re-build a new WebIsADb from fresh CommonCrawl dumps.
+
+package org.webdatacommons.isadb.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.webdatacommons.isadb.processor.RecordExtractor;
+import org.webdatacommons.isadb.util.SentenceSegmenter;
+
+/**
+ * Sentence splitting of 1000 lines, including the substrings the extraction creates for every sentence.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class SentenceSplitBenchmark {
+
+	private String[] lines;
+	private SentenceSegmenter segmenter;
+
+	@Setup
+	public void setup()
+	{
+		segmenter = RecordExtractor.createSentenceSegmenter();
+		String[] all = new SyntheticWet(2).createText(2500, 0.2).split("\n");
+		lines = new String[Math.min(all.length, 1000)];
+		System.arraycopy(all, 0, lines, 0, lines.length);
+	}
+
+	@Benchmark
+	public void segment(Blackhole blackhole)
+	{
+		for (String line : lines)
+		{
+			int sentences = segmenter.segment(line);
+			for (int i=0; i<sentences; i++)
+			{
+				blackhole.consume(line.substring(segmenter.getStart(i), segmenter.getEnd(i)));
+			}
+		}
+	}
+}
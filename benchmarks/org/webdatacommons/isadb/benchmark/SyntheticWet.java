@@ -0,0 +1,295 @@
+// http://webdatacommons.org/isadb/
+// The WebIsADb and the API are licensed under a Creative Commons Attribution-Non Commercial-Share Alike 3.0 License: http://creativecommons.org/licenses/by-nc-sa/3.0/.
+// Acknowledgements
+// This work was partially funded by the Deutsche Forschungsgemeinschaft within the JOIN-T project (research grant PO 1900/1-1). Part of the computational resources used for this work were provide by an Amazon AWS in Education Grant award.
+// this software is meant to be part of the CommonCrawl framework: http://commoncrawl.org/ to re-build a new WebIsADb from fresh CommonCrawl dumps.
+
+package org.webdatacommons.isadb.benchmark;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.UUID;
+import java.util.zip.GZIPOutputStream;
+
+import org.webdatacommons.isadb.processor.ExtractedMatch;
+
+/**
+ * Generates a deterministic WET sample for the benchmarks. The text mixes Hearst-style sentences
+ * (e.g. "fruits such as apples, pears and plums") with filler sentences, contractions, quotes and
+ * abbreviations, so all stages of the extraction have work to do.
+ * Like the CommonCrawl files, the sample starts with a warcinfo record and every record is a gzip member of its own.
+ */
+public class SyntheticWet {
+
+	private static final String[] CLASSES = {"fruits", "animals", "countries", "cities", "programming languages", "instruments",
+		"diseases", "companies", "sports", "vegetables", "metals", "planets", "painters", "rivers", "car brands"};
+	private static final String[] CLASS_SINGULAR = {"fruit", "animal", "country", "city", "programming language", "instrument",
+		"disease", "company", "sport", "vegetable", "metal", "planet", "painter", "river", "car brand"};
+	private static final String[] INSTANCES = {"apples", "pears", "plums", "the red fox", "elephants", "Germany", "France", "Italy",
+		"Berlin", "Paris", "Java", "Python", "the violin", "the grand piano", "measles", "Siemens", "football", "tennis",
+		"carrots", "copper", "Mars", "Jupiter", "Monet", "the Rhine", "Danube", "Volvo", "old wooden boats", "ice hockey"};
+	private static final String[] FILLER = {"The weather was fine for most of the week and nobody complained.",
+		"Click here to read the full article on our website.",
+		"It's not clear whether the meeting will take place on Monday.",
+		"We don't know yet what Mr. Smith said about the new plan.",
+		"\"This is a quote,\" she said, \"and it ends here.\"",
+		"Prices start at 9.99 USD, e.g. for the basic version.",
+		"Copyright 2016 All rights reserved.",
+		"They're going to the U.S. next year, aren't they?",
+		"Home | About | Contact | Imprint",
+		"Our team has worked on this project for more than ten years."};
+	private static final String[] TEMPLATES = {"%C such as %I, %I and %I are popular.",
+		"%I is a %S that many people like.",
+		"We sell %I, %I and other %C.",
+		"Many %C, including %I and %I, were shown.",
+		"%C like %I or %I can be found here.",
+		"%I and other %C were mentioned in the report.",
+		"There are %C, especially %I.",
+		"%I, one of the most famous %C, was discussed.",
+		"Such %C as %I and %I are rare.",
+		"%I is an example of a %S."};
+	private static final String[] HOSTS = {"www.example.com", "blog.example.com", "news.example.co.uk", "shop.example.de",
+		"example.org", "forum.example.net", "www.example.com.au", "wiki.example.fr"};
+
+	private final Random random;
+
+	public SyntheticWet(long seed)
+	{
+		this.random = new Random(seed);
+	}
+
+	/**
+	 * @param sentences number of sentences
+	 * @param hearstRatio share of the sentences which contain a Hearst pattern
+	 * @return the sentences joined to lines of one to four sentences
+	 */
+	public String createText(int sentences, double hearstRatio)
+	{
+		StringBuilder text = new StringBuilder();
+		int inLine = 0;
+		for (int i=0; i<sentences; i++)
+		{
+			if (inLine>0)
+			{
+				text.append(' ');
+			}
+			text.append(random.nextDouble()<hearstRatio ? createHearstSentence() : FILLER[random.nextInt(FILLER.length)]);
+			inLine++;
+			if (inLine>=1+random.nextInt(4))
+			{
+				text.append('\n');
+				inLine = 0;
+			}
+		}
+		return text.toString();
+	}
+
+	/**
+	 * @return a sentence containing one of the Hearst-style patterns
+	 */
+	public String createHearstSentence()
+	{
+		int cls = random.nextInt(CLASSES.length);
+		String template = TEMPLATES[random.nextInt(TEMPLATES.length)];
+		StringBuilder sentence = new StringBuilder();
+		for (int i=0; i<template.length(); i++)
+		{
+			char c = template.charAt(i);
+			if (c=='%' && i+1<template.length())
+			{
+				char placeholder = template.charAt(++i);
+				if (placeholder=='C') sentence.append(CLASSES[cls]);
+				else if (placeholder=='S') sentence.append(CLASS_SINGULAR[cls]);
+				else sentence.append(INSTANCES[random.nextInt(INSTANCES.length)]);
+			}
+			else
+			{
+				sentence.append(c);
+			}
+		}
+		if (Character.isLowerCase(sentence.charAt(0)))
+		{
+			sentence.setCharAt(0, Character.toUpperCase(sentence.charAt(0)));
+		}
+		return sentence.toString();
+	}
+
+	/**
+	 * @return an URL on one of the sample hosts
+	 */
+	public String createUrl()
+	{
+		return "http://" + HOSTS[random.nextInt(HOSTS.length)] + "/page/" + random.nextInt(100000) + ".html";
+	}
+
+	/**
+	 * @param count
+	 * @return count sample URLs
+	 */
+	public ArrayList<String> createUrls(int count)
+	{
+		ArrayList<String> urls = new ArrayList<String>();
+		for (int i=0; i<count; i++)
+		{
+			urls.add(createUrl());
+		}
+		return urls;
+	}
+
+	/**
+	 * @param count
+	 * @return count rows as the extraction creates them, for the benchmarks of the output formats
+	 */
+	public ArrayList<ExtractedMatch> createMatches(int count)
+	{
+		ArrayList<ExtractedMatch> matches = new ArrayList<ExtractedMatch>();
+		for (int i=0; i<count; i++)
+		{
+			ExtractedMatch match = new ExtractedMatch();
+			int cls = random.nextInt(CLASSES.length);
+			match.patternIndex = random.nextInt(10);
+			match.pid = "p" + (match.patternIndex + 1);
+			match.sentence = createHearstSentence();
+			match.instances = new String[1 + random.nextInt(3)];
+			match.instanceTags = new String[match.instances.length];
+			for (int j=0; j<match.instances.length; j++)
+			{
+				match.instances[j] = INSTANCES[random.nextInt(INSTANCES.length)];
+				match.instanceTags[j] = match.instances[j].indexOf(' ')==-1 ? "NNS" : "DT JJ NN";
+			}
+			match.classes = new String[] {CLASSES[cls]};
+			match.classTags = new String[] {CLASSES[cls].indexOf(' ')==-1 ? "NNS" : "NN NNS"};
+			match.onset = random.nextInt(40);
+			match.offset = match.onset + 2 + random.nextInt(20);
+			String host = HOSTS[random.nextInt(HOSTS.length)];
+			match.pld = host.startsWith("www.") ? host.substring(4) : host;
+			match.matchingTime = random.nextInt(200);
+			matches.add(match);
+		}
+		return matches;
+	}
+
+	/**
+	 * Writes a gzipped WET file with one conversion record per page.
+	 * @param out
+	 * @param records number of conversion records
+	 * @param sentencesPerRecord
+	 * @param hearstRatio
+	 * @throws IOException
+	 */
+	public void writeWet(OutputStream out, int records, int sentencesPerRecord, double hearstRatio) throws IOException
+	{
+		writeRecord(out, "warcinfo", null, "Software-Info: synthetic sample\r\nFormat: WARC File Format 1.0\r\n");
+		for (int i=0; i<records; i++)
+		{
+			writeRecord(out, "conversion", createUrl(), createText(sentencesPerRecord, hearstRatio));
+		}
+		out.flush();
+	}
+
+	/**
+	 * Writes the WET sample to a temporary file, which is deleted on exit.
+	 * @return the file
+	 * @throws IOException
+	 */
+	public File writeWetFile(int records, int sentencesPerRecord, double hearstRatio) throws IOException
+	{
+		File file = File.createTempFile("isadb-benchmark", ".warc.wet.gz");
+		file.deleteOnExit();
+		FileOutputStream out = new FileOutputStream(file);
+		try
+		{
+			writeWet(out, records, sentencesPerRecord, hearstRatio);
+		}
+		finally
+		{
+			out.close();
+		}
+		return file;
+	}
+
+	private void writeRecord(OutputStream out, String type, String url, String content) throws IOException
+	{
+		byte[] body = content.getBytes("UTF-8");
+		StringBuilder header = new StringBuilder();
+		header.append("WARC/1.0\r\n");
+		header.append("WARC-Type: ").append(type).append("\r\n");
+		if (url!=null)
+		{
+			header.append("WARC-Target-URI: ").append(url).append("\r\n");
+		}
+		header.append("WARC-Date: 2016-07-01T00:00:00Z\r\n");
+		header.append("WARC-Record-ID: <urn:uuid:").append(new UUID(random.nextLong(), random.nextLong())).append(">\r\n");
+		header.append("Content-Type: ").append(url==null ? "application/warc-fields" : "text/plain").append("\r\n");
+		header.append("Content-Length: ").append(body.length).append("\r\n\r\n");
+
+		ByteArrayOutputStream record = new ByteArrayOutputStream(body.length + 512);
+		record.write(header.toString().getBytes("UTF-8"));
+		record.write(body);
+		record.write("\r\n\r\n".getBytes("UTF-8"));
+
+		//every record is a gzip member of its own
+		GZIPOutputStream gzip = new GZIPOutputStream(new NonClosingOutputStream(out));
+		record.writeTo(gzip);
+		gzip.close();
+	}
+
+	/**
+	 * Writes a sample file, e.g. to run the extraction by hand: SyntheticWet file [records] [sentencesPerRecord] [hearstRatio]
+	 * @param args
+	 * @throws IOException
+	 */
+	public static void main(String[] args) throws IOException
+	{
+		if (args.length<1)
+		{
+			System.err.println("Usage: SyntheticWet <file> [records] [sentencesPerRecord] [hearstRatio]");
+			System.exit(1);
+		}
+		int records = args.length>1 ? Integer.parseInt(args[1]) : 1000;
+		int sentences = args.length>2 ? Integer.parseInt(args[2]) : 40;
+		double ratio = args.length>3 ? Double.parseDouble(args[3]) : 0.2;
+		OutputStream out = new FileOutputStream(args[0]);
+		try
+		{
+			new SyntheticWet(42).writeWet(out, records, sentences, ratio);
+		}
+		finally
+		{
+			out.close();
+		}
+	}
+
+	private static class NonClosingOutputStream extends OutputStream
+	{
+		private final OutputStream out;
+
+		NonClosingOutputStream(OutputStream out)
+		{
+			this.out = out;
+		}
+
+		@Override
+		public void write(int b) throws IOException
+		{
+			out.write(b);
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException
+		{
+			out.write(b, off, len);
+		}
+
+		@Override
+		public void close() throws IOException
+		{
+			out.flush();
+		}
+	}
+}
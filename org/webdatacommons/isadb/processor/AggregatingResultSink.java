@@ -0,0 +1,380 @@
+// http://webdatacommons.org/isadb/
+// The WebIsADb and the API are licensed under a Creative Commons Attribution-Non Commercial-Share Alike 3.0 License: http://creativecommons.org/licenses/by-nc-sa/3.0/.
+// Acknowledgements
+// This work was partially funded by the Deutsche Forschungsgemeinschaft within the JOIN-T project (research grant PO 1900/1-1). Part of the computational resources used for this work were provide by an Amazon AWS in Education Grant award.
+// this software is meant to be part of the CommonCrawl framework: http://commoncrawl.org/ to re-build a new WebIsADb from fresh CommonCrawl dumps.
+
+
+package org.webdatacommons.isadb.processor;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.webdatacommons.isadb.util.CustomPattern;
+import org.webdatacommons.isadb.util.ExternalSorter;
+import org.webdatacommons.isadb.util.StorageOutputStream;
+import org.webdatacommons.isadb.util.Utf8Buffer;
+
+/**
+ * Combiner of the instance-class tuples of a file (isadb.outputFormat=aggregated). Instead of a row per match, one row
+ * per normalized (instance, class) pair is written, with the number of tuples and the patterns and PLDs the pair was
+ * found with. The aggregate is kept in a hash map; if it exceeds the memory budget, it is spilled as a sorted run
+ * and the runs are merged by close().
+ *
+ * The rows are UTF-8 lines without header, sorted by the keys in byte order:
+ * InstanceKey ClassKey Frequency PIDs PLDCount PLDs
+ * The keys are normalized like the keys of the ShardedResultSink, the PIDs and PLDs are lists as in the TSV output ({a|b}).
+ * The PIDs are in the order of the pattern catalog and the PLDs are sorted, so a row does not depend on the order of
+ * the matches or on spilling.
+ */
+public class AggregatingResultSink implements ResultSink {
+
+	//Approximate heap size of an aggregate and its map entry, without the key characters
+	private static final int ENTRY_OVERHEAD = 160;
+	private static final int FLUSH_SIZE = 1 << 16;
+
+	private static class Aggregate
+	{
+		long frequency = 0;
+		long[] patterns = new long[1];
+		int[] plds = new int[2];
+		int pldCount = 0;
+
+		void addPatterns(long[] bits)
+		{
+			if (bits.length>patterns.length)
+			{
+				patterns = Arrays.copyOf(patterns, bits.length);
+			}
+			for (int w=0; w<bits.length; w++)
+			{
+				patterns[w] |= bits[w];
+			}
+		}
+
+		void addPattern(int bit)
+		{
+			if ((bit >>> 6)>=patterns.length)
+			{
+				patterns = Arrays.copyOf(patterns, (bit >>> 6) + 1);
+			}
+			patterns[bit >>> 6] |= 1L << bit;
+		}
+
+		/**
+		 * @return true, if the PLD was not in the set yet
+		 */
+		boolean addPld(int pld)
+		{
+			int pos = Arrays.binarySearch(plds, 0, pldCount, pld);
+			if (pos>=0)
+			{
+				return false;
+			}
+			pos = -pos - 1;
+			if (pldCount==plds.length)
+			{
+				plds = Arrays.copyOf(plds, plds.length * 2);
+			}
+			System.arraycopy(plds, pos, plds, pos + 1, pldCount - pos);
+			plds[pos] = pld;
+			pldCount++;
+			return true;
+		}
+
+		void add(Aggregate other)
+		{
+			frequency += other.frequency;
+			addPatterns(other.patterns);
+			for (int i=0; i<other.pldCount; i++)
+			{
+				addPld(other.plds[i]);
+			}
+		}
+	}
+
+	/**
+	 * Combines the sorted rows of the runs with equal keys and writes them
+	 */
+	private class Combiner implements ExternalSorter.RowHandler
+	{
+		private byte[] key = null;
+		private Aggregate aggregate = null;
+
+		@Override
+		public void row(byte[] row) throws IOException
+		{
+			int keyEnd = 0;
+			while (row[keyEnd]!=0)
+			{
+				keyEnd++;
+			}
+			if (aggregate!=null && sameKey(row, keyEnd))
+			{
+				aggregate.add(decode(row, keyEnd + 1));
+				return;
+			}
+			finish();
+			key = Arrays.copyOf(row, keyEnd);
+			aggregate = decode(row, keyEnd + 1);
+		}
+
+		void finish() throws IOException
+		{
+			if (aggregate!=null)
+			{
+				writeRow(key, aggregate);
+				aggregate = null;
+			}
+		}
+
+		private boolean sameKey(byte[] row, int keyEnd)
+		{
+			if (keyEnd!=key.length)
+			{
+				return false;
+			}
+			for (int i=0; i<keyEnd; i++)
+			{
+				if (row[i]!=key[i]) return false;
+			}
+			return true;
+		}
+	}
+
+	private final OutputStream out;
+	private final long memoryBudget;
+	private final ExternalSorter sorter = new ExternalSorter(null);
+	private final HashMap<String, Aggregate> aggregates = new HashMap<String, Aggregate>();
+	private long memoryUsage = 0;
+
+	//Dictionaries of the PIDs (bit in the pattern set, the position in the catalog) and of the PLDs
+	private final HashMap<String, Integer> pidIds = new HashMap<String, Integer>();
+	private final ArrayList<String> pids = new ArrayList<String>();
+	private final HashMap<String, Integer> pldIds = new HashMap<String, Integer>();
+	private final ArrayList<String> plds = new ArrayList<String>();
+	private String[] sortedPlds = new String[16];
+
+	private final Utf8Buffer buffer = new Utf8Buffer(2 * FLUSH_SIZE);
+	private long tuples = 0;
+	private long rows = 0;
+	private int spills = 0;
+
+	/**
+	 * @param out receives the aggregated rows, e.g. a ParallelGzipOutputStream; it is closed by close()
+	 * @param memoryBudget number of bytes the aggregate may use before it is spilled
+	 * @param patterns the pattern catalog; PIDs which are not in the catalog follow the catalog in the order they are found
+	 */
+	public AggregatingResultSink(OutputStream out, long memoryBudget, List<CustomPattern> patterns)
+	{
+		this.out = out;
+		this.memoryBudget = memoryBudget;
+		for (CustomPattern pattern : patterns)
+		{
+			id(pidIds, pids, pattern.pid);
+		}
+	}
+
+	@Override
+	public void write(ExtractedMatch match) throws IOException
+	{
+		int pattern = id(pidIds, pids, match.pid);
+		//A missing PLD is written as "null" like in the TSV output
+		int pld = id(pldIds, plds, String.valueOf(match.pld));
+		for (String cls : match.classes)
+		{
+			String classKey = ShardedResultSink.normalizeKey(cls);
+			for (String instance : match.instances)
+			{
+				String key = ShardedResultSink.normalizeKey(instance) + "\t" + classKey;
+				Aggregate aggregate = aggregates.get(key);
+				if (aggregate==null)
+				{
+					aggregate = new Aggregate();
+					aggregates.put(key, aggregate);
+					memoryUsage += ENTRY_OVERHEAD + 2 * key.length();
+				}
+				aggregate.frequency++;
+				aggregate.addPattern(pattern);
+				if (aggregate.addPld(pld) && aggregate.pldCount>2)
+				{
+					memoryUsage += 4;
+				}
+				tuples++;
+			}
+		}
+		if (memoryUsage>memoryBudget)
+		{
+			spill();
+		}
+	}
+
+	/**
+	 * Merges the runs with the aggregate in memory and writes the rows
+	 */
+	@Override
+	public void close() throws IOException
+	{
+		try
+		{
+			moveToSorter();
+			Combiner combiner = new Combiner();
+			sorter.merge(combiner);
+			combiner.finish();
+			buffer.writeTo(out);
+			buffer.clear();
+		}
+		catch (IOException | RuntimeException e)
+		{
+			StorageOutputStream.abort(out);
+			throw e;
+		}
+		finally
+		{
+			sorter.delete();
+		}
+		out.close();
+	}
+
+	@Override
+	public void abort()
+	{
+		sorter.delete();
+		StorageOutputStream.abort(out);
+	}
+
+	@Override
+	public void addStats(Map<String, String> dataStats)
+	{
+		dataStats.put("aggregateTuples", Long.toString(tuples));
+		dataStats.put("aggregateRows", Long.toString(rows));
+		dataStats.put("aggregateSpills", Integer.toString(spills));
+		TsvResultSink.addStreamStats(dataStats, out);
+	}
+
+	private void spill() throws IOException
+	{
+		moveToSorter();
+		sorter.spill();
+		spills++;
+	}
+
+	/**
+	 * Encodes the aggregates in memory as rows of the sorter: key bytes, 0, frequency, pattern words, PLD ids
+	 */
+	private void moveToSorter()
+	{
+		Utf8Buffer row = new Utf8Buffer(256);
+		for (Map.Entry<String, Aggregate> entry : aggregates.entrySet())
+		{
+			Aggregate aggregate = entry.getValue();
+			row.clear();
+			row.append(entry.getKey());
+			row.append((char) 0);
+			row.appendVarint(aggregate.frequency);
+			row.appendVarint(aggregate.patterns.length);
+			for (long word : aggregate.patterns)
+			{
+				row.appendVarint(word);
+			}
+			row.appendVarint(aggregate.pldCount);
+			for (int i=0; i<aggregate.pldCount; i++)
+			{
+				row.appendVarint(aggregate.plds[i]);
+			}
+			sorter.add(Arrays.copyOf(row.getData(), row.length()));
+		}
+		aggregates.clear();
+		memoryUsage = 0;
+	}
+
+	private static Aggregate decode(byte[] row, int pos)
+	{
+		int[] position = {pos};
+		Aggregate aggregate = new Aggregate();
+		aggregate.frequency = readVarint(row, position);
+		aggregate.patterns = new long[(int) readVarint(row, position)];
+		for (int w=0; w<aggregate.patterns.length; w++)
+		{
+			aggregate.patterns[w] = readVarint(row, position);
+		}
+		aggregate.pldCount = (int) readVarint(row, position);
+		aggregate.plds = new int[Math.max(aggregate.pldCount, 2)];
+		for (int i=0; i<aggregate.pldCount; i++)
+		{
+			aggregate.plds[i] = (int) readVarint(row, position);
+		}
+		return aggregate;
+	}
+
+	private static long readVarint(byte[] data, int[] position)
+	{
+		long value = 0;
+		int shift = 0;
+		byte b;
+		do
+		{
+			b = data[position[0]++];
+			value |= (long) (b & 0x7f) << shift;
+			shift += 7;
+		}
+		while (b<0);
+		return value;
+	}
+
+	private void writeRow(byte[] key, Aggregate aggregate) throws IOException
+	{
+		buffer.append(key);
+		buffer.append('\t').append(aggregate.frequency).append('\t');
+		buffer.append('{');
+		boolean first = true;
+		for (int w=0; w<aggregate.patterns.length; w++)
+		{
+			for (long bits = aggregate.patterns[w]; bits!=0; bits &= bits - 1)
+			{
+				if (!first) buffer.append('|');
+				buffer.append(pids.get(64 * w + Long.numberOfTrailingZeros(bits)));
+				first = false;
+			}
+		}
+		buffer.append('}').append('\t').append(aggregate.pldCount).append('\t').append('{');
+		if (aggregate.pldCount>sortedPlds.length)
+		{
+			sortedPlds = new String[aggregate.pldCount];
+		}
+		for (int i=0; i<aggregate.pldCount; i++)
+		{
+			sortedPlds[i] = plds.get(aggregate.plds[i]);
+		}
+		Arrays.sort(sortedPlds, 0, aggregate.pldCount);
+		for (int i=0; i<aggregate.pldCount; i++)
+		{
+			if (i>0) buffer.append('|');
+			buffer.append(sortedPlds[i]);
+		}
+		buffer.append('}').append('\n');
+		rows++;
+		if (buffer.length()>=FLUSH_SIZE)
+		{
+			buffer.writeTo(out);
+			buffer.clear();
+		}
+	}
+
+	private static int id(HashMap<String, Integer> ids, ArrayList<String> values, String value)
+	{
+		Integer id = ids.get(value);
+		if (id==null)
+		{
+			id = values.size();
+			ids.put(value, id);
+			values.add(value);
+		}
+		return id;
+	}
+}
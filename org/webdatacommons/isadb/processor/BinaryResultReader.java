@@ -0,0 +1,291 @@
+// http://webdatacommons.org/isadb/
+// The WebIsADb and the API are licensed under a Creative Commons Attribution-Non Commercial-Share Alike 3.0 License: http://creativecommons.org/licenses/by-nc-sa/3.0/.
+// Acknowledgements
+// This work was partially funded by the Deutsche Forschungsgemeinschaft within the JOIN-T project (research grant PO 1900/1-1). Part of the computational resources used for this work were provide by an Amazon AWS in Education Grant award.
+// this software is meant to be part of the CommonCrawl framework: http://commoncrawl.org/ to re-build a new WebIsADb from fresh CommonCrawl dumps.
+
+
+package org.webdatacommons.isadb.processor;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Streaming reader of the BinaryResultSink format. The rows are decoded into a reused ExtractedMatch, the PIDs,
+ * PLDs and tags are the String objects of the dictionary:
+ * <pre>
+ * BinaryResultReader reader = BinaryResultReader.open(file);
+ * ExtractedMatch match = new ExtractedMatch();
+ * while (reader.next(match)) { ... }
+ * reader.close();
+ * </pre>
+ * BinaryResultReader file prints the file as TSV.
+ */
+public class BinaryResultReader implements Closeable {
+
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+	private final InputStream in;
+	private final byte[] buffer = new byte[1 << 16];
+	private int bufferPos = 0;
+	private int bufferEnd = 0;
+	private final ArrayList<String> dictionary = new ArrayList<String>();
+	private byte[] bytes = new byte[1024];
+	private long rows = 0;
+
+	/**
+	 * @param in the uncompressed stream; it is buffered by the reader
+	 * @throws IOException
+	 */
+	public BinaryResultReader(InputStream in) throws IOException
+	{
+		this.in = in;
+		byte[] magic = new byte[BinaryResultSink.MAGIC.length];
+		readFully(magic, magic.length);
+		int version = read();
+		if (!Arrays.equals(magic, BinaryResultSink.MAGIC) || version!=BinaryResultSink.VERSION)
+		{
+			throw new IOException("No binary isadb stream of version " + BinaryResultSink.VERSION);
+		}
+		//id 0 stands for null
+		dictionary.add(null);
+	}
+
+	/**
+	 * Opens a file of the BinaryResultSink, which may be gzipped
+	 * @param file
+	 * @return
+	 * @throws IOException
+	 */
+	public static BinaryResultReader open(File file) throws IOException
+	{
+		InputStream in = new BufferedInputStream(new FileInputStream(file), 1 << 16);
+		try
+		{
+			in.mark(2);
+			boolean gzip = in.read()==0x1f && in.read()==0x8b;
+			in.reset();
+			if (gzip)
+			{
+				in = new GZIPInputStream(in, 1 << 16);
+			}
+			return new BinaryResultReader(in);
+		}
+		catch (IOException e)
+		{
+			in.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Reads the next row
+	 * @param match receives the row
+	 * @return false at the end of the stream
+	 * @throws IOException
+	 */
+	public boolean next(ExtractedMatch match) throws IOException
+	{
+		while (true)
+		{
+			int type = read();
+			if (type==-1)
+			{
+				return false;
+			}
+			if (type==BinaryResultSink.DEFINE)
+			{
+				dictionary.add(readString());
+				continue;
+			}
+			if (type!=BinaryResultSink.MATCH)
+			{
+				throw new IOException("Unknown record type " + type);
+			}
+			match.patternIndex = -1;
+			match.pid = readEntry();
+			match.sentence = readString();
+			match.instances = readStrings();
+			match.instanceTags = readEntries();
+			match.classes = readStrings();
+			match.classTags = readEntries();
+			match.onset = (int) readSigned();
+			match.offset = (int) readSigned();
+			match.pld = readEntry();
+			match.matchingTime = readSigned();
+			rows++;
+			return true;
+		}
+	}
+
+	/**
+	 * @return number of rows read so far
+	 */
+	public long getRows()
+	{
+		return rows;
+	}
+
+	/**
+	 * @return number of dictionary entries read so far
+	 */
+	public int getDictionarySize()
+	{
+		return dictionary.size() - 1;
+	}
+
+	@Override
+	public void close() throws IOException
+	{
+		in.close();
+	}
+
+	private long readVarint() throws IOException
+	{
+		long value = 0;
+		int shift = 0;
+		int b;
+		do
+		{
+			b = read();
+			if (b==-1)
+			{
+				throw new EOFException("Truncated row");
+			}
+			value |= (long) (b & 0x7f) << shift;
+			shift += 7;
+		}
+		while ((b & 0x80)!=0);
+		return value;
+	}
+
+	private long readSigned() throws IOException
+	{
+		long zigzag = readVarint();
+		return (zigzag >>> 1) ^ -(zigzag & 1);
+	}
+
+	private String readString() throws IOException
+	{
+		int length = (int) readVarint();
+		if (length==0)
+		{
+			return null;
+		}
+		length--;
+		if (length>bytes.length)
+		{
+			bytes = new byte[Math.max(length, 2 * bytes.length)];
+		}
+		readFully(bytes, length);
+		return new String(bytes, 0, length, UTF8);
+	}
+
+	private String[] readStrings() throws IOException
+	{
+		String[] values = new String[(int) readVarint()];
+		for (int i=0; i<values.length; i++)
+		{
+			values[i] = readString();
+		}
+		return values;
+	}
+
+	private String readEntry() throws IOException
+	{
+		long id = readVarint();
+		if (id>=dictionary.size())
+		{
+			throw new IOException("Undefined dictionary entry " + id);
+		}
+		return dictionary.get((int) id);
+	}
+
+	private String[] readEntries() throws IOException
+	{
+		String[] values = new String[(int) readVarint()];
+		for (int i=0; i<values.length; i++)
+		{
+			values[i] = readEntry();
+		}
+		return values;
+	}
+
+	private int read() throws IOException
+	{
+		if (bufferPos==bufferEnd && !fill())
+		{
+			return -1;
+		}
+		return buffer[bufferPos++] & 0xff;
+	}
+
+	private void readFully(byte[] data, int length) throws IOException
+	{
+		int read = 0;
+		while (read<length)
+		{
+			if (bufferPos==bufferEnd && !fill())
+			{
+				throw new EOFException("Truncated row");
+			}
+			int n = Math.min(length - read, bufferEnd - bufferPos);
+			System.arraycopy(buffer, bufferPos, data, read, n);
+			bufferPos += n;
+			read += n;
+		}
+	}
+
+	private boolean fill() throws IOException
+	{
+		int n = in.read(buffer, 0, buffer.length);
+		while (n==0)
+		{
+			n = in.read(buffer, 0, buffer.length);
+		}
+		bufferPos = 0;
+		bufferEnd = Math.max(n, 0);
+		return n>0;
+	}
+
+	public static void main(String[] args) throws IOException
+	{
+		if (args.length!=1)
+		{
+			System.out.println("Usage: BinaryResultReader file");
+			System.exit(1);
+		}
+		BinaryResultReader reader = open(new File(args[0]));
+		BufferedWriter bw = new BufferedWriter(new OutputStreamWriter(System.out, UTF8));
+		try
+		{
+			bw.write(ExtractedMatch.TSV_HEADER);
+			bw.newLine();
+			ExtractedMatch match = new ExtractedMatch();
+			StringBuilder line = new StringBuilder();
+			while (reader.next(match))
+			{
+				line.setLength(0);
+				match.appendTsv(line);
+				bw.write(line.toString());
+				bw.newLine();
+			}
+		}
+		finally
+		{
+			bw.flush();
+			reader.close();
+		}
+	}
+}
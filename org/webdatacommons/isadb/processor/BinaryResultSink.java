@@ -0,0 +1,221 @@
+// http://webdatacommons.org/isadb/
+// The WebIsADb and the API are licensed under a Creative Commons Attribution-Non Commercial-Share Alike 3.0 License: http://creativecommons.org/licenses/by-nc-sa/3.0/.
+// Acknowledgements
+// This work was partially funded by the Deutsche Forschungsgemeinschaft within the JOIN-T project (research grant PO 1900/1-1). Part of the computational resources used for this work were provide by an Amazon AWS in Education Grant award.
+// this software is meant to be part of the CommonCrawl framework: http://commoncrawl.org/ to re-build a new WebIsADb from fresh CommonCrawl dumps.
+
+
+package org.webdatacommons.isadb.processor;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.webdatacommons.isadb.util.StorageOutputStream;
+import org.webdatacommons.isadb.util.Utf8Buffer;
+
+/**
+ * Compact binary stream of the rows (isadb.outputFormat=binary), read by BinaryResultReader without any text parsing.
+ * PIDs, PLDs and POS tags are replaced by ids of a per-file dictionary. A dictionary entry is written in front of
+ * the first row using it, so the file can be read in one pass. Unlike the other sinks, write() may be called by several
+ * threads at once: every thread encodes its rows into an own buffer and only appends the full buffer to the output.
+ * The rows of different threads are interleaved in blocks then.
+ *
+ * Stream layout, all numbers are varints (signed numbers zigzag encoded):
+ * "ISAB" version
+ * records, each starting with its type:
+ * DEFINE: length, UTF-8 bytes; the entry gets the next id, starting at 1 (0 stands for null)
+ * MATCH:  pid id, sentence, instance count, instances, tag count, instance tag ids, class count, classes, tag count,
+ *         class tag ids, onset, offset, pld id, matching time
+ * Strings are written as length+1 (0 for null) and the UTF-8 bytes.
+ */
+public class BinaryResultSink implements ResultSink {
+
+	public static final byte[] MAGIC = {'I', 'S', 'A', 'B'};
+	public static final int VERSION = 1;
+	static final int DEFINE = 0;
+	static final int MATCH = 1;
+
+	private static final int FLUSH_SIZE = 1 << 16;
+
+	private final OutputStream out;
+	private final ConcurrentHashMap<String, Integer> ids = new ConcurrentHashMap<String, Integer>();
+	//Guarded by this
+	private final Utf8Buffer define = new Utf8Buffer(256);
+	private long bytesWritten = 0;
+	private final AtomicLong rows = new AtomicLong();
+
+	private final ArrayList<Utf8Buffer> buffers = new ArrayList<Utf8Buffer>();
+	private final ThreadLocal<Utf8Buffer> threadBuffer = new ThreadLocal<Utf8Buffer>() {
+		@Override
+		protected Utf8Buffer initialValue()
+		{
+			Utf8Buffer buffer = new Utf8Buffer(2 * FLUSH_SIZE);
+			synchronized (buffers)
+			{
+				buffers.add(buffer);
+			}
+			return buffer;
+		}
+	};
+
+	/**
+	 * @param out receives the stream, e.g. a ParallelGzipOutputStream; it is closed by close()
+	 * @throws IOException
+	 */
+	public BinaryResultSink(OutputStream out) throws IOException
+	{
+		this.out = out;
+		out.write(MAGIC);
+		out.write(VERSION);
+		bytesWritten = MAGIC.length + 1;
+	}
+
+	@Override
+	public void write(ExtractedMatch match) throws IOException
+	{
+		//The ids are defined in the output before the row is appended
+		int pid = id(match.pid);
+		int[] instanceTags = ids(match.instanceTags);
+		int[] classTags = ids(match.classTags);
+		int pld = id(match.pld);
+
+		Utf8Buffer buffer = threadBuffer.get();
+		buffer.appendVarint(MATCH);
+		buffer.appendVarint(pid);
+		appendString(buffer, match.sentence);
+		appendStrings(buffer, match.instances);
+		appendIds(buffer, instanceTags);
+		appendStrings(buffer, match.classes);
+		appendIds(buffer, classTags);
+		appendSigned(buffer, match.onset);
+		appendSigned(buffer, match.offset);
+		buffer.appendVarint(pld);
+		appendSigned(buffer, match.matchingTime);
+		if (buffer.length()>=FLUSH_SIZE)
+		{
+			flush(buffer);
+		}
+		rows.incrementAndGet();
+	}
+
+	/**
+	 * Writes the buffers of all threads and closes the output; no thread may write at the same time
+	 */
+	@Override
+	public void close() throws IOException
+	{
+		try
+		{
+			synchronized (buffers)
+			{
+				for (Utf8Buffer buffer : buffers)
+				{
+					flush(buffer);
+				}
+			}
+		}
+		catch (IOException | RuntimeException e)
+		{
+			abort();
+			throw e;
+		}
+		out.close();
+	}
+
+	@Override
+	public void abort()
+	{
+		StorageOutputStream.abort(out);
+	}
+
+	@Override
+	public synchronized void addStats(Map<String, String> dataStats)
+	{
+		dataStats.put("outputRows", Long.toString(rows.get()));
+		dataStats.put("outputDictionarySize", Integer.toString(ids.size()));
+		dataStats.put("outputUncompressedBytes", Long.toString(bytesWritten));
+		TsvResultSink.addStreamStats(dataStats, out);
+	}
+
+	private synchronized void flush(Utf8Buffer buffer) throws IOException
+	{
+		buffer.writeTo(out);
+		bytesWritten += buffer.length();
+		buffer.clear();
+	}
+
+	private int id(String value) throws IOException
+	{
+		if (value==null)
+		{
+			return 0;
+		}
+		Integer id = ids.get(value);
+		if (id==null)
+		{
+			synchronized (this)
+			{
+				id = ids.get(value);
+				if (id==null)
+				{
+					id = ids.size() + 1;
+					define.clear();
+					define.appendVarint(DEFINE);
+					appendString(define, value);
+					define.writeTo(out);
+					bytesWritten += define.length();
+					ids.put(value, id);
+				}
+			}
+		}
+		return id;
+	}
+
+	private int[] ids(String[] values) throws IOException
+	{
+		int[] result = new int[values.length];
+		for (int i=0; i<values.length; i++)
+		{
+			result[i] = id(values[i]);
+		}
+		return result;
+	}
+
+	private static void appendString(Utf8Buffer buffer, String value)
+	{
+		if (value==null)
+		{
+			buffer.appendVarint(0);
+			return;
+		}
+		buffer.appendVarint(Utf8Buffer.encodedLength(value) + 1);
+		buffer.append(value);
+	}
+
+	private static void appendStrings(Utf8Buffer buffer, String[] values)
+	{
+		buffer.appendVarint(values.length);
+		for (String value : values)
+		{
+			appendString(buffer, value);
+		}
+	}
+
+	private static void appendIds(Utf8Buffer buffer, int[] values)
+	{
+		buffer.appendVarint(values.length);
+		for (int value : values)
+		{
+			buffer.appendVarint(value);
+		}
+	}
+
+	private static void appendSigned(Utf8Buffer buffer, long value)
+	{
+		buffer.appendVarint((value << 1) ^ (value >> 63));
+	}
+}
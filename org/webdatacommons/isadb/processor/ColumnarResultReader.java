@@ -0,0 +1,421 @@
+// http://webdatacommons.org/isadb/
+// The WebIsADb and the API are licensed under a Creative Commons Attribution-Non Commercial-Share Alike 3.0 License: http://creativecommons.org/licenses/by-nc-sa/3.0/.
+// Acknowledgements
+// This work was partially funded by the Deutsche Forschungsgemeinschaft within the JOIN-T project (research grant PO 1900/1-1). Part of the computational resources used for this work were provide by an Amazon AWS in Education Grant award.
+// this software is meant to be part of the CommonCrawl framework: http://commoncrawl.org/ to re-build a new WebIsADb from fresh CommonCrawl dumps.
+
+
+package org.webdatacommons.isadb.processor;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.RandomAccessFile;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Reads files of the ColumnarResultSink. Only the chunks of the requested columns are read and inflated;
+ * the other fields of the returned matches stay null (or 0).
+ * ColumnarResultReader file [column...] prints the file (or the given columns) as TSV.
+ */
+public class ColumnarResultReader implements Closeable {
+
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+	/**
+	 * Cursor over a part of an inflated chunk
+	 */
+	private static class Section
+	{
+		final byte[] data;
+		int pos;
+		final int end;
+
+		Section(byte[] data, int pos, int end)
+		{
+			this.data = data;
+			this.pos = pos;
+			this.end = end;
+		}
+
+		long readVarint()
+		{
+			long value = 0;
+			int shift = 0;
+			byte b;
+			do
+			{
+				b = data[pos++];
+				value |= (long) (b & 0x7f) << shift;
+				shift += 7;
+			}
+			while (b<0);
+			return value;
+		}
+
+		Section nextSection() throws IOException
+		{
+			int length = (int) readVarint();
+			if (pos + length>end)
+			{
+				throw new IOException("Corrupt chunk");
+			}
+			Section section = new Section(data, pos, pos + length);
+			pos += length;
+			return section;
+		}
+	}
+
+	private final File path;
+	private final RandomAccessFile file;
+	private final String[] columns;
+	private final int[] groupRows;
+	private final long[][] chunkOffsets;
+	private final int[][] compressedSizes;
+	private final int[][] rawSizes;
+	private final Inflater inflater = new Inflater(true);
+
+	public ColumnarResultReader(File path) throws IOException
+	{
+		this.path = path;
+		this.file = new RandomAccessFile(path, "r");
+		try
+		{
+			byte[] magic = new byte[ColumnarResultSink.MAGIC.length];
+			file.readFully(magic);
+			int version = file.read();
+			if (!Arrays.equals(magic, ColumnarResultSink.MAGIC) || version!=ColumnarResultSink.VERSION)
+			{
+				throw new IOException(path + " is no columnar isadb file of version " + ColumnarResultSink.VERSION);
+			}
+			file.seek(file.length() - 8 - magic.length);
+			long footerOffset = file.readLong();
+			file.readFully(magic);
+			if (!Arrays.equals(magic, ColumnarResultSink.MAGIC))
+			{
+				throw new IOException(path + " is incomplete");
+			}
+			file.seek(footerOffset);
+			columns = new String[file.readInt()];
+			for (int i=0; i<columns.length; i++)
+			{
+				columns[i] = file.readUTF();
+			}
+			if (!Arrays.equals(columns, ColumnarResultSink.COLUMNS))
+			{
+				throw new IOException("Unknown columns " + Arrays.toString(columns) + " in " + path);
+			}
+			int groups = file.readInt();
+			groupRows = new int[groups];
+			chunkOffsets = new long[groups][columns.length];
+			compressedSizes = new int[groups][columns.length];
+			rawSizes = new int[groups][columns.length];
+			for (int group=0; group<groups; group++)
+			{
+				groupRows[group] = file.readInt();
+				for (int i=0; i<columns.length; i++)
+				{
+					chunkOffsets[group][i] = file.readLong();
+					compressedSizes[group][i] = file.readInt();
+					rawSizes[group][i] = file.readInt();
+				}
+			}
+		}
+		catch (IOException e)
+		{
+			file.close();
+			throw e;
+		}
+	}
+
+	public String[] getColumns()
+	{
+		return columns.clone();
+	}
+
+	public int getRowGroupCount()
+	{
+		return groupRows.length;
+	}
+
+	public int getRowCount(int group)
+	{
+		return groupRows[group];
+	}
+
+	public long getRowCount()
+	{
+		long rows = 0;
+		for (int group : groupRows)
+		{
+			rows += group;
+		}
+		return rows;
+	}
+
+	/**
+	 * Reads the given columns of a row group
+	 * @param group
+	 * @param columnNames names of the columns (see ColumnarResultSink.COLUMNS), all columns if none are given
+	 * @return one match per row
+	 * @throws IOException
+	 */
+	public ArrayList<ExtractedMatch> read(int group, String... columnNames) throws IOException
+	{
+		int rows = groupRows[group];
+		ArrayList<ExtractedMatch> matches = new ArrayList<ExtractedMatch>(rows);
+		for (int row=0; row<rows; row++)
+		{
+			ExtractedMatch match = new ExtractedMatch();
+			match.patternIndex = -1;
+			matches.add(match);
+		}
+		for (int column : columnIndexes(columnNames))
+		{
+			Section chunk = readChunk(group, column);
+			switch (column)
+			{
+			case 0:
+				String[] pids = readStrings(chunk, ColumnarResultSink.ENCODINGS[column], rows);
+				for (int row=0; row<rows; row++) matches.get(row).pid = pids[row];
+				break;
+			case 1:
+				String[] sentences = readStrings(chunk, ColumnarResultSink.ENCODINGS[column], rows);
+				for (int row=0; row<rows; row++) matches.get(row).sentence = sentences[row];
+				break;
+			case 2:
+				String[][] instances = readLists(chunk, ColumnarResultSink.ENCODINGS[column], rows);
+				for (int row=0; row<rows; row++) matches.get(row).instances = instances[row];
+				break;
+			case 3:
+				String[][] instanceTags = readLists(chunk, ColumnarResultSink.ENCODINGS[column], rows);
+				for (int row=0; row<rows; row++) matches.get(row).instanceTags = instanceTags[row];
+				break;
+			case 4:
+				String[][] classes = readLists(chunk, ColumnarResultSink.ENCODINGS[column], rows);
+				for (int row=0; row<rows; row++) matches.get(row).classes = classes[row];
+				break;
+			case 5:
+				String[][] classTags = readLists(chunk, ColumnarResultSink.ENCODINGS[column], rows);
+				for (int row=0; row<rows; row++) matches.get(row).classTags = classTags[row];
+				break;
+			case 6:
+				long[] onsets = readNumbers(chunk, rows);
+				for (int row=0; row<rows; row++) matches.get(row).onset = (int) onsets[row];
+				break;
+			case 7:
+				long[] offsets = readNumbers(chunk, rows);
+				for (int row=0; row<rows; row++) matches.get(row).offset = (int) offsets[row];
+				break;
+			case 8:
+				String[] plds = readStrings(chunk, ColumnarResultSink.ENCODINGS[column], rows);
+				for (int row=0; row<rows; row++) matches.get(row).pld = plds[row];
+				break;
+			default:
+				long[] matchingTimes = readNumbers(chunk, rows);
+				for (int row=0; row<rows; row++) matches.get(row).matchingTime = matchingTimes[row];
+			}
+		}
+		return matches;
+	}
+
+	@Override
+	public void close() throws IOException
+	{
+		inflater.end();
+		file.close();
+	}
+
+	private int[] columnIndexes(String[] columnNames) throws IOException
+	{
+		if (columnNames.length==0)
+		{
+			int[] all = new int[columns.length];
+			for (int i=0; i<all.length; i++) all[i] = i;
+			return all;
+		}
+		int[] indexes = new int[columnNames.length];
+		for (int i=0; i<columnNames.length; i++)
+		{
+			indexes[i] = Arrays.asList(columns).indexOf(columnNames[i]);
+			if (indexes[i]==-1)
+			{
+				throw new IOException("Unknown column " + columnNames[i]);
+			}
+		}
+		return indexes;
+	}
+
+	private Section readChunk(int group, int column) throws IOException
+	{
+		byte[] compressed = new byte[compressedSizes[group][column]];
+		file.seek(chunkOffsets[group][column]);
+		file.readFully(compressed);
+		byte[] raw = new byte[rawSizes[group][column]];
+		inflater.reset();
+		inflater.setInput(compressed);
+		try
+		{
+			int length = 0;
+			while (length<raw.length)
+			{
+				int n = inflater.inflate(raw, length, raw.length - length);
+				if (n==0 && (inflater.finished() || inflater.needsInput()))
+				{
+					throw new IOException("Truncated chunk in " + path);
+				}
+				length += n;
+			}
+		}
+		catch (DataFormatException e)
+		{
+			throw new IOException("Corrupt chunk in " + path, e);
+		}
+		return new Section(raw, 0, raw.length);
+	}
+
+	private static String[] readStrings(Section chunk, int encoding, int count) throws IOException
+	{
+		Section lengths = chunk.nextSection();
+		Section bytes = chunk.nextSection();
+		if (encoding==ColumnarResultSink.STRING || encoding==ColumnarResultSink.STRING_LIST)
+		{
+			String[] values = new String[count];
+			for (int i=0; i<count; i++)
+			{
+				values[i] = readString(lengths, bytes);
+			}
+			return values;
+		}
+		ArrayList<String> dictionary = new ArrayList<String>();
+		while (lengths.pos<lengths.end)
+		{
+			dictionary.add(readString(lengths, bytes));
+		}
+		Section ids = chunk.nextSection();
+		String[] values = new String[count];
+		for (int i=0; i<count; i++)
+		{
+			values[i] = dictionary.get((int) ids.readVarint());
+		}
+		return values;
+	}
+
+	private static String readString(Section lengths, Section bytes)
+	{
+		int length = (int) lengths.readVarint();
+		if (length==0)
+		{
+			return null;
+		}
+		String value = new String(bytes.data, bytes.pos, length - 1, UTF8);
+		bytes.pos += length - 1;
+		return value;
+	}
+
+	private static String[][] readLists(Section chunk, int encoding, int rows) throws IOException
+	{
+		Section sizes = chunk.nextSection();
+		int[] listSizes = new int[rows];
+		int total = 0;
+		for (int row=0; row<rows; row++)
+		{
+			listSizes[row] = (int) sizes.readVarint();
+			total += listSizes[row];
+		}
+		String[] values = readStrings(chunk, encoding, total);
+		String[][] lists = new String[rows][];
+		int next = 0;
+		for (int row=0; row<rows; row++)
+		{
+			lists[row] = Arrays.copyOfRange(values, next, next + listSizes[row]);
+			next += listSizes[row];
+		}
+		return lists;
+	}
+
+	private static long[] readNumbers(Section chunk, int rows) throws IOException
+	{
+		Section numbers = chunk.nextSection();
+		long[] values = new long[rows];
+		for (int row=0; row<rows; row++)
+		{
+			long zigzag = numbers.readVarint();
+			values[row] = (zigzag >>> 1) ^ -(zigzag & 1);
+		}
+		return values;
+	}
+
+	public static void main(String[] args) throws IOException
+	{
+		if (args.length<1)
+		{
+			System.out.println("Usage: ColumnarResultReader file [column...]");
+			System.exit(1);
+		}
+		String[] columnNames = Arrays.copyOfRange(args, 1, args.length);
+		ColumnarResultReader reader = new ColumnarResultReader(new File(args[0]));
+		BufferedWriter bw = new BufferedWriter(new OutputStreamWriter(System.out, UTF8));
+		try
+		{
+			int[] selected = reader.columnIndexes(columnNames);
+			StringBuilder line = new StringBuilder();
+			for (int i=0; i<selected.length; i++)
+			{
+				if (i>0) line.append("\t");
+				line.append(reader.columns[selected[i]]);
+			}
+			bw.write(line.toString());
+			bw.newLine();
+			for (int group=0; group<reader.getRowGroupCount(); group++)
+			{
+				for (ExtractedMatch match : reader.read(group, columnNames))
+				{
+					line.setLength(0);
+					if (columnNames.length==0)
+					{
+						match.appendTsv(line);
+					}
+					else
+					{
+						appendColumns(line, match, selected);
+					}
+					bw.write(line.toString());
+					bw.newLine();
+				}
+			}
+		}
+		finally
+		{
+			bw.flush();
+			reader.close();
+		}
+	}
+
+	private static void appendColumns(StringBuilder line, ExtractedMatch match, int[] selected)
+	{
+		for (int i=0; i<selected.length; i++)
+		{
+			if (i>0) line.append("\t");
+			switch (selected[i])
+			{
+			case 0: line.append(match.pid); break;
+			case 1: line.append(match.sentence.replace("\\t", " ")); break;
+			case 2: ExtractedMatch.appendList(line, match.instances); break;
+			case 3: ExtractedMatch.appendList(line, match.instanceTags); break;
+			case 4: ExtractedMatch.appendList(line, match.classes); break;
+			case 5: ExtractedMatch.appendList(line, match.classTags); break;
+			case 6: line.append(match.onset); break;
+			case 7: line.append(match.offset); break;
+			case 8: line.append(match.pld); break;
+			default: line.append(match.matchingTime);
+			}
+		}
+	}
+}
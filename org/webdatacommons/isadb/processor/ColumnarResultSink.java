@@ -0,0 +1,334 @@
+// http://webdatacommons.org/isadb/
+// The WebIsADb and the API are licensed under a Creative Commons Attribution-Non Commercial-Share Alike 3.0 License: http://creativecommons.org/licenses/by-nc-sa/3.0/.
+// Acknowledgements
+// This work was partially funded by the Deutsche Forschungsgemeinschaft within the JOIN-T project (research grant PO 1900/1-1). Part of the computational resources used for this work were provide by an Amazon AWS in Education Grant award.
+// this software is meant to be part of the CommonCrawl framework: http://commoncrawl.org/ to re-build a new WebIsADb from fresh CommonCrawl dumps.
+
+
+package org.webdatacommons.isadb.processor;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.Deflater;
+
+import org.webdatacommons.isadb.util.StorageOutputStream;
+import org.webdatacommons.isadb.util.Utf8Buffer;
+
+/**
+ * Columnar binary output (isadb.outputFormat=columnar) as an alternative to the TSV file. The rows are stored in
+ * row groups; every column of a row group is an own deflated chunk, so a scan only reads and inflates the columns
+ * it needs (see ColumnarResultReader). PIDs, PLDs and the POS tags of the noun phrases are dictionary-encoded per
+ * chunk, the noun phrase lists are stored as list sizes plus the values of all lists.
+ *
+ * File layout, the numbers of the footer are big-endian:
+ * "ISAC" version
+ * the chunks of row group 0 (one per column), the chunks of row group 1, ...
+ * footer: column count, column names, row group count, per row group: rows, per column: offset, compressed and raw size
+ * footer offset (long), "ISAC"
+ *
+ * An inflated chunk is a sequence of sections (varint size + bytes), all numbers in the sections are varints:
+ * string column:     lengths (length+1, 0 for null), UTF-8 bytes
+ * dictionary column: dictionary lengths, dictionary bytes, ids
+ * list columns:      list sizes, then the sections of a string or dictionary column with the values of all lists
+ * number column:     zigzag encoded values
+ */
+public class ColumnarResultSink implements ResultSink {
+
+	public static final byte[] MAGIC = {'I', 'S', 'A', 'C'};
+	public static final int VERSION = 1;
+	public static final String[] COLUMNS = ExtractedMatch.TSV_HEADER.split("\t");
+
+	static final int STRING = 0;
+	static final int DICTIONARY = 1;
+	static final int STRING_LIST = 2;
+	static final int DICTIONARY_LIST = 3;
+	static final int NUMBER = 4;
+	/** Encoding of each of the COLUMNS */
+	static final int[] ENCODINGS = {DICTIONARY, STRING, STRING_LIST, DICTIONARY_LIST, STRING_LIST, DICTIONARY_LIST, NUMBER, NUMBER, DICTIONARY, NUMBER};
+
+	private static class StringValues
+	{
+		final Utf8Buffer lengths = new Utf8Buffer(1 << 12);
+		final Utf8Buffer bytes = new Utf8Buffer(1 << 16);
+
+		void add(String value)
+		{
+			if (value==null)
+			{
+				lengths.appendVarint(0);
+				return;
+			}
+			int start = bytes.length();
+			bytes.append(value);
+			lengths.appendVarint(bytes.length() - start + 1);
+		}
+
+		void encode(Utf8Buffer chunk)
+		{
+			appendSection(chunk, lengths);
+			appendSection(chunk, bytes);
+		}
+
+		void clear()
+		{
+			lengths.clear();
+			bytes.clear();
+		}
+	}
+
+	private static class DictionaryValues
+	{
+		final HashMap<String, Integer> ids = new HashMap<String, Integer>();
+		final StringValues dictionary = new StringValues();
+		final Utf8Buffer refs = new Utf8Buffer(1 << 12);
+
+		void add(String value)
+		{
+			Integer id = ids.get(value);
+			if (id==null)
+			{
+				id = ids.size();
+				ids.put(value, id);
+				dictionary.add(value);
+			}
+			refs.appendVarint(id);
+		}
+
+		void encode(Utf8Buffer chunk)
+		{
+			dictionary.encode(chunk);
+			appendSection(chunk, refs);
+		}
+
+		void clear()
+		{
+			ids.clear();
+			dictionary.clear();
+			refs.clear();
+		}
+	}
+
+	private static class Column
+	{
+		final int encoding;
+		//List sizes or numbers
+		final Utf8Buffer numbers = new Utf8Buffer(1 << 12);
+		final StringValues strings;
+		final DictionaryValues dictionary;
+
+		Column(int encoding)
+		{
+			this.encoding = encoding;
+			boolean dictionaryEncoded = encoding==DICTIONARY || encoding==DICTIONARY_LIST;
+			strings = encoding==STRING || encoding==STRING_LIST ? new StringValues() : null;
+			dictionary = dictionaryEncoded ? new DictionaryValues() : null;
+		}
+
+		void add(String value)
+		{
+			if (strings!=null)
+			{
+				strings.add(value);
+			}
+			else
+			{
+				dictionary.add(value);
+			}
+		}
+
+		void addList(String[] values)
+		{
+			numbers.appendVarint(values.length);
+			for (String value : values)
+			{
+				add(value);
+			}
+		}
+
+		void addNumber(long value)
+		{
+			numbers.appendVarint((value << 1) ^ (value >> 63));
+		}
+
+		void encode(Utf8Buffer chunk)
+		{
+			if (encoding==NUMBER || encoding==STRING_LIST || encoding==DICTIONARY_LIST)
+			{
+				appendSection(chunk, numbers);
+			}
+			if (strings!=null)
+			{
+				strings.encode(chunk);
+			}
+			if (dictionary!=null)
+			{
+				dictionary.encode(chunk);
+			}
+		}
+
+		void clear()
+		{
+			numbers.clear();
+			if (strings!=null) strings.clear();
+			if (dictionary!=null) dictionary.clear();
+		}
+	}
+
+	private final OutputStream out;
+	private final int rowGroupSize;
+	private final Deflater deflater;
+	private final Column[] columns = new Column[COLUMNS.length];
+	private final Utf8Buffer chunk = new Utf8Buffer(1 << 16);
+	private byte[] compressed = new byte[1 << 16];
+
+	private int rows = 0;
+	private long position = 0;
+	//Rows of each row group and offset, compressed and raw size of each chunk
+	private final ArrayList<Integer> groupRows = new ArrayList<Integer>();
+	private final ArrayList<long[]> groupChunks = new ArrayList<long[]>();
+
+	/**
+	 * @param out receives the file; it is closed by close()
+	 * @param rowGroupSize number of rows per row group
+	 * @param level compression level of the chunks, -1 for the default level of the Deflater
+	 * @throws IOException
+	 */
+	public ColumnarResultSink(OutputStream out, int rowGroupSize, int level) throws IOException
+	{
+		this.out = out;
+		this.rowGroupSize = Math.max(rowGroupSize, 1);
+		this.deflater = new Deflater(level, true);
+		for (int i=0; i<columns.length; i++)
+		{
+			columns[i] = new Column(ENCODINGS[i]);
+		}
+		write(MAGIC, MAGIC.length);
+		write(new byte[] {VERSION}, 1);
+	}
+
+	@Override
+	public void write(ExtractedMatch match) throws IOException
+	{
+		columns[0].add(match.pid);
+		columns[1].add(match.sentence);
+		columns[2].addList(match.instances);
+		columns[3].addList(match.instanceTags);
+		columns[4].addList(match.classes);
+		columns[5].addList(match.classTags);
+		columns[6].addNumber(match.onset);
+		columns[7].addNumber(match.offset);
+		columns[8].add(match.pld);
+		columns[9].addNumber(match.matchingTime);
+		rows++;
+		if (rows==rowGroupSize)
+		{
+			writeRowGroup();
+		}
+	}
+
+	@Override
+	public void close() throws IOException
+	{
+		try
+		{
+			if (rows>0)
+			{
+				writeRowGroup();
+			}
+			long footerOffset = position;
+			DataOutputStream footer = new DataOutputStream(out);
+			footer.writeInt(COLUMNS.length);
+			for (String column : COLUMNS)
+			{
+				footer.writeUTF(column);
+			}
+			footer.writeInt(groupRows.size());
+			for (int group=0; group<groupRows.size(); group++)
+			{
+				footer.writeInt(groupRows.get(group));
+				long[] chunks = groupChunks.get(group);
+				for (int i=0; i<chunks.length; i+=3)
+				{
+					footer.writeLong(chunks[i]);
+					footer.writeInt((int) chunks[i+1]);
+					footer.writeInt((int) chunks[i+2]);
+				}
+			}
+			footer.writeLong(footerOffset);
+			footer.write(MAGIC);
+			footer.flush();
+			position += footer.size();
+		}
+		catch (IOException | RuntimeException e)
+		{
+			StorageOutputStream.abort(out);
+			throw e;
+		}
+		finally
+		{
+			deflater.end();
+		}
+		out.close();
+	}
+
+	@Override
+	public void abort()
+	{
+		deflater.end();
+		StorageOutputStream.abort(out);
+	}
+
+	@Override
+	public void addStats(Map<String, String> dataStats)
+	{
+		dataStats.put("outputRowGroups", Integer.toString(groupRows.size()));
+		dataStats.put("outputCompressedBytes", Long.toString(position));
+	}
+
+	private void writeRowGroup() throws IOException
+	{
+		long[] chunks = new long[3 * columns.length];
+		for (int i=0; i<columns.length; i++)
+		{
+			chunk.clear();
+			columns[i].encode(chunk);
+			columns[i].clear();
+			deflater.reset();
+			deflater.setInput(chunk.getData(), 0, chunk.length());
+			deflater.finish();
+			int length = 0;
+			while (!deflater.finished())
+			{
+				if (length==compressed.length)
+				{
+					compressed = Arrays.copyOf(compressed, compressed.length * 2);
+				}
+				length += deflater.deflate(compressed, length, compressed.length - length);
+			}
+			chunks[3*i] = position;
+			chunks[3*i+1] = length;
+			chunks[3*i+2] = chunk.length();
+			write(compressed, length);
+		}
+		groupRows.add(rows);
+		groupChunks.add(chunks);
+		rows = 0;
+	}
+
+	private void write(byte[] data, int length) throws IOException
+	{
+		out.write(data, 0, length);
+		position += length;
+	}
+
+	private static void appendSection(Utf8Buffer chunk, Utf8Buffer section)
+	{
+		chunk.appendVarint(section.length());
+		chunk.append(section.getData(), 0, section.length());
+	}
+}
@@ -0,0 +1,71 @@
+// http://webdatacommons.org/isadb/
+// The WebIsADb and the API are licensed under a Creative Commons Attribution-Non Commercial-Share Alike 3.0 License: http://creativecommons.org/licenses/by-nc-sa/3.0/.
+// Acknowledgements
+// This work was partially funded by the Deutsche Forschungsgemeinschaft within the JOIN-T project (research grant PO 1900/1-1). Part of the computational resources used for this work were provide by an Amazon AWS in Education Grant award.
+// this software is meant to be part of the CommonCrawl framework: http://commoncrawl.org/ to re-build a new WebIsADb from fresh CommonCrawl dumps.
+
+package org.webdatacommons.isadb.processor;
+
+/**
+ * One extracted is-a match, i.e. one row of the output file. Noun phrase lists are stored as arrays
+ * of the single noun phrases (and their tags), the TSV encoding is done by appendTsv.
+ */
+public class ExtractedMatch {
+
+	public static final String TSV_HEADER = "PID\tSentence\tInstances\tInstTags\tClasses\tClassTags\tOnset\tOffset\tPLD\tMatchingTime";
+
+	public int patternIndex;
+	public String pid;
+	public String sentence;
+	public String[] instances;
+	public String[] instanceTags;
+	public String[] classes;
+	public String[] classTags;
+	public int onset;
+	public int offset;
+	public String pld;
+	/** Matching time in microseconds */
+	public long matchingTime;
+
+	public long getTupleCount()
+	{
+		return (long) instances.length * classes.length;
+	}
+
+	/**
+	 * Appends the match as TSV line (without line break) to sb
+	 * @param sb
+	 * @return sb
+	 */
+	public StringBuilder appendTsv(StringBuilder sb)
+	{
+		sb.append(pid).append("\t")
+			.append(sentence.replace("\\t", " ")).append("\t");
+		appendList(sb, instances).append("\t");
+		appendList(sb, instanceTags).append("\t");
+		appendList(sb, classes).append("\t");
+		appendList(sb, classTags).append("\t");
+		sb.append(onset).append("\t")
+			.append(offset).append("\t")
+			.append(pld).append("\t")
+			.append(matchingTime);
+		return sb;
+	}
+
+	/**
+	 * Encodes a noun phrase list the same way as FastWetProcessor.nounPhraseListToString: {np1|np2|...}
+	 * @param sb
+	 * @param list
+	 * @return sb
+	 */
+	public static StringBuilder appendList(StringBuilder sb, String[] list)
+	{
+		sb.append("{");
+		for (int i=0; i<list.length; i++)
+		{
+			if (i>0) sb.append("|");
+			sb.append(list[i]);
+		}
+		return sb.append("}");
+	}
+}
@@ -0,0 +1,380 @@
+// http://webdatacommons.org/isadb/
+// The WebIsADb and the API are licensed under a Creative Commons Attribution-Non Commercial-Share Alike 3.0 License: http://creativecommons.org/licenses/by-nc-sa/3.0/.
+// Acknowledgements
+// This work was partially funded by the Deutsche Forschungsgemeinschaft within the JOIN-T project (research grant PO 1900/1-1). Part of the computational resources used for this work were provide by an Amazon AWS in Education Grant award.
+// this software is meant to be part of the CommonCrawl framework: http://commoncrawl.org/ to re-build a new WebIsADb from fresh CommonCrawl dumps.
+
+package org.webdatacommons.isadb.processor;
+
+import org.webdatacommons.isadb.util.DedupStores;
+import org.webdatacommons.isadb.util.ResultStorages;
+import org.webdatacommons.isadb.util.TaggerPool;
+
+/**
+ * Optional settings of the extraction, read from system properties (-Disadb.workers=8 ...).
+ * Every setting has a default, so nothing has to be configured for the regular extraction.
+ */
+public class ExtractionConfig {
+
+	/**
+	 * @return true, if the WET file is read by the WetChannelReader (isadb.reader=channel) instead of the WARCReader
+	 */
+	public static boolean isChannelReader()
+	{
+		return getString("isadb.reader", "warc").equals("channel");
+	}
+
+	/**
+	 * @return initial size in bytes of the buffers of the WetChannelReader
+	 */
+	public static int getReadBufferSize()
+	{
+		return getInt("isadb.readBuffer", 4 << 20);
+	}
+
+	/**
+	 * @return number of threads inflating the gzip members of a file in the channel reader; 1 inflates on the reader thread
+	 */
+	public static int getInflateThreads()
+	{
+		return getInt("isadb.inflateThreads", 1);
+	}
+
+	/**
+	 * @return minimal number of compressed bytes inflated by one task, if several inflate threads are used
+	 */
+	public static int getInflateChunkSize()
+	{
+		return getInt("isadb.inflateChunk", 1 << 20);
+	}
+
+	/**
+	 * @return number of threads compressing the blocks of the output file
+	 */
+	public static int getOutputThreads()
+	{
+		return getInt("isadb.outputThreads", Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() / 4)));
+	}
+
+	/**
+	 * @return number of uncompressed bytes per gzip member of the output file
+	 */
+	public static int getOutputBlockSize()
+	{
+		return getInt("isadb.outputBlock", 1 << 20);
+	}
+
+	/**
+	 * @return compression level of the output file, -1 for the default level of the Deflater
+	 */
+	public static int getOutputLevel()
+	{
+		return getInt("isadb.outputLevel", -1);
+	}
+
+	/**
+	 * @return true, if the output is written by the ColumnarResultSink (isadb.outputFormat=columnar) instead of as gzipped TSV
+	 */
+	public static boolean isColumnarOutput()
+	{
+		return getString("isadb.outputFormat", "tsv").equals("columnar");
+	}
+
+	/**
+	 * @return true, if the output is written by the BinaryResultSink (isadb.outputFormat=binary) instead of as gzipped TSV
+	 */
+	public static boolean isBinaryOutput()
+	{
+		return getString("isadb.outputFormat", "tsv").equals("binary");
+	}
+
+	/**
+	 * @return true, if the instance-class tuples are written to sorted shard files by the ShardedResultSink (isadb.outputFormat=sharded)
+	 */
+	public static boolean isShardedOutput()
+	{
+		return getString("isadb.outputFormat", "tsv").equals("sharded");
+	}
+
+	/**
+	 * @return number of shard files per input file of the sharded output
+	 */
+	public static int getShards()
+	{
+		return getInt("isadb.shards", 16);
+	}
+
+	/**
+	 * @return true, if the sharded output is partitioned by the class (isadb.shardKey=class) instead of the instance and the class
+	 */
+	public static boolean isShardByClass()
+	{
+		return getString("isadb.shardKey", "pair").equals("class");
+	}
+
+	/**
+	 * @return number of bytes the rows of the sharded output may use in memory before sorted runs are spilled to disk
+	 */
+	public static long getSortMemory()
+	{
+		return getLong("isadb.sortMemory", 128L << 20);
+	}
+
+	/**
+	 * @return true, if one row per instance-class pair is written by the AggregatingResultSink (isadb.outputFormat=aggregated)
+	 */
+	public static boolean isAggregatedOutput()
+	{
+		return getString("isadb.outputFormat", "tsv").equals("aggregated");
+	}
+
+	/**
+	 * @return number of bytes the aggregate of a file may use in memory before it is spilled to disk
+	 */
+	public static long getAggregateMemory()
+	{
+		return getLong("isadb.aggregateMemory", 128L << 20);
+	}
+
+	/**
+	 * @return number of rows per row group of the columnar output
+	 */
+	public static int getColumnarRowGroupSize()
+	{
+		return getInt("isadb.columnarRowGroup", 100000);
+	}
+
+	/**
+	 * @return storage of the output files: s3 (the result bucket), local (a directory) or memory (MemoryResultStorage)
+	 */
+	public static String getStorage()
+	{
+		return getString("isadb.storage", ResultStorages.S3);
+	}
+
+	/**
+	 * @return root directory of the local storage; the keys are relative paths below it
+	 */
+	public static String getStorageDirectory()
+	{
+		return getString("isadb.storageDir", "isadb-results");
+	}
+
+	/**
+	 * @return number of bytes per part of the S3 multipart upload
+	 */
+	public static int getUploadPartSize()
+	{
+		return getInt("isadb.uploadPartSize", 16 << 20);
+	}
+
+	/**
+	 * @return number of parts of an output file which are uploaded to S3 at the same time
+	 */
+	public static int getUploadThreads()
+	{
+		return getInt("isadb.uploadThreads", 2);
+	}
+
+	/**
+	 * @return number of segments a local file is split into, so it can be read by several workers
+	 */
+	public static int getSegments()
+	{
+		return getInt("isadb.segments", 4 * getWorkers());
+	}
+
+	/**
+	 * @return number of worker threads which split, match, tag and chunk the records of one file
+	 */
+	public static int getWorkers()
+	{
+		return getInt("isadb.workers", Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * @return maximum number of records which are read ahead and not yet written
+	 */
+	public static int getQueueSize()
+	{
+		return getInt("isadb.queueSize", 64 * getWorkers());
+	}
+
+	/**
+	 * @return true, if output rows may be written in the order records are finished instead of the input order
+	 */
+	public static boolean isUnordered()
+	{
+		return getBoolean("isadb.unordered", false);
+	}
+
+	/**
+	 * @return path or classpath name of the POS tagger model
+	 */
+	public static String getTaggerModel()
+	{
+		return getString("isadb.taggerModel", TaggerPool.DEFAULT_MODEL);
+	}
+
+	/**
+	 * @return true, if only a window around the matches of a sentence is POS tagged (isadb.tagMode=window) instead of the full sentence
+	 */
+	public static boolean isWindowTagging()
+	{
+		return getString("isadb.tagMode", "full").equals("window");
+	}
+
+	/**
+	 * @return number of tokens tagged on each side of a match in the window tagging mode
+	 */
+	public static int getTagWindow()
+	{
+		return getInt("isadb.tagWindow", 12);
+	}
+
+	/**
+	 * @return every n-th sentence of the window tagging mode is also tagged completely to measure the accuracy; 0 disables the sample
+	 */
+	public static int getTagAccuracySample()
+	{
+		return getInt("isadb.tagAccuracySample", 100);
+	}
+
+	/**
+	 * @return maximum number of coordinated noun phrases extracted on each side of a pattern; longer lists are cut
+	 */
+	public static int getMaxNounPhrases()
+	{
+		return getInt("isadb.maxNounPhrases", 64);
+	}
+
+	/**
+	 * @return path of the pattern catalog file, null for the catalog on the classpath (see PatternSet)
+	 */
+	public static String getPatternCatalog()
+	{
+		return getString("isadb.patterns", null);
+	}
+
+	/**
+	 * @return maximum number of hosts whose PLD is cached
+	 */
+	public static int getPldCacheSize()
+	{
+		return getInt("isadb.pldCacheSize", 100000);
+	}
+
+	/**
+	 * @return store for the duplicate check: longhash (exact up to 64-bit collisions) or bloom (fixed memory)
+	 */
+	public static String getDedupMode()
+	{
+		return getString("isadb.dedup", DedupStores.LONG_HASH);
+	}
+
+	/**
+	 * @return number of keys the Bloom filter of the duplicate check is sized for
+	 */
+	public static long getDedupExpectedKeys()
+	{
+		return getLong("isadb.dedupExpectedKeys", 1000000);
+	}
+
+	/**
+	 * @return false positive rate of the Bloom filter at the expected number of keys
+	 */
+	public static double getDedupFalsePositiveRate()
+	{
+		return getDouble("isadb.dedupFpr", 0.001);
+	}
+
+	/**
+	 * @return true, if sentences are also checked against the sentences of all files processed before in this JVM
+	 */
+	public static boolean isGlobalDedup()
+	{
+		return getBoolean("isadb.globalDedup", false);
+	}
+
+	/**
+	 * @return number of keys per generation of the node-wide dedup store
+	 */
+	public static long getGlobalDedupKeys()
+	{
+		return getLong("isadb.globalDedupKeys", 20000000);
+	}
+
+	/**
+	 * @return false positive rate of a full generation of the node-wide dedup store
+	 */
+	public static double getGlobalDedupFalsePositiveRate()
+	{
+		return getDouble("isadb.globalDedupFpr", 0.001);
+	}
+
+	/**
+	 * @return snapshot file of the node-wide dedup store, null if the state is not persisted
+	 */
+	public static String getGlobalDedupSnapshot()
+	{
+		return getString("isadb.globalDedupSnapshot", null);
+	}
+
+	/**
+	 * @return number of stored files after which the snapshot is written in the background
+	 */
+	public static int getGlobalDedupSnapshotInterval()
+	{
+		return getInt("isadb.globalDedupSnapshotInterval", 10);
+	}
+
+	public static int getInt(String key, int defaultValue)
+	{
+		String value = System.getProperty(key);
+		if (value==null || value.trim().isEmpty())
+		{
+			return defaultValue;
+		}
+		return Integer.parseInt(value.trim());
+	}
+
+	public static long getLong(String key, long defaultValue)
+	{
+		String value = System.getProperty(key);
+		if (value==null || value.trim().isEmpty())
+		{
+			return defaultValue;
+		}
+		return Long.parseLong(value.trim());
+	}
+
+	public static double getDouble(String key, double defaultValue)
+	{
+		String value = System.getProperty(key);
+		if (value==null || value.trim().isEmpty())
+		{
+			return defaultValue;
+		}
+		return Double.parseDouble(value.trim());
+	}
+
+	public static boolean getBoolean(String key, boolean defaultValue)
+	{
+		String value = System.getProperty(key);
+		if (value==null || value.trim().isEmpty())
+		{
+			return defaultValue;
+		}
+		return Boolean.parseBoolean(value.trim());
+	}
+
+	public static String getString(String key, String defaultValue)
+	{
+		String value = System.getProperty(key);
+		if (value==null || value.trim().isEmpty())
+		{
+			return defaultValue;
+		}
+		return value.trim();
+	}
+}
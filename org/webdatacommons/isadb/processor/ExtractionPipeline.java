@@ -0,0 +1,226 @@
+// http://webdatacommons.org/isadb/
+// The WebIsADb and the API are licensed under a Creative Commons Attribution-Non Commercial-Share Alike 3.0 License: http://creativecommons.org/licenses/by-nc-sa/3.0/.
+// Acknowledgements
+// This work was partially funded by the Deutsche Forschungsgemeinschaft within the JOIN-T project (research grant PO 1900/1-1). Part of the computational resources used for this work were provide by an Amazon AWS in Education Grant award.
+// this software is meant to be part of the CommonCrawl framework: http://commoncrawl.org/ to re-build a new WebIsADb from fresh CommonCrawl dumps.
+
+package org.webdatacommons.isadb.processor;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Staged extraction of one input file: a reader thread decodes the records into a bounded queue,
+ * one worker thread per RecordExtractor processes them, and the calling thread writes the results.
+ * In ordered mode the results are written in the sequence of the records, so the output does not depend
+ * on the number of workers. The number of records between reader and writer is limited by the capacity.
+ */
+public class ExtractionPipeline {
+
+	private static Logger log = Logger.getLogger(ExtractionPipeline.class);
+
+	private static final WetRecord END_OF_INPUT = new WetRecord(-1, null, null);
+	private static final RecordResult END_OF_RESULTS = new RecordResult(-1);
+
+	/**
+	 * Source of the records of one input file. Called by the reader thread only.
+	 */
+	public interface RecordSource {
+		/**
+		 * @param sequence position of the next record
+		 * @return the next record or null at the end of the input
+		 */
+		WetRecord next(long sequence) throws Exception;
+	}
+
+	private final RecordSource source;
+	private final List<RecordExtractor> extractors;
+	private final ResultWriter writer;
+	private final int capacity;
+	private final boolean ordered;
+
+	private final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+	private long recordsTotal = 0;
+
+	/**
+	 * @param source
+	 * @param extractors one per worker thread
+	 * @param writer
+	 * @param capacity maximum number of records which are read but not yet written
+	 * @param ordered write the results in the order of the input
+	 */
+	public ExtractionPipeline(RecordSource source, List<RecordExtractor> extractors, ResultWriter writer, int capacity, boolean ordered)
+	{
+		this.source = source;
+		this.extractors = extractors;
+		this.writer = writer;
+		this.capacity = Math.max(1, capacity);
+		this.ordered = ordered;
+	}
+
+	public long getRecordsTotal()
+	{
+		return recordsTotal;
+	}
+
+	/**
+	 * Processes the whole input. Exceptions of the reader or the writer are thrown after all threads stopped.
+	 * @throws Exception
+	 */
+	public void run() throws Exception
+	{
+		final int workerCount = extractors.size();
+		final BlockingQueue<WetRecord> records = new ArrayBlockingQueue<WetRecord>(capacity + workerCount);
+		final BlockingQueue<RecordResult> results = new LinkedBlockingQueue<RecordResult>();
+		final Semaphore inFlight = new Semaphore(capacity);
+
+		Thread reader = new Thread(new Runnable() {
+			@Override
+			public void run()
+			{
+				long sequence = 0;
+				try
+				{
+					while (true)
+					{
+						inFlight.acquire();
+						WetRecord record = source.next(sequence);
+						if (record==null) break;
+						records.put(record);
+						sequence++;
+					}
+				}
+				catch (InterruptedException e)
+				{
+					log.debug("Reader interrupted after "+sequence+" records");
+				}
+				catch (Throwable t)
+				{
+					failure.compareAndSet(null, t);
+				}
+				finally
+				{
+					//There is always room for the end markers, as at most capacity records are in the queue
+					for (int i=0; i<workerCount; i++)
+					{
+						records.offer(END_OF_INPUT);
+					}
+				}
+			}
+		}, "isadb-reader");
+
+		List<Thread> workers = new ArrayList<Thread>();
+		for (int w=0; w<workerCount; w++)
+		{
+			final RecordExtractor extractor = extractors.get(w);
+			workers.add(new Thread(new Runnable() {
+				@Override
+				public void run()
+				{
+					try
+					{
+						while (true)
+						{
+							WetRecord record = records.take();
+							if (record==END_OF_INPUT) break;
+							RecordResult result;
+							try
+							{
+								result = extractor.extract(record);
+							}
+							catch (Throwable t)
+							{
+								failure.compareAndSet(null, t);
+								result = new RecordResult(record.sequence);
+							}
+							results.put(result);
+						}
+					}
+					catch (InterruptedException e)
+					{
+						log.debug("Worker interrupted");
+					}
+					finally
+					{
+						results.offer(END_OF_RESULTS);
+					}
+				}
+			}, "isadb-worker-"+w));
+		}
+
+		reader.setDaemon(true);
+		reader.start();
+		for (Thread worker : workers)
+		{
+			worker.setDaemon(true);
+			worker.start();
+		}
+
+		boolean completed = false;
+		try
+		{
+			int finishedWorkers = 0;
+			long nextSequence = 0;
+			HashMap<Long, RecordResult> pending = new HashMap<Long, RecordResult>();
+			while (finishedWorkers<workerCount)
+			{
+				RecordResult result = results.take();
+				if (result==END_OF_RESULTS)
+				{
+					finishedWorkers++;
+					continue;
+				}
+				if (!ordered)
+				{
+					writer.write(result);
+					inFlight.release();
+					recordsTotal++;
+					continue;
+				}
+				pending.put(result.sequence, result);
+				while ((result = pending.remove(nextSequence))!=null)
+				{
+					writer.write(result);
+					inFlight.release();
+					recordsTotal++;
+					nextSequence++;
+				}
+			}
+			completed = true;
+		}
+		finally
+		{
+			if (!completed)
+			{
+				reader.interrupt();
+				for (Thread worker : workers)
+				{
+					worker.interrupt();
+				}
+			}
+			reader.join();
+			for (Thread worker : workers)
+			{
+				worker.join();
+			}
+		}
+
+		Throwable t = failure.get();
+		if (t instanceof Exception)
+		{
+			throw (Exception) t;
+		}
+		if (t instanceof Error)
+		{
+			throw (Error) t;
+		}
+	}
+}
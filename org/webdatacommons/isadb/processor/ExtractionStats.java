@@ -0,0 +1,153 @@
+// http://webdatacommons.org/isadb/
+// The WebIsADb and the API are licensed under a Creative Commons Attribution-Non Commercial-Share Alike 3.0 License: http://creativecommons.org/licenses/by-nc-sa/3.0/.
+// Acknowledgements
+// This work was partially funded by the Deutsche Forschungsgemeinschaft within the JOIN-T project (research grant PO 1900/1-1). Part of the computational resources used for this work were provide by an Amazon AWS in Education Grant award.
+// this software is meant to be part of the CommonCrawl framework: http://commoncrawl.org/ to re-build a new WebIsADb from fresh CommonCrawl dumps.
+
+package org.webdatacommons.isadb.processor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.webdatacommons.isadb.util.CustomPattern;
+
+/**
+ * Counters and timers of one extraction. Every worker and the writer keep their own instance,
+ * the instances are merged when the file is finished. Timers are in microseconds.
+ */
+public class ExtractionStats {
+
+	public long sentencesTotal;
+	public long matchesTotal;
+	public long tuplesTotal;
+	public long errorTotal;
+	public long sentenceLongExclusions;
+	public long sentenceShortExclusions;
+	public long pldExtractionExceptions;
+	public long pldCacheHits;
+	public long pldCacheMisses;
+	public long pronounFrontExclusions;
+	public long pronounBackExclusions;
+	public long duplicateSentenceExclusions;
+	public long regexChecksSkipped;
+	public long taggerCalls;
+	public long tagCacheHits;
+	public long taggedTokens;
+	public long sentenceTokens;
+	public long tagSampleTokens;
+	public long tagSampleMismatches;
+	public long nounPhraseListsTruncated;
+
+	public long sentSplitTime;
+	public long preCheckTime;
+	public long pldExtractTime;
+	public long pronounCheckTime;
+	public long patternFilterTime;
+	public long matchingTime;
+	public long taggingTime;
+	public long tagSampleTime;
+
+	//Expected number of new sentences dropped by false positives of the dedup store
+	public double dedupEstimatedFalseDrops;
+
+	public final long[] patternDurations;
+	public final int[] patternMatches;
+
+	public ExtractionStats(int patternCount)
+	{
+		patternDurations = new long[patternCount];
+		patternMatches = new int[patternCount];
+	}
+
+	public void add(ExtractionStats other)
+	{
+		sentencesTotal += other.sentencesTotal;
+		matchesTotal += other.matchesTotal;
+		tuplesTotal += other.tuplesTotal;
+		errorTotal += other.errorTotal;
+		sentenceLongExclusions += other.sentenceLongExclusions;
+		sentenceShortExclusions += other.sentenceShortExclusions;
+		pldExtractionExceptions += other.pldExtractionExceptions;
+		pldCacheHits += other.pldCacheHits;
+		pldCacheMisses += other.pldCacheMisses;
+		pronounFrontExclusions += other.pronounFrontExclusions;
+		pronounBackExclusions += other.pronounBackExclusions;
+		duplicateSentenceExclusions += other.duplicateSentenceExclusions;
+		regexChecksSkipped += other.regexChecksSkipped;
+		taggerCalls += other.taggerCalls;
+		tagCacheHits += other.tagCacheHits;
+		taggedTokens += other.taggedTokens;
+		sentenceTokens += other.sentenceTokens;
+		tagSampleTokens += other.tagSampleTokens;
+		tagSampleMismatches += other.tagSampleMismatches;
+		nounPhraseListsTruncated += other.nounPhraseListsTruncated;
+		sentSplitTime += other.sentSplitTime;
+		preCheckTime += other.preCheckTime;
+		pldExtractTime += other.pldExtractTime;
+		pronounCheckTime += other.pronounCheckTime;
+		patternFilterTime += other.patternFilterTime;
+		matchingTime += other.matchingTime;
+		taggingTime += other.taggingTime;
+		tagSampleTime += other.tagSampleTime;
+		dedupEstimatedFalseDrops += other.dedupEstimatedFalseDrops;
+		for (int i=0; i<patternDurations.length; i++)
+		{
+			patternDurations[i] += other.patternDurations[i];
+			patternMatches[i] += other.patternMatches[i];
+		}
+	}
+
+	/**
+	 * Writes all statistics into dataStats, using the keys and formats of the sequential FastWetProcessor
+	 * @param dataStats
+	 * @param patterns
+	 */
+	public void report(Map<String, String> dataStats, List<CustomPattern> patterns)
+	{
+		ArrayList<Long> durations = new ArrayList<Long>();
+		ArrayList<Integer> matches = new ArrayList<Integer>();
+		for (int i=0; i<patternDurations.length; i++)
+		{
+			durations.add(patternDurations[i]);
+			matches.add(patternMatches[i]);
+		}
+		dataStats.put("matchesTotal", Double.toString(matchesTotal));
+		dataStats.put("tuplesTotal", Double.toString(tuplesTotal));
+		dataStats.put("sentencesTotal", Double.toString(sentencesTotal));
+		dataStats.put("pldExtractionExceptions", Long.toString(pldExtractionExceptions));
+		dataStats.put("pldCacheHits", Long.toString(pldCacheHits));
+		dataStats.put("pldCacheMisses", Long.toString(pldCacheMisses));
+		dataStats.put("duplicateExclusions", Long.toString(duplicateSentenceExclusions));
+		dataStats.put("dedupEstimatedFalseDrops", Double.toString(dedupEstimatedFalseDrops));
+		dataStats.put("pronounFrontExclusions", Long.toString(pronounFrontExclusions));
+		dataStats.put("pronounBackExclusions", Long.toString(pronounBackExclusions));
+		dataStats.put("matchesDetail", FastWetProcessor.dataListOutputInt(matches, patterns));
+		dataStats.put("durationDetail", FastWetProcessor.dataListOutputLong(durations, patterns));
+		dataStats.put("sentenceLongExclusions", Long.toString(sentenceLongExclusions));
+		dataStats.put("sentenceShortExclusions", Long.toString(sentenceShortExclusions));
+		dataStats.put("matchingTime", Long.toString(matchingTime));
+		dataStats.put("sentSplitTime", Long.toString(sentSplitTime));
+		dataStats.put("preCheckTime", Long.toString(preCheckTime));
+		dataStats.put("pldExtractTime", Long.toString(pldExtractTime));
+		dataStats.put("pronounCheckTime", Long.toString(pronounCheckTime));
+		dataStats.put("patternFilterTime", Long.toString(patternFilterTime));
+		dataStats.put("regexChecksSkipped", Long.toString(regexChecksSkipped));
+		dataStats.put("errorTotal", Long.toString(errorTotal));
+		//Noun phrase lists cut at isadb.maxNounPhrases
+		dataStats.put("nounPhraseListsTruncated", Long.toString(nounPhraseListsTruncated));
+		dataStats.put("taggingTime", Long.toString(taggingTime));
+		dataStats.put("taggerCalls", Long.toString(taggerCalls));
+		dataStats.put("tagCacheHits", Long.toString(tagCacheHits));
+		//Share of the tokens of tagged sentences which were passed to the tagger
+		dataStats.put("taggedTokens", Long.toString(taggedTokens));
+		dataStats.put("sentenceTokens", Long.toString(sentenceTokens));
+		//Agreement of the windowed tags with the tags of the full sentence, measured on a sample
+		if (tagSampleTokens>0)
+		{
+			dataStats.put("tagSampleTokens", Long.toString(tagSampleTokens));
+			dataStats.put("tagSampleAccuracy", Double.toString(1.0 - (double) tagSampleMismatches / tagSampleTokens));
+			dataStats.put("tagSampleTime", Long.toString(tagSampleTime));
+		}
+	}
+}
@@ -0,0 +1,125 @@
+// http://webdatacommons.org/isadb/
+// The WebIsADb and the API are licensed under a Creative Commons Attribution-Non Commercial-Share Alike 3.0 License: http://creativecommons.org/licenses/by-nc-sa/3.0/.
+// Acknowledgements
+// This work was partially funded by the Deutsche Forschungsgemeinschaft within the JOIN-T project (research grant PO 1900/1-1). Part of the computational resources used for this work were provide by an Amazon AWS in Education Grant award.
+// this software is meant to be part of the CommonCrawl framework: http://commoncrawl.org/ to re-build a new WebIsADb from fresh CommonCrawl dumps.
+
+package org.webdatacommons.isadb.processor;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Map;
+
+import org.apache.log4j.Logger;
+import org.webdatacommons.isadb.util.ConcurrentBloomDedupStore;
+import org.webdatacommons.isadb.util.DedupStore;
+import org.webdatacommons.isadb.util.LayeredDedupStore;
+
+/**
+ * Node-wide duplicate check across all files processed in this JVM (-Disadb.globalDedup=true).
+ * The store is created with the first file and restored from the snapshot file, if one is configured and exists.
+ * The keys of a file are added once its output is stored (fileStored), so a failed file leaves no trace and is
+ * extracted completely when it is retried. After every n-th stored file the snapshot is written again in the
+ * background, so the state survives a restart of the node.
+ */
+public class GlobalDedup {
+
+	private static Logger log = Logger.getLogger(GlobalDedup.class);
+
+	private static ConcurrentBloomDedupStore store;
+	private static int filesSinceSnapshot;
+	private static Thread snapshotWriter;
+	//Milliseconds spent writing the last snapshot
+	private static volatile long lastSnapshotTime;
+
+	/**
+	 * @return the store shared by all files
+	 */
+	public static synchronized ConcurrentBloomDedupStore get()
+	{
+		if (store==null)
+		{
+			store = new ConcurrentBloomDedupStore(ExtractionConfig.getGlobalDedupKeys(), ExtractionConfig.getGlobalDedupFalsePositiveRate());
+			String snapshot = ExtractionConfig.getGlobalDedupSnapshot();
+			if (snapshot!=null && new File(snapshot).exists())
+			{
+				try
+				{
+					if (store.restore(new File(snapshot)))
+					{
+						log.info("Restored " + store.size() + " dedup keys from " + snapshot);
+					}
+					else
+					{
+						log.warn("Ignoring dedup snapshot " + snapshot + ", it was written with other settings");
+					}
+				}
+				catch (IOException e)
+				{
+					log.error("Could not restore dedup snapshot " + snapshot + ", starting empty", e);
+				}
+			}
+		}
+		return store;
+	}
+
+	/**
+	 * Adds the keys of a file to the node-wide store and starts the snapshot, if it is due after this file.
+	 * Called after the output of the file has been stored; the keys of a file which failed are never added.
+	 * @param fileStore the duplicate check of the file (FastWetProcessor.createDedupStore)
+	 * @param dataStats receives the statistics of the node-wide store
+	 */
+	public static void fileStored(DedupStore fileStore, Map<String, String> dataStats)
+	{
+		if (!(fileStore instanceof LayeredDedupStore))
+		{
+			return;
+		}
+		((LayeredDedupStore) fileStore).commit();
+		ConcurrentBloomDedupStore store = get();
+		dataStats.put("globalDedupSnapshotStarted", Boolean.toString(fileFinished()));
+		dataStats.put("globalDedupSnapshotTime", Long.toString(lastSnapshotTime));
+		dataStats.put("globalDedupKeys", Long.toString(store.size()));
+		dataStats.put("globalDedupMemory", Long.toString(store.getMemoryBytes()));
+		dataStats.put("globalDedupFalsePositiveRate", Double.toString(store.getFalsePositiveProbability()));
+	}
+
+	/**
+	 * Starts writing the snapshot in the background, if it is due after this file. A due snapshot is skipped
+	 * while the former one is still being written.
+	 * @return true, if a snapshot was started
+	 */
+	private static synchronized boolean fileFinished()
+	{
+		final String snapshot = ExtractionConfig.getGlobalDedupSnapshot();
+		if (store==null || snapshot==null || ++filesSinceSnapshot < ExtractionConfig.getGlobalDedupSnapshotInterval())
+		{
+			return false;
+		}
+		if (snapshotWriter!=null && snapshotWriter.isAlive())
+		{
+			return false;
+		}
+		filesSinceSnapshot = 0;
+		final ConcurrentBloomDedupStore snapshotStore = store;
+		snapshotWriter = new Thread(new Runnable() {
+			@Override
+			public void run()
+			{
+				long start = System.currentTimeMillis();
+				try
+				{
+					snapshotStore.snapshot(new File(snapshot));
+					lastSnapshotTime = System.currentTimeMillis() - start;
+				}
+				catch (IOException e)
+				{
+					log.error("Could not write dedup snapshot " + snapshot, e);
+				}
+			}
+		}, "isadb-dedup-snapshot");
+		snapshotWriter.setDaemon(true);
+		snapshotWriter.start();
+		return true;
+	}
+}
@@ -0,0 +1,161 @@
+// http://webdatacommons.org/isadb/
+// The WebIsADb and the API are licensed under a Creative Commons Attribution-Non Commercial-Share Alike 3.0 License: http://creativecommons.org/licenses/by-nc-sa/3.0/.
+// Acknowledgements
+// This work was partially funded by the Deutsche Forschungsgemeinschaft within the JOIN-T project (research grant PO 1900/1-1). Part of the computational resources used for this work were provide by an Amazon AWS in Education Grant award.
+// this software is meant to be part of the CommonCrawl framework: http://commoncrawl.org/ to re-build a new WebIsADb from fresh CommonCrawl dumps.
+
+package org.webdatacommons.isadb.processor;
+
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.webdatacommons.isadb.util.ByteCharSequence;
+import org.webdatacommons.isadb.util.ByteKeywordScanner;
+import org.webdatacommons.isadb.util.CustomPattern;
+
+/**
+ * Splits the raw content of a record into lines and decodes only the lines in which the precheck pattern matches.
+ * The keywords of the pattern preconditions are searched in the bytes first; the few lines containing one are
+ * confirmed with the precheck pattern on a byte view, so exactly the lines the precheck would accept are decoded.
+ * Used by the reader thread only.
+ */
+public class LinePrecheck {
+
+	private final Charset charset;
+	private final ByteKeywordScanner scanner;
+	private final Matcher preCheckMatcher;
+	private final ByteCharSequence lineView = new ByteCharSequence();
+
+	private long linesTotal = 0;
+	private long linesRejected = 0;
+	private long checkTime = 0;
+
+	/**
+	 * @param allPatterns
+	 * @param preCheckPattern alternation of the preconditions of allPatterns
+	 * @param charset charset of the content; if it is not ASCII compatible, all lines are decoded
+	 */
+	public LinePrecheck(List<CustomPattern> allPatterns, Pattern preCheckPattern, Charset charset)
+	{
+		this.charset = charset;
+		if (isAsciiCompatible(charset))
+		{
+			ArrayList<String> preconditions = new ArrayList<String>();
+			for (CustomPattern pat : allPatterns)
+			{
+				if (pat.type!=null)
+				{
+					//the alternation contains "null" for patterns without precondition as well
+					preconditions.add(String.valueOf(pat.preCondition));
+				}
+			}
+			this.scanner = ByteKeywordScanner.forRegexes(preconditions);
+			this.preCheckMatcher = preCheckPattern.matcher("");
+		}
+		else
+		{
+			this.scanner = null;
+			this.preCheckMatcher = null;
+		}
+	}
+
+	/**
+	 * Splits data[from, to) into lines like BufferedReader.readLine() (terminated by \n, \r or \r\n)
+	 * and adds the decoded lines which pass the precheck.
+	 * @param data
+	 * @param from
+	 * @param to exclusive
+	 * @param lines
+	 */
+	public void addLines(byte[] data, int from, int to, List<String> lines)
+	{
+		int p = from;
+		while (p<to)
+		{
+			int q = p;
+			while (q<to && data[q]!='\n' && data[q]!='\r')
+			{
+				q++;
+			}
+			linesTotal++;
+			if (preCheckMatcher==null)
+			{
+				lines.add(new String(data, p, q-p, charset));
+			}
+			else
+			{
+				long checkTimer = System.nanoTime();
+				boolean passed = (scanner==null || scanner.containsAny(data, p, q))
+						&& preCheckMatcher.reset(lineView.set(data, p, q)).find();
+				checkTime += System.nanoTime() - checkTimer;
+				if (passed)
+				{
+					lines.add(new String(data, p, q-p, charset));
+				}
+				else
+				{
+					linesRejected++;
+				}
+			}
+			if (q+1<to && data[q]=='\r' && data[q+1]=='\n')
+			{
+				q++;
+			}
+			p = q + 1;
+		}
+	}
+
+	public long getLinesTotal()
+	{
+		return linesTotal;
+	}
+
+	public long getLinesRejected()
+	{
+		return linesRejected;
+	}
+
+	/**
+	 * @return time spent on the byte precheck in microseconds
+	 */
+	public long getCheckTime()
+	{
+		return checkTime / 1000;
+	}
+
+	/**
+	 * Adds the line statistics of all prechecks of a file to its stats map
+	 * @param dataStats
+	 * @param linePrechecks
+	 */
+	public static void report(Map<String, String> dataStats, List<LinePrecheck> linePrechecks)
+	{
+		long linesTotal = 0;
+		long linesRejected = 0;
+		long checkTime = 0;
+		for (LinePrecheck linePrecheck : linePrechecks)
+		{
+			linesTotal += linePrecheck.linesTotal;
+			linesRejected += linePrecheck.linesRejected;
+			checkTime += linePrecheck.getCheckTime();
+		}
+		dataStats.put("linePrecheckLines", Long.toString(linesTotal));
+		dataStats.put("linePrecheckRejected", Long.toString(linesRejected));
+		dataStats.put("linePrecheckRejectRate", Double.toString(linesTotal==0 ? 0 : (double) linesRejected / linesTotal));
+		dataStats.put("linePrecheckTime", Long.toString(checkTime));
+	}
+
+	/**
+	 * @param charset
+	 * @return true, if ASCII characters are encoded as single bytes and no byte of another character is in the ASCII range
+	 */
+	private static boolean isAsciiCompatible(Charset charset)
+	{
+		String name = charset.name();
+		return name.equals("UTF-8") || name.equals("US-ASCII") || name.startsWith("ISO-8859-") || name.startsWith("windows-125");
+	}
+}
@@ -0,0 +1,118 @@
+// http://webdatacommons.org/isadb/
+// The WebIsADb and the API are licensed under a Creative Commons Attribution-Non Commercial-Share Alike 3.0 License: http://creativecommons.org/licenses/by-nc-sa/3.0/.
+// Acknowledgements
+// This work was partially funded by the Deutsche Forschungsgemeinschaft within the JOIN-T project (research grant PO 1900/1-1). Part of the computational resources used for this work were provide by an Amazon AWS in Education Grant award.
+// this software is meant to be part of the CommonCrawl framework: http://commoncrawl.org/ to re-build a new WebIsADb from fresh CommonCrawl dumps.
+
+package org.webdatacommons.isadb.processor;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.apache.log4j.Logger;
+import org.webdatacommons.isadb.util.DedupStore;
+import org.webdatacommons.isadb.util.LocalResultStorage;
+import org.webdatacommons.isadb.util.ResultStorage;
+
+/**
+ * Extraction of WET files on a local disk, without the CommonCrawl framework:
+ * LocalWetBatch outputDirectory (file|directory)...
+ * Every .warc.wet.gz or .warc.wet file is memory-mapped and processed in segments (FastWetProcessor.extractLocal).
+ * The rows are written to ex_[file name].isadb.gz (.isadb.col, .isadb.bin.gz, .isadb.agg.gz or .isadb.shard.[shard].gz for the other output formats) in the output directory, the statistics of each file are logged.
+ * Options are set as for the framework with system properties, e.g. -Disadb.workers=16.
+ */
+public class LocalWetBatch {
+
+	private static Logger log = Logger.getLogger(LocalWetBatch.class);
+
+	public static void main(String[] args) throws Exception
+	{
+		if (args.length<2)
+		{
+			System.err.println("Usage: LocalWetBatch <outputDirectory> <file or directory>...");
+			System.exit(1);
+		}
+		File outputDirectory = new File(args[0]);
+		if (!outputDirectory.isDirectory() && !outputDirectory.mkdirs())
+		{
+			throw new IllegalArgumentException("Cannot create output directory " + outputDirectory);
+		}
+		ArrayList<File> files = new ArrayList<File>();
+		for (int i=1; i<args.length; i++)
+		{
+			addWetFiles(new File(args[i]), files);
+		}
+		log.info(files.size() + " WET files to process");
+		int failed = 0;
+		for (File file : files)
+		{
+			try
+			{
+				Map<String, String> dataStats = process(file, outputDirectory);
+				log.info(file + " " + new TreeMap<String, String>(dataStats));
+			}
+			catch (Exception e)
+			{
+				log.error("Extraction of " + file + " failed", e);
+				failed++;
+			}
+		}
+		if (failed>0)
+		{
+			log.error(failed + " of " + files.size() + " files failed");
+			System.exit(2);
+		}
+	}
+
+	/**
+	 * Extracts a local WET file
+	 * @param wetFile
+	 * @param outputDirectory
+	 * @return the statistics of the file
+	 * @throws Exception
+	 */
+	public static Map<String, String> process(File wetFile, File outputDirectory) throws Exception
+	{
+		long processStartTime = System.currentTimeMillis();
+		ResultStorage storage = new LocalResultStorage(outputDirectory);
+		ResultSink sink = FastWetProcessor.createSink(storage, "ex_" + wetFile.getName() + FastWetProcessor.getOutputSuffix());
+		DedupStore dedupStore = FastWetProcessor.createDedupStore();
+		Map<String, String> dataStats;
+		try
+		{
+			dataStats = FastWetProcessor.extractLocal(wetFile, sink, dedupStore);
+			sink.close();
+		}
+		catch (Exception e)
+		{
+			sink.abort();
+			throw e;
+		}
+		sink.addStats(dataStats);
+		GlobalDedup.fileStored(dedupStore, dataStats);
+		double duration = (System.currentTimeMillis() - processStartTime) / 1000.0;
+		dataStats.put("duration", Double.toString(duration));
+		return dataStats;
+	}
+
+	private static void addWetFiles(File file, ArrayList<File> files)
+	{
+		if (file.isDirectory())
+		{
+			File[] children = file.listFiles();
+			if (children==null) return;
+			Arrays.sort(children);
+			for (File child : children)
+			{
+				addWetFiles(child, files);
+			}
+		}
+		else if (file.getName().endsWith(".warc.wet.gz") || file.getName().endsWith(".warc.wet"))
+		{
+			files.add(file);
+		}
+	}
+}
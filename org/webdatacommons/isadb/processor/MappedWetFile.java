@@ -0,0 +1,341 @@
+// http://webdatacommons.org/isadb/
+// The WebIsADb and the API are licensed under a Creative Commons Attribution-Non Commercial-Share Alike 3.0 License: http://creativecommons.org/licenses/by-nc-sa/3.0/.
+// Acknowledgements
+// This work was partially funded by the Deutsche Forschungsgemeinschaft within the JOIN-T project (research grant PO 1900/1-1). Part of the computational resources used for this work were provide by an Amazon AWS in Education Grant award.
+// this software is meant to be part of the CommonCrawl framework: http://commoncrawl.org/ to re-build a new WebIsADb from fresh CommonCrawl dumps.
+
+package org.webdatacommons.isadb.processor;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.util.ArrayList;
+
+import org.apache.log4j.Logger;
+import org.webdatacommons.isadb.util.ByteBufferChannel;
+import org.webdatacommons.isadb.util.GzipMemberInflater;
+
+/**
+ * A local WET file (gzipped or uncompressed) which is memory-mapped and split into segments at record boundaries,
+ * so the segments can be read in parallel. Gzipped files are split at gzip members which start with a WARC record;
+ * a candidate member is only used after it was inflated completely and its CRC matched. Uncompressed files are split
+ * by following the Content-Length of the record headers.
+ */
+public class MappedWetFile {
+
+	private static Logger log = Logger.getLogger(MappedWetFile.class);
+
+	/** Segments are mapped as a whole, so they are limited to 1 GB */
+	public static final long MAX_SEGMENT = 1L << 30;
+	/** Files are not split into segments below this size */
+	public static final long MIN_SEGMENT = 1L << 20;
+	//Range searched for a member start behind a split point
+	private static final int SEARCH_WINDOW = 64 << 20;
+
+	private final RandomAccessFile file;
+	private final FileChannel channel;
+	private final long size;
+	private final boolean gzip;
+	private final long[] boundaries;
+
+	//Window for the boundary search
+	private ByteBuffer window;
+	private long windowStart;
+
+	/**
+	 * Maps the file and determines the segments
+	 * @param path
+	 * @param segments requested number of segments; fewer are used for small files or if no boundary is found near a split point
+	 * @throws IOException
+	 */
+	public MappedWetFile(File path, int segments) throws IOException
+	{
+		file = new RandomAccessFile(path, "r");
+		channel = file.getChannel();
+		size = channel.size();
+		gzip = size>=2 && byteAt(0)==0x1f && byteAt(1)==0x8b;
+
+		long minSegments = (size + MAX_SEGMENT - 1) / MAX_SEGMENT;
+		int count = (int) Math.max(minSegments, Math.min(segments, size / MIN_SEGMENT));
+		count = Math.max(count, 1);
+		ArrayList<Long> found = new ArrayList<Long>();
+		found.add(0L);
+		if (gzip)
+		{
+			for (int i=1; i<count; i++)
+			{
+				long boundary = findMemberStart(Math.max(size * i / count, found.get(found.size()-1) + 1));
+				if (boundary>0) found.add(boundary);
+			}
+		}
+		else if (count>1)
+		{
+			findRecordStarts(count, found);
+		}
+		found.add(size);
+		boundaries = new long[found.size()];
+		for (int i=0; i<boundaries.length; i++)
+		{
+			boundaries[i] = found.get(i);
+			if (i>0 && boundaries[i]-boundaries[i-1]>MAX_SEGMENT)
+			{
+				throw new IOException("Segment of " + path + " larger than " + MAX_SEGMENT + " bytes");
+			}
+		}
+		window = null;
+		log.debug(path + " split into " + getSegmentCount() + " segments");
+	}
+
+	public boolean isGzip()
+	{
+		return gzip;
+	}
+
+	public long getSize()
+	{
+		return size;
+	}
+
+	public int getSegmentCount()
+	{
+		return boundaries.length - 1;
+	}
+
+	/**
+	 * @param segment
+	 * @return offset of the segment in the file
+	 */
+	public long getSegmentStart(int segment)
+	{
+		return boundaries[segment];
+	}
+
+	/**
+	 * Maps a segment into memory
+	 * @param segment
+	 * @return channel reading the mapped segment
+	 * @throws IOException
+	 */
+	public ReadableByteChannel openSegment(int segment) throws IOException
+	{
+		long start = boundaries[segment];
+		return new ByteBufferChannel(channel.map(FileChannel.MapMode.READ_ONLY, start, boundaries[segment+1] - start));
+	}
+
+	/**
+	 * Creates the source of the records of a segment. The segment is mapped and its buffers are allocated when the first record is read,
+	 * they are released after the last one.
+	 * @param segment
+	 * @param linePrecheck created for UTF-8, used for this segment only
+	 * @param bufferSize see WetChannelReader
+	 * @return the source
+	 */
+	public SegmentSource createSource(int segment, LinePrecheck linePrecheck, int bufferSize)
+	{
+		return new SegmentSource(segment, linePrecheck, bufferSize);
+	}
+
+	public class SegmentSource implements ExtractionPipeline.RecordSource
+	{
+		private final int segment;
+		private final LinePrecheck linePrecheck;
+		private final int bufferSize;
+		private WetChannelReader reader;
+		private boolean finished = false;
+		private long bytesRead = 0;
+		private long gzipMembers = 0;
+
+		private SegmentSource(int segment, LinePrecheck linePrecheck, int bufferSize)
+		{
+			this.segment = segment;
+			this.linePrecheck = linePrecheck;
+			this.bufferSize = bufferSize;
+		}
+
+		@Override
+		public WetRecord next(long sequence) throws Exception
+		{
+			if (finished)
+			{
+				return null;
+			}
+			if (reader==null)
+			{
+				reader = new WetChannelReader(openSegment(segment), gzip, linePrecheck, bufferSize);
+			}
+			WetRecord record = reader.next(sequence);
+			if (record==null)
+			{
+				bytesRead = reader.getBytesRead();
+				gzipMembers = gzip ? reader.getInflater().getMembers() : 0;
+				reader = null;
+				finished = true;
+			}
+			return record;
+		}
+
+		public LinePrecheck getLinePrecheck()
+		{
+			return linePrecheck;
+		}
+
+		/**
+		 * @return uncompressed bytes of the segment, after it was read completely
+		 */
+		public long getBytesRead()
+		{
+			return bytesRead;
+		}
+
+		/**
+		 * @return gzip members of the segment, after it was read completely
+		 */
+		public long getGzipMembers()
+		{
+			return gzipMembers;
+		}
+	}
+
+	/**
+	 * Closes the file; mapped segments stay readable until they are garbage collected.
+	 * @throws IOException
+	 */
+	public void close() throws IOException
+	{
+		file.close();
+	}
+
+	/**
+	 * @param from
+	 * @return offset of the first verified gzip member at or behind from, -1 if there is none within the search window
+	 */
+	private long findMemberStart(long from) throws IOException
+	{
+		long end = Math.min(size - 10, from + SEARCH_WINDOW);
+		for (long pos=from; pos<end; pos++)
+		{
+			//Magic bytes, deflate and no reserved flags
+			if (byteAt(pos)==0x1f && byteAt(pos+1)==0x8b && byteAt(pos+2)==8 && byteAt(pos+3)<32 && isRecordMember(pos))
+			{
+				return pos;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * @param pos
+	 * @return true, if a complete gzip member starting with a WARC header can be inflated at pos
+	 */
+	private boolean isRecordMember(long pos)
+	{
+		GzipMemberInflater inflater = null;
+		try
+		{
+			ByteBuffer candidate = channel.map(FileChannel.MapMode.READ_ONLY, pos, Math.min(SEARCH_WINDOW, size - pos));
+			inflater = new GzipMemberInflater(new ByteBufferChannel(candidate), 1 << 16);
+			byte[] start = new byte[5];
+			int n = 0;
+			while (n<start.length)
+			{
+				int read = inflater.read(start, n, start.length-n);
+				if (read<0) return false;
+				n += read;
+			}
+			if (!new String(start, "US-ASCII").equals("WARC/"))
+			{
+				return false;
+			}
+			//Inflate the rest of the member, its trailer is checked when the next member starts or the data ends
+			byte[] skip = new byte[1 << 16];
+			while (inflater.getMembers()==1 && inflater.read(skip, 0, skip.length)>=0);
+			return true;
+		}
+		catch (IOException e)
+		{
+			return false;
+		}
+		finally
+		{
+			if (inflater!=null)
+			{
+				inflater.close();
+			}
+		}
+	}
+
+	/**
+	 * Follows the record headers of an uncompressed file and adds the first record start behind each split point
+	 */
+	private void findRecordStarts(int count, ArrayList<Long> found) throws IOException
+	{
+		int split = 1;
+		long pos = 0;
+		while (pos<size && split<count)
+		{
+			while (pos<size && (byteAt(pos)=='\r' || byteAt(pos)=='\n'))
+			{
+				pos++;
+			}
+			if (pos>=size) break;
+			if (pos>=size * split / count)
+			{
+				found.add(pos);
+				while (split<count && pos>=size * split / count)
+				{
+					split++;
+				}
+			}
+			//Header lines up to the empty line
+			long contentLength = -1;
+			long lineStart = pos;
+			while (true)
+			{
+				long lineEnd = lineStart;
+				while (lineEnd<size && byteAt(lineEnd)!='\n')
+				{
+					lineEnd++;
+				}
+				if (lineEnd>=size)
+				{
+					throw new IOException("Truncated WARC header at " + pos);
+				}
+				String line = readAscii(lineStart, lineEnd).trim();
+				lineStart = lineEnd + 1;
+				if (line.isEmpty()) break;
+				if (line.regionMatches(true, 0, "Content-Length:", 0, 15))
+				{
+					contentLength = Long.parseLong(line.substring(15).trim());
+				}
+			}
+			if (contentLength<0)
+			{
+				throw new IOException("WARC record without Content-Length at " + pos);
+			}
+			pos = lineStart + contentLength;
+		}
+	}
+
+	private String readAscii(long from, long to) throws IOException
+	{
+		StringBuilder sb = new StringBuilder();
+		for (long pos=from; pos<to; pos++)
+		{
+			sb.append((char) byteAt(pos));
+		}
+		return sb.toString();
+	}
+
+	private int byteAt(long pos) throws IOException
+	{
+		if (window==null || pos<windowStart || pos>=windowStart+window.limit())
+		{
+			windowStart = pos;
+			window = channel.map(FileChannel.MapMode.READ_ONLY, pos, Math.min(SEARCH_WINDOW, size - pos));
+		}
+		return window.get((int) (pos - windowStart)) & 0xff;
+	}
+}
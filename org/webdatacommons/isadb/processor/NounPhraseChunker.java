@@ -0,0 +1,493 @@
+// http://webdatacommons.org/isadb/
+// The WebIsADb and the API are licensed under a Creative Commons Attribution-Non Commercial-Share Alike 3.0 License: http://creativecommons.org/licenses/by-nc-sa/3.0/.
+// Acknowledgements
+// This work was partially funded by the Deutsche Forschungsgemeinschaft within the JOIN-T project (research grant PO 1900/1-1). Part of the computational resources used for this work were provide by an Amazon AWS in Education Grant award.
+// this software is meant to be part of the CommonCrawl framework: http://commoncrawl.org/ to re-build a new WebIsADb from fresh CommonCrawl dumps.
+
+
+package org.webdatacommons.isadb.processor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.webdatacommons.isadb.util.NounPhraseSpan;
+
+import edu.stanford.nlp.ling.TaggedWord;
+
+/**
+ * Noun phrase chunker working on tag IDs instead of tag strings. The tag of every token is classified once into
+ * one of the tag classes below and the word checks (coordinator, trailing comma) become flags, so the rules are
+ * bit tests on small arrays. The results are the same as of FastWetProcessor.findNextNounPhrase and
+ * findNextNounPhraseReverse, including the cleaning of FastWetProcessor.cleanNounPhrase, which is done without regex.
+ * The coordinated noun phrases are collected in a loop instead of by recursion and a list ends after maxNounPhrases.
+ * The noun phrases are NounPhraseSpans from a pool of the chunker, which get back to the pool by release().
+ * A chunker keeps its arrays between calls and is used by one thread.
+ */
+public class NounPhraseChunker {
+
+	//Tag classes; NN and JJ include all tags with this prefix
+	static final int OTHER = 0;
+	static final int NN = 1;
+	static final int JJ = 2;
+	static final int VBN = 3;
+	static final int VBG = 4;
+	static final int IN = 5;
+	static final int CD = 6;
+	static final int DT = 7;
+
+	//Token flags
+	private static final int COORDINATOR = 1;
+	private static final int COMMA = 2;
+
+	//Rules as sets of tag classes
+	private static final int PRE_MODIFIER = bits(JJ, VBN);
+	private static final int POST_MODIFIER = bits(JJ, VBN, VBG, NN, IN, CD, DT);
+	//Tags which may follow a noun phrase of a list after the pattern, besides coordinators
+	private static final int FORWARD_LIST = bits(DT, NN, JJ, VBN);
+	//Tags which may follow a noun phrase of a list before the pattern
+	private static final int REVERSE_LIST = bits(NN, VBG, IN, CD, DT);
+	//Tags between pre-modifiers and a further noun in front of the pattern, which end the pre-modifiers
+	private static final int REVERSE_GAP = bits(VBG, IN, CD, DT);
+	//Tags which may end the post-modifier of a cleaned noun phrase
+	private static final int NOUN_OR_NUMBER = bits(NN, CD);
+
+	private final int maxNpSize;
+	private final int maxNounPhrases;
+	private List<TaggedWord> words;
+	private int size;
+	private int[] tags = new int[64];
+	private int[] flags = new int[64];
+	private final ArrayList<NounPhraseSpan> pool = new ArrayList<NounPhraseSpan>();
+
+	/**
+	 * @param maxNpSize maximum number of words of a noun phrase
+	 * @param maxNounPhrases maximum number of coordinated noun phrases collected by one call
+	 */
+	public NounPhraseChunker(int maxNpSize, int maxNounPhrases)
+	{
+		this.maxNpSize = maxNpSize;
+		this.maxNounPhrases = Math.max(1, maxNounPhrases);
+	}
+
+	/**
+	 * Same as FastWetProcessor.findNextNounPhrase(0, words, resultNPs), up to maxNounPhrases noun phrases
+	 * @param words the words after the pattern
+	 * @param resultNPs receives the noun phrases
+	 * @return true, if the list was cut because the coordination continues after maxNounPhrases noun phrases
+	 */
+	public boolean chunk(List<TaggedWord> words, ArrayList<NounPhraseSpan> resultNPs)
+	{
+		load(words);
+		int limit = resultNPs.size() + maxNounPhrases;
+		int start = 0;
+		while (start>=0)
+		{
+			if (resultNPs.size()>=limit)
+			{
+				return continues(start);
+			}
+			int next = -1;
+			for (int i=start; i<size; i++)
+			{
+				if (!has(i, FORWARD_LIST) && (flags[i] & COORDINATOR)==0 && resultNPs.size()>0)
+				{
+					return false;
+				}
+				if (tags[i]==NN)
+				{
+					NounPhraseSpan currentNP = acquire(i);
+					findPreMod(i, currentNP);
+					int end = i;
+					if ((flags[i] & COMMA)!=0)
+					{
+						next = i+1;
+					}
+					else
+					{
+						int postOffset = findPostMod(i, currentNP);
+						end = Math.min(i + maxNpSize, size-1);
+						next = postOffset==-1 ? -1 : postOffset+1;
+					}
+					resultNPs.add(clean(currentNP, i, end));
+					break;
+				}
+			}
+			start = next;
+		}
+		return false;
+	}
+
+	/**
+	 * Same as FastWetProcessor.findNextNounPhraseReverse(0, words, resultNPs), up to maxNounPhrases noun phrases
+	 * @param words the words before the pattern, in reverse order
+	 * @param resultNPs receives the noun phrases
+	 * @return true, if the list was cut because the coordination continues after maxNounPhrases noun phrases
+	 */
+	public boolean chunkReverse(List<TaggedWord> words, ArrayList<NounPhraseSpan> resultNPs)
+	{
+		load(words);
+		int limit = resultNPs.size() + maxNounPhrases;
+		int start = 0;
+		while (start>=0)
+		{
+			if (resultNPs.size()>=limit)
+			{
+				return continuesReverse(start);
+			}
+			int next = -1;
+			for (int i=start; i<size; i++)
+			{
+				if (!has(i, REVERSE_LIST) && resultNPs.size()>0)
+				{
+					return false;
+				}
+				if (tags[i]==NN)
+				{
+					NounPhraseSpan currentNP = acquire(i);
+					int status = findPreModReverse(i, currentNP);
+					if (status==-2)
+					{
+						//a further noun follows, the noun phrase starts there
+						pool.add(currentNP);
+						next = i+1;
+					}
+					else
+					{
+						if ((flags[i] & COMMA)!=0)
+						{
+							next = status>0 ? status+1 : -1;
+						}
+						else
+						{
+							findPostModReverse(i, currentNP);
+							next = status>0 ? status : -1;
+						}
+						resultNPs.add(clean(currentNP, i, Math.min(i + maxNpSize, size-1)));
+					}
+					break;
+				}
+			}
+			start = next;
+		}
+		return false;
+	}
+
+	/**
+	 * @param start
+	 * @return true, if chunk would add a further noun phrase from start on
+	 */
+	private boolean continues(int start)
+	{
+		for (int i=start; i<size; i++)
+		{
+			if (!has(i, FORWARD_LIST) && (flags[i] & COORDINATOR)==0)
+			{
+				return false;
+			}
+			if (tags[i]==NN)
+			{
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * @param start
+	 * @return true, if chunkReverse would add a further noun phrase from start on
+	 */
+	private boolean continuesReverse(int start)
+	{
+		for (int i=start; i<size; i++)
+		{
+			if (!has(i, REVERSE_LIST))
+			{
+				return false;
+			}
+			if (tags[i]==NN)
+			{
+				NounPhraseSpan currentNP = acquire(i);
+				int status = findPreModReverse(i, currentNP);
+				pool.add(currentNP);
+				//a further noun follows, the noun phrase starts there
+				if (status!=-2)
+				{
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Returns the noun phrases to the pool and clears the list; the noun phrases must not be used afterwards
+	 * @param nps
+	 */
+	public void release(ArrayList<NounPhraseSpan> nps)
+	{
+		pool.addAll(nps);
+		nps.clear();
+	}
+
+	private NounPhraseSpan acquire(int core)
+	{
+		NounPhraseSpan np = pool.isEmpty() ? new NounPhraseSpan(maxNpSize) : pool.remove(pool.size()-1);
+		np.reset(words, core);
+		return np;
+	}
+
+	/**
+	 * @param tag
+	 * @return the tag class
+	 */
+	static int tagId(String tag)
+	{
+		if (tag==null || tag.length()<2)
+		{
+			return OTHER;
+		}
+		char first = tag.charAt(0);
+		char second = tag.charAt(1);
+		if (first=='N' && second=='N')
+		{
+			return NN;
+		}
+		if (first=='J' && second=='J')
+		{
+			return JJ;
+		}
+		if (tag.length()==2)
+		{
+			if (first=='I' && second=='N') return IN;
+			if (first=='C' && second=='D') return CD;
+			if (first=='D' && second=='T') return DT;
+		}
+		else if (tag.length()==3 && first=='V' && second=='B')
+		{
+			if (tag.charAt(2)=='N') return VBN;
+			if (tag.charAt(2)=='G') return VBG;
+		}
+		return OTHER;
+	}
+
+	/**
+	 * @param word
+	 * @return true, if the lower cased word is and, or, &
+	 */
+	static boolean isCoordinator(String word)
+	{
+		switch (word.length())
+		{
+			case 1:
+				return word.charAt(0)=='&';
+			case 2:
+				return word.equalsIgnoreCase("or");
+			case 3:
+				return word.equalsIgnoreCase("and");
+			default:
+				return false;
+		}
+	}
+
+	private static int bits(int... tagIds)
+	{
+		int bits = 0;
+		for (int tagId : tagIds)
+		{
+			bits |= 1 << tagId;
+		}
+		return bits;
+	}
+
+	private boolean has(int i, int tagSet)
+	{
+		return (tagSet & (1 << tags[i]))!=0;
+	}
+
+	private void load(List<TaggedWord> words)
+	{
+		this.words = words;
+		size = words.size();
+		if (tags.length<size)
+		{
+			tags = new int[Math.max(size, tags.length*2)];
+			flags = new int[tags.length];
+		}
+		for (int i=0; i<size; i++)
+		{
+			tags[i] = tagId(words.get(i).tag());
+			updateFlags(i);
+		}
+	}
+
+	private void updateFlags(int i)
+	{
+		String word = words.get(i).word();
+		flags[i] = (isCoordinator(word) ? COORDINATOR : 0) | (word.endsWith(",") ? COMMA : 0);
+	}
+
+	/**
+	 * Same as word.trim().replaceAll("(\\.|\\,|\\;|\\:|\\?|\\!)$", "")
+	 * @param word
+	 * @return the trimmed word without one trailing punctuation character
+	 */
+	static String stripTrailingPunctuation(String word)
+	{
+		String trimmed = word.trim();
+		int end = trimmed.length();
+		//$ also matches in front of a final line terminator, trim does not remove the Unicode ones
+		if (end>0 && isLineTerminator(trimmed.charAt(end-1)))
+		{
+			end--;
+		}
+		if (end>0 && ".,;:?!".indexOf(trimmed.charAt(end-1))!=-1)
+		{
+			return trimmed.substring(0, end-1) + trimmed.substring(end);
+		}
+		return trimmed;
+	}
+
+	private static boolean isLineTerminator(char c)
+	{
+		return c=='\n' || c=='\r' || c=='\u0085' || c=='\u2028' || c=='\u2029';
+	}
+
+	/**
+	 * Cleans the noun phrase like FastWetProcessor.cleanNounPhrase: the last word of each modifier loses a trailing
+	 * punctuation character, the post-modifier is reduced to the last noun or number and the pre-modifier starts with
+	 * the first adjective. The words are changed in the list, so the flags of the words around the core are updated.
+	 */
+	private NounPhraseSpan clean(NounPhraseSpan np, int core, int end)
+	{
+		if (np.getPostModifierCount()>0)
+		{
+			TaggedWord last = words.get(np.getPostModifier(np.getPostModifierCount()-1));
+			last.setWord(stripTrailingPunctuation(last.word()));
+			while (np.getPostModifierCount()>0 && !has(np.getPostModifier(np.getPostModifierCount()-1), NOUN_OR_NUMBER))
+			{
+				np.removeLastPostModifier();
+			}
+		}
+		if (np.getPreModifierCount()>0)
+		{
+			TaggedWord last = words.get(np.getPreModifier(np.getPreModifierCount()-1));
+			last.setWord(stripTrailingPunctuation(last.word()));
+			while (np.getPreModifierCount()>0 && !has(np.getPreModifier(0), PRE_MODIFIER))
+			{
+				np.removeFirstPreModifier();
+			}
+		}
+		for (int i=Math.max(0, core - maxNpSize); i<=end; i++)
+		{
+			updateFlags(i);
+		}
+		return np;
+	}
+
+
+	private void findPreMod(int nnOffset, NounPhraseSpan currentNP)
+	{
+		for (int i=nnOffset-1; i>nnOffset-maxNpSize && i>=0; i--)
+		{
+			if (!has(i, PRE_MODIFIER) || (flags[i] & COMMA)!=0)
+			{
+				return;
+			}
+			currentNP.addPreModifier(i);
+		}
+	}
+
+	/**
+	 * @return -1, if no coordination follows; otherwise the offset of the last word of the noun phrase
+	 */
+	private int findPostMod(int nnOffset, NounPhraseSpan currentNP)
+	{
+		for (int i=nnOffset+1; i<nnOffset+maxNpSize && i<size; i++)
+		{
+			boolean modifier = has(i, POST_MODIFIER);
+			if (modifier)
+			{
+				currentNP.addPostModifier(i);
+			}
+			if ((flags[i] & COORDINATOR)!=0)
+			{
+				return i;
+			}
+			if (!modifier)
+			{
+				return -1;
+			}
+			if ((flags[i] & COMMA)!=0)
+			{
+				return i;
+			}
+		}
+		int last = nnOffset + maxNpSize;
+		if (last<size && (flags[last] & COORDINATOR)!=0)
+		{
+			return last;
+		}
+		return -1;
+	}
+
+	/**
+	 * @return -2, if a further noun follows; -1, if no coordination follows; otherwise the offset where the next noun phrase is searched
+	 */
+	private int findPreModReverse(int nnOffset, NounPhraseSpan currentNP)
+	{
+		boolean premodFinished = false;
+		for (int i=nnOffset+1; i<nnOffset+maxNpSize && i<size; i++)
+		{
+			boolean comma = (flags[i] & COMMA)!=0;
+			if (has(i, PRE_MODIFIER) && !comma && !premodFinished)
+			{
+				currentNP.addPreModifier(i);
+			}
+			else if (has(i, REVERSE_GAP))
+			{
+				premodFinished = true;
+			}
+			else if (tags[i]==NN && !comma)
+			{
+				return -2;
+			}
+			else if (comma)
+			{
+				return i;
+			}
+			else if ((flags[i] & COORDINATOR)!=0)
+			{
+				return i+1;
+			}
+			else
+			{
+				return -1;
+			}
+		}
+		int last = nnOffset + maxNpSize;
+		if (last<size && (flags[last] & COORDINATOR)!=0)
+		{
+			return last+1;
+		}
+		return -1;
+	}
+
+	private void findPostModReverse(int nnOffset, NounPhraseSpan currentNP)
+	{
+		for (int i=nnOffset-1; i>nnOffset-maxNpSize && i>=0; i--)
+		{
+			if ((flags[i] & COORDINATOR)!=0)
+			{
+				return;
+			}
+			if (has(i, POST_MODIFIER))
+			{
+				currentNP.addPostModifier(i);
+			}
+			if ((flags[i] & COMMA)!=0)
+			{
+				return;
+			}
+		}
+	}
+}
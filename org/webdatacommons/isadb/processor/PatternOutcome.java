@@ -0,0 +1,34 @@
+// http://webdatacommons.org/isadb/
+// The WebIsADb and the API are licensed under a Creative Commons Attribution-Non Commercial-Share Alike 3.0 License: http://creativecommons.org/licenses/by-nc-sa/3.0/.
+// Acknowledgements
+// This work was partially funded by the Deutsche Forschungsgemeinschaft within the JOIN-T project (research grant PO 1900/1-1). Part of the computational resources used for this work were provide by an Amazon AWS in Education Grant award.
+// this software is meant to be part of the CommonCrawl framework: http://commoncrawl.org/ to re-build a new WebIsADb from fresh CommonCrawl dumps.
+
+package org.webdatacommons.isadb.processor;
+
+/**
+ * Result of matching one pattern against one sentence, from the first match which passed the pronoun check on.
+ * Whether the sentence is a duplicate can only be decided in input order, so the worker collects everything
+ * the writer needs to replay the duplicate check of the sequential extraction:
+ * if the key was already stored, only one duplicate is counted; otherwise the counters and the match are taken.
+ */
+public class PatternOutcome {
+
+	public final int patternIndex;
+	/** 64-bit hash of pattern, sentence and PLD, used for the duplicate check */
+	public final long key;
+	/** The key was already stored when the worker checked it, nothing else has been computed */
+	public boolean knownDuplicate;
+	/** The extracted match, null if no noun phrases could be found for any match of the pattern */
+	public ExtractedMatch match;
+	/** A further match of the pattern followed the extracted one; it counts as duplicate */
+	public boolean trailingDuplicate;
+	public int pronounFrontExclusions;
+	public int pronounBackExclusions;
+
+	public PatternOutcome(int patternIndex, long key)
+	{
+		this.patternIndex = patternIndex;
+		this.key = key;
+	}
+}
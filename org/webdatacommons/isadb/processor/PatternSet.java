@@ -0,0 +1,312 @@
+// http://webdatacommons.org/isadb/
+// The WebIsADb and the API are licensed under a Creative Commons Attribution-Non Commercial-Share Alike 3.0 License: http://creativecommons.org/licenses/by-nc-sa/3.0/.
+// Acknowledgements
+// This work was partially funded by the Deutsche Forschungsgemeinschaft within the JOIN-T project (research grant PO 1900/1-1). Part of the computational resources used for this work were provide by an Amazon AWS in Education Grant award.
+// this software is meant to be part of the CommonCrawl framework: http://commoncrawl.org/ to re-build a new WebIsADb from fresh CommonCrawl dumps.
+
+package org.webdatacommons.isadb.processor;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+import org.apache.log4j.Logger;
+import org.webdatacommons.isadb.util.CustomPattern;
+import org.webdatacommons.isadb.util.PatternAutomaton;
+
+/**
+ * The extraction patterns of a pattern catalog, compiled once together with the precondition of the line check
+ * and the keyword automaton. A set is immutable and shared by all workers and files of the JVM. get() compiles
+ * the catalog again when its file was changed, so the patterns can be changed without restarting the node.
+ * <p>
+ * The catalog is a tab separated file with one pattern per line and the columns
+ * pid, type, instanceFirst, preCondition, firstKeyWord, secondKeyWord and regex, in the order the patterns are checked.
+ * Empty fields are null, lines starting with # are comments. ${np} and ${npAdjMost} in a regex are replaced
+ * by the noun phrase placeholders of the split patterns.
+ */
+public class PatternSet {
+
+	private static Logger log = Logger.getLogger(PatternSet.class);
+
+	/** Classpath resource next to this class which is used if no catalog file is configured */
+	public static final String DEFAULT_CATALOG = "patterns.tsv";
+
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+	private static final int COLUMNS = 7;
+
+	private static final String SEPARATOR_SYMBOLS 	= 	"[\\u002D\\u2010\\u2011\\u2012\\u2013\\u2014\\u2015\\u2043]?";
+	private static final String SURROUNDER_SYMBOLS 	= 	"[\\u0027\\u2018\\u2019\\u201A\\u201B\\u201C\\u201D\\u201E\\u201F\\u0022]?"; // Apostrophee, LEFT SINGLE QUOTATION MARK, RIGHT SINGLE QUOTATION MARK, SINGLE LOW-9 QUOTATION MARK, SINGLE HIGH-REVERSED-9 QUOTATION MARK, LEFT DOUBLE QUOTATION MARK, RIGHT DOUBLE QUOTATION MARK, DOUBLE LOW-9 QUOTATION MARK, DOUBLE HIGH-REVERSED-9 QUOTATION MARK, Quotation Mark
+	private static final String END_SYMBOLS			=	"[\"\\u0026\\u0027\\u2018\\u2019\\u201A\\u201B\\u201C\\u201D\\u201E\\u201F\\u00A9\\u00AE]?";
+
+	//One word of a noun phrase of the split patterns
+	private static final String NP_WORD = "("+SURROUNDER_SYMBOLS+""		//Quotation mark could be in front
+			+ "(\\p{L}++|\\d++\\p{L}++)"								//Word can start with letters or digits but must contain letters
+			+ "("+SEPARATOR_SYMBOLS+"(\\p{L}++|\\d++))?"				//Can be separated by a hyphen
+			+ END_SYMBOLS+"\\s)";										//Can be followed by quotation mark
+
+	//NP can consist of up to 4 words
+	private static final String NP_PLACEHOLDER = NP_WORD + "{1,4}";
+
+	//NP can consist of up to 4 words and 1 mandatory word for the adjective
+	private static final String NP_PLACEHOLDER_ADJ_MOST = NP_WORD + "{2,5}";
+
+	private static volatile PatternSet current;
+
+	private final String catalog;
+	private final long catalogModified;
+	private final List<CustomPattern> patterns;
+	private final Pattern preCheckPattern;
+	private final PatternAutomaton automaton;
+	private final long compileTime;
+	//Thread whose get() compiled the set until the compile time is taken (see takeCompileTime)
+	private final AtomicReference<Thread> compilingThread = new AtomicReference<Thread>();
+
+	private PatternSet(String catalog, long catalogModified, List<CustomPattern> patterns, Pattern preCheckPattern, PatternAutomaton automaton, long compileTime)
+	{
+		this.catalog = catalog;
+		this.catalogModified = catalogModified;
+		this.patterns = patterns;
+		this.preCheckPattern = preCheckPattern;
+		this.automaton = automaton;
+		this.compileTime = compileTime;
+	}
+
+	/**
+	 * @return the set of the configured catalog (isadb.patterns), compiled again if the catalog file was changed since the last call
+	 * @throws IOException if the catalog cannot be read or is invalid and no set was compiled before
+	 */
+	public static PatternSet get() throws IOException
+	{
+		return get(ExtractionConfig.getPatternCatalog());
+	}
+
+	/**
+	 * @param catalog path of a catalog file, null for the default catalog on the classpath
+	 * @return the shared set of the catalog, compiled again if the catalog or its file was changed since the last call
+	 * @throws IOException if the catalog cannot be read or is invalid and no set of it was compiled before
+	 */
+	public static synchronized PatternSet get(String catalog) throws IOException
+	{
+		PatternSet set = current;
+		if (set==null || !equals(set.catalog, catalog))
+		{
+			return compiledByThisCall(reload(catalog));
+		}
+		if (catalog!=null && new File(catalog).lastModified()!=set.catalogModified)
+		{
+			try
+			{
+				return compiledByThisCall(reload(catalog));
+			}
+			catch (IOException e)
+			{
+				//A broken edit must not stop the node; the previous patterns stay in use until the file is fixed
+				log.error("Could not reload the pattern catalog " + catalog + ", keeping the previous patterns", e);
+			}
+		}
+		return set;
+	}
+
+	private static PatternSet compiledByThisCall(PatternSet set)
+	{
+		set.compilingThread.set(Thread.currentThread());
+		return set;
+	}
+
+	/**
+	 * Compiles the catalog and makes it the shared set; files which are already being extracted keep their set
+	 * @param catalog path of a catalog file, null for the default catalog on the classpath
+	 * @return the new set
+	 * @throws IOException if the catalog cannot be read or is invalid; the shared set is not changed then
+	 */
+	public static synchronized PatternSet reload(String catalog) throws IOException
+	{
+		PatternSet set = compile(catalog);
+		current = set;
+		log.info("Compiled " + set.patterns.size() + " patterns of " + set.getCatalog() + " in " + set.compileTime + " ms");
+		return set;
+	}
+
+	/**
+	 * Compiles a catalog without changing the shared set
+	 * @param catalog path of a catalog file, null for the default catalog on the classpath
+	 * @return the compiled set
+	 * @throws IOException if the catalog cannot be read or is invalid
+	 */
+	public static PatternSet compile(String catalog) throws IOException
+	{
+		long start = System.currentTimeMillis();
+		long modified = 0;
+		InputStream in;
+		if (catalog==null)
+		{
+			in = PatternSet.class.getResourceAsStream(DEFAULT_CATALOG);
+			if (in==null)
+			{
+				throw new IOException("Pattern catalog " + DEFAULT_CATALOG + " not found on the classpath next to " + PatternSet.class.getName()
+						+ "; add it to the classpath (the Maven build packages it) or set isadb.patterns to a catalog file");
+			}
+		}
+		else
+		{
+			File file = new File(catalog);
+			modified = file.lastModified();
+			in = new FileInputStream(file);
+		}
+		ArrayList<CustomPattern> patterns;
+		BufferedReader reader = new BufferedReader(new InputStreamReader(in, UTF8));
+		try
+		{
+			patterns = parse(reader, catalog==null ? DEFAULT_CATALOG : catalog);
+		}
+		finally
+		{
+			reader.close();
+		}
+		Pattern preCheckPattern = FastWetProcessor.createPreCheckPattern(patterns);
+		PatternAutomaton automaton = new PatternAutomaton(patterns);
+		return new PatternSet(catalog, modified, Collections.unmodifiableList(patterns), preCheckPattern, automaton, System.currentTimeMillis() - start);
+	}
+
+	/**
+	 * @param reader the lines of a catalog
+	 * @param name of the catalog, used in the error messages
+	 * @return the compiled patterns in the order of the catalog
+	 * @throws IOException if a line is invalid
+	 */
+	static ArrayList<CustomPattern> parse(BufferedReader reader, String name) throws IOException
+	{
+		ArrayList<CustomPattern> patterns = new ArrayList<CustomPattern>();
+		HashSet<String> pids = new HashSet<String>();
+		int lineNumber = 0;
+		String line;
+		while ((line = reader.readLine())!=null)
+		{
+			lineNumber++;
+			if (line.endsWith("\r"))
+			{
+				line = line.substring(0, line.length()-1);
+			}
+			if (line.isEmpty() || line.startsWith("#"))
+			{
+				continue;
+			}
+			String[] fields = line.split("\t", -1);
+			if (fields.length!=COLUMNS)
+			{
+				throw new IOException(name + ":" + lineNumber + ": expected " + COLUMNS + " tab separated columns, found " + fields.length);
+			}
+			String pid = field(fields[0]);
+			String type = field(fields[1]);
+			if (pid==null || !pids.add(pid))
+			{
+				throw new IOException(name + ":" + lineNumber + ": missing or duplicate pid " + pid);
+			}
+			if (!"compact".equals(type) && !"split".equals(type) && !"split_noPrefix".equals(type) && !"split_noSuffix".equals(type))
+			{
+				throw new IOException(name + ":" + lineNumber + ": unknown type " + type + " of pattern " + pid);
+			}
+			if (!fields[2].equals("true") && !fields[2].equals("false"))
+			{
+				throw new IOException(name + ":" + lineNumber + ": instanceFirst of pattern " + pid + " has to be true or false");
+			}
+			String regex = expand(field(fields[6]));
+			if (regex==null || regex.contains("${"))
+			{
+				throw new IOException(name + ":" + lineNumber + ": missing regex or unknown placeholder in pattern " + pid);
+			}
+			try
+			{
+				patterns.add(new CustomPattern(pid, regex, type, field(fields[3]), field(fields[4]), field(fields[5]), Boolean.valueOf(fields[2])));
+			}
+			catch (PatternSyntaxException e)
+			{
+				throw new IOException(name + ":" + lineNumber + ": invalid regex of pattern " + pid, e);
+			}
+		}
+		if (patterns.isEmpty())
+		{
+			throw new IOException(name + ": no patterns");
+		}
+		return patterns;
+	}
+
+	private static String field(String value)
+	{
+		return value.isEmpty() ? null : value;
+	}
+
+	private static String expand(String regex)
+	{
+		if (regex==null)
+		{
+			return null;
+		}
+		return regex.replace("${npAdjMost}", NP_PLACEHOLDER_ADJ_MOST).replace("${np}", NP_PLACEHOLDER);
+	}
+
+	private static boolean equals(String a, String b)
+	{
+		return a==null ? b==null : a.equals(b);
+	}
+
+	/**
+	 * @return the patterns in the order they are checked; the list cannot be modified
+	 */
+	public List<CustomPattern> getPatterns()
+	{
+		return patterns;
+	}
+
+	/**
+	 * @return alternation of the preconditions of all patterns, used to skip lines without any pattern keyword
+	 */
+	public Pattern getPreCheckPattern()
+	{
+		return preCheckPattern;
+	}
+
+	/**
+	 * @return keyword automaton selecting the patterns which have to be checked for a sentence
+	 */
+	public PatternAutomaton getAutomaton()
+	{
+		return automaton;
+	}
+
+	/**
+	 * @return path of the catalog file, or the name of the classpath resource
+	 */
+	public String getCatalog()
+	{
+		return catalog==null ? DEFAULT_CATALOG : catalog;
+	}
+
+	/**
+	 * @return milliseconds spent reading and compiling the catalog
+	 */
+	public long getCompileTime()
+	{
+		return compileTime;
+	}
+
+	/**
+	 * Call it right after get(), so only the file which waited for the compilation reports it
+	 * @return the compile time if the get() of the current thread compiled the set, 0 otherwise or if it was already taken
+	 */
+	public long takeCompileTime()
+	{
+		return compilingThread.compareAndSet(Thread.currentThread(), null) ? compileTime : 0;
+	}
+}
@@ -0,0 +1,527 @@
+// http://webdatacommons.org/isadb/
+// The WebIsADb and the API are licensed under a Creative Commons Attribution-Non Commercial-Share Alike 3.0 License: http://creativecommons.org/licenses/by-nc-sa/3.0/.
+// Acknowledgements
+// This work was partially funded by the Deutsche Forschungsgemeinschaft within the JOIN-T project (research grant PO 1900/1-1). Part of the computational resources used for this work were provide by an Amazon AWS in Education Grant award.
+// this software is meant to be part of the CommonCrawl framework: http://commoncrawl.org/ to re-build a new WebIsADb from fresh CommonCrawl dumps.
+
+package org.webdatacommons.isadb.processor;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.log4j.Logger;
+import org.webdatacommons.isadb.util.ApostropheNormalizer;
+import org.webdatacommons.isadb.util.CustomPattern;
+import org.webdatacommons.isadb.util.DedupStore;
+import org.webdatacommons.isadb.util.DedupStores;
+import org.webdatacommons.isadb.util.NounPhraseSpan;
+import org.webdatacommons.isadb.util.PatternAutomaton;
+import org.webdatacommons.isadb.util.PldResolver;
+import org.webdatacommons.isadb.util.SentenceSegmenter;
+import org.webdatacommons.isadb.util.TokenOffsetIndex;
+
+import com.google.common.base.Splitter;
+
+import edu.stanford.nlp.ling.TaggedWord;
+import edu.stanford.nlp.tagger.maxent.MaxentTagger;
+
+/**
+ * Extracts the is-a matches of single WET records: sentence splitting, pattern matching, POS tagging and NP chunking.
+ * Each worker thread of the ExtractionPipeline owns one RecordExtractor (and with it one tagger);
+ * the duplicate check against sentences already written is left to the ResultWriter.
+ */
+public class RecordExtractor {
+
+	private static Logger log = Logger.getLogger(RecordExtractor.class);
+	
+	//Constants for sentence splitting
+	private static final String[] abbreviations = {"A","B","C","D","E","F","G","H","I","J","K","L","M","N","O","P","Q","R","S","T","U","V","W","X","Y","Z",
+		"Adj","Adm","Adv","Asst","Bart","Bldg","Brig","Bros","Capt","Cmdr","Col","Comdr","Con","Corp","Cpl","DR","Dr","Drs","Ens", "Fig", "FIG", "fig", "Gen","Gov","Hon","Hr","Hosp","Insp","Lt","MM",
+		"MR","MRS","MS","Maj","Messrs","Mlle","Mme","Mr","Mrs","Ms","Msgr","Op","Ord","Pat","Pfc","Ph","Prof","Pvt","Rep","Reps","Res","Rev","Rt","Sen","Sens","Sfc","Sgt","Sr","St",
+		"Supt","Surg","v","vs", "U.S","u.s", "U.K","u.k","i.e","rev","e.g","No","Nos","Art","Nr","pp"};
+	
+	//Constants for false-positive detection
+	private static final String[] demonstratives 		= {"that","this","these","those"};
+	private static final String[] possessives			= {"mine","yours","his","hers","its","ours","theirs"};
+	private static final String[] personals				= {"i","you","he","she","it","we","they"};
+	private static final String[] questions				= {"where", "who", "when", "what", "why", "whose", "which", "how"};		
+	private static final String[] allExclusions = FastWetProcessor.concatAll(demonstratives, possessives, personals, questions);
+	
+	//Processing Limitations
+	private static final int maxLineLength = 2500;
+	private static final int maxSentenceLength = 400;
+	private static final int minSentenceLength = 10;
+	
+	private final String inputFileKey;
+	private final List<CustomPattern> allPatterns;
+	private final PatternAutomaton patternAutomaton;
+	private final Pattern preCheckPattern;
+	private final PldResolver pldResolver;
+	private final SentenceTagger sentenceTagger;
+	private final DedupStore dedupStore;
+	private final ExtractionStats stats;
+	
+	private final SentenceSegmenter sentenceSegmenter = createSentenceSegmenter();
+	private final long[] candidatePatterns;
+	private final ArrayList<NounPhraseSpan> currentNPsBeforePattern = new ArrayList<NounPhraseSpan>();
+	private final ArrayList<NounPhraseSpan> currentNPsAfterPattern = new ArrayList<NounPhraseSpan>();
+	private final StringBuilder nounPhraseText = new StringBuilder(64);
+	//Lower cased current sentence, created on the first use
+	private String lowerCaseSentence;
+	private final NounPhraseChunker chunker = new NounPhraseChunker(FastWetProcessor.maxNpSize, ExtractionConfig.getMaxNounPhrases());
+	
+	/**
+	 * @param inputFileKey used for logging
+	 * @param allPatterns
+	 * @param patternAutomaton built from allPatterns
+	 * @param preCheckPattern alternation of all pattern preconditions
+	 * @param pldResolver shared by all extractors
+	 * @param tagger used by this extractor only
+	 * @param dedupStore keys of the sentences already written; only read
+	 */
+	public RecordExtractor(String inputFileKey, List<CustomPattern> allPatterns, PatternAutomaton patternAutomaton, Pattern preCheckPattern, PldResolver pldResolver, MaxentTagger tagger, DedupStore dedupStore)
+	{
+		this.inputFileKey = inputFileKey;
+		this.stats = new ExtractionStats(allPatterns.size());
+		this.allPatterns = allPatterns;
+		this.patternAutomaton = patternAutomaton;
+		this.preCheckPattern = preCheckPattern;
+		this.pldResolver = pldResolver;
+		this.sentenceTagger = new SentenceTagger(tagger, ExtractionConfig.isWindowTagging(), ExtractionConfig.getTagWindow(), ExtractionConfig.getTagAccuracySample(), stats);
+		this.dedupStore = dedupStore;
+		this.candidatePatterns = patternAutomaton.newCandidateSet();
+	}
+	
+	/**
+	 * @return a segmenter using the abbreviations of the extraction
+	 */
+	public static SentenceSegmenter createSentenceSegmenter()
+	{
+		return new SentenceSegmenter(abbreviations);
+	}
+	
+	public ExtractionStats getStats()
+	{
+		return stats;
+	}
+	
+	public RecordResult extract(WetRecord record)
+	{
+		RecordResult result = new RecordResult(record.sequence);
+		
+		String lineChunk = "";
+		
+		//PLD variables
+		String tmpUrl = "";
+		Boolean pldAlreadyExtracted = false;
+		
+		//Sentences of the current line chunk
+		ArrayList<String> sentencesClean = new ArrayList<String>();
+		
+		//Performance Timers
+		long sentSplitTimer = 0;
+		long pldExtractTimer = 0;
+		long preCheckTimer = 0;
+		long pronounCheckTimer = 0;
+		long patternFilterTimer = 0;
+		
+		try
+		{
+			for (String line : record.lines) 
+			{					
+				//If line is below min. Sentence-Length Processing is skipped
+				if (line.length()<minSentenceLength) continue;
+				
+				//Line is split into chunks to avoid bad regex performance
+				Iterator<String> lineChunks = Splitter.fixedLength(maxLineLength).split(line).iterator();
+				
+				//Iterate through line chunks
+				while (lineChunks.hasNext())
+				{					
+					lineChunk = lineChunks.next();
+					
+					//Pre-check the line chunk for Pattern Keywords
+					preCheckTimer  = System.nanoTime();
+					if (!preCheckPattern.matcher(lineChunk).find())
+					{
+						continue;
+					}						
+					stats.preCheckTime += (System.nanoTime()-preCheckTimer)/1000;
+					
+					//
+					//Start Sentence Splitter
+					//
+					sentSplitTimer = System.nanoTime();
+					int sentenceCount = sentenceSegmenter.segment(lineChunk);
+					stats.sentSplitTime += (System.nanoTime() - sentSplitTimer) /1000;
+					//
+					//End Sentence Splitter
+					//
+					
+					for (int s=0; s<sentenceCount; s++)
+					{
+						int sentenceStart = sentenceSegmenter.getStart(s);
+						int sentenceEnd = sentenceSegmenter.getEnd(s);
+						if (sentenceEnd-sentenceStart>maxSentenceLength)
+						{
+							for (int chunkStart=sentenceStart; chunkStart<sentenceEnd; chunkStart+=maxSentenceLength)
+							{
+								sentencesClean.add(lineChunk.substring(chunkStart, Math.min(chunkStart+maxSentenceLength, sentenceEnd)));
+							}
+						}
+						else 
+						{
+							sentencesClean.add(lineChunk.substring(sentenceStart, sentenceEnd));
+						}
+					}
+											
+					//
+					//Start Analyzing Sentences
+					//
+										
+					for (String sentence : sentencesClean)
+					{
+						
+						stats.sentencesTotal++;
+						//Check for ill-formed sentences
+						if (sentence.length()>maxSentenceLength) 
+						{
+							stats.sentenceLongExclusions++;
+							continue;
+						}
+						if (sentence.length()<minSentenceLength)
+						{
+							stats.sentenceShortExclusions++;
+							continue;
+						}
+						
+						// Help the Pos-Tagger with Apostrophies and QuotationMarks; Replace as many as possible, without losing the meaning;
+						sentence = sentence.replaceAll("\\s+", " ");
+						sentence = ApostropheNormalizer.normalize(sentence, true);
+						
+						sentenceTagger.setSentence(sentence);
+						lowerCaseSentence = null;
+						
+						//Select the patterns whose keywords occur in the sentence; only these can match
+						patternFilterTimer = System.nanoTime();
+						patternAutomaton.findCandidates(sentence, candidatePatterns);
+						stats.patternFilterTime += (System.nanoTime()-patternFilterTimer)/1000;
+						
+						for (int i=0; i< allPatterns.size(); i++)
+						{
+							if (!PatternAutomaton.isCandidate(candidatePatterns, i))
+							{
+								stats.regexChecksSkipped++;
+								continue;
+							}
+							
+							CustomPattern currentPattern = allPatterns.get(i);
+							PatternOutcome outcome = null;
+							int onset = 0;
+							int offset = 0;
+							long startMatchingTime = System.nanoTime();
+							Matcher patternMatcher = currentPattern.pattern.matcher(sentence);							
+							while(patternMatcher.find())
+							{
+								//
+								//Start Extract PLD
+								//
+								if (!pldAlreadyExtracted)
+								{
+									pldExtractTimer = System.nanoTime();
+									String host = PldResolver.extractHost(record.url);
+									PldResolver.Resolution pld = pldResolver.lookup(host);
+									if (pld==null)
+									{
+										stats.pldCacheMisses++;
+										pld = pldResolver.resolveHost(host);
+									}
+									else
+									{
+										stats.pldCacheHits++;
+									}
+									//If the PLD can not be determined (e.g. URL is a IP-Adress), the host is used
+									if (pld.failed())
+									{
+										stats.pldExtractionExceptions++;
+									}
+									tmpUrl = pld.pld;
+									pldAlreadyExtracted=true;
+									stats.pldExtractTime += (System.nanoTime()-pldExtractTimer)/1000;
+								}															
+								//
+								//End Extract PLD
+								//
+																	
+								//
+								//Start storing pattern and statistics
+								//
+								String extractedPattern = patternMatcher.group();								
+								onset  = sentence.indexOf(extractedPattern, offset);
+								offset = onset + extractedPattern.length();
+								
+								// Compact Patterns still contain an Indicator for the leading and the following Nounphrase
+								// This indicator has to be removed
+								if (currentPattern.type.equals("compact"))
+								{
+									onset++;
+									offset--;
+								}
+								
+								// Check if a leading or following pronoun can be excluded
+								pronounCheckTimer = System.nanoTime();									
+								boolean pronounFrontExcluded = isExcludedPronoun(lastWordBefore(sentence, onset));
+								boolean pronounBackExcluded = isExcludedPronoun(firstWordAfter(sentence, offset));
+								stats.pronounCheckTime += (System.nanoTime()- pronounCheckTimer)/1000;
+							 	if(pronounBackExcluded || pronounFrontExcluded)
+							 	{
+							 		// Exclusions after the duplicate check are only counted by the writer, if the sentence is new
+							 		if (outcome==null)
+							 		{
+							 			if (pronounFrontExcluded) stats.pronounFrontExclusions++;
+							 			if (pronounBackExcluded) stats.pronounBackExclusions++;
+							 		}
+							 		else
+							 		{
+							 			if (pronounFrontExcluded) outcome.pronounFrontExclusions++;
+							 			if (pronounBackExcluded) outcome.pronounBackExclusions++;
+							 		}
+							 		continue;
+							 	}
+							 	
+							 	//Check if the sentence has already been processed/stored
+							 	if (outcome==null)
+							 	{
+							 		outcome = new PatternOutcome(i, DedupStores.key(i, sentence, tmpUrl));
+							 		result.outcomes.add(outcome);
+							 		if (dedupStore.contains(outcome.key))
+							 		{
+							 			outcome.knownDuplicate = true;
+							 			break;
+							 		}
+							 	}
+							 	else if (outcome.match!=null)
+							 	{
+							 		outcome.trailingDuplicate = true;
+							 		break;
+							 	}
+							 	
+								//
+								//Start Extracting single Tupels
+								//
+							 	List<TaggedWord> fullTaggedList;
+							 	List<TaggedWord> taggedWordsBeforePattern;
+							 	List<TaggedWord> taggedWordsAfterPattern;		
+								//An exception in a former match (caught per record) can have left its noun phrases in the lists
+								chunker.release(currentNPsBeforePattern);
+								chunker.release(currentNPsAfterPattern);
+								try
+								{
+									fullTaggedList = sentenceTagger.tagMatch(onset, offset);
+									TokenOffsetIndex tokenIndex = sentenceTagger.getTokenIndex();
+									
+									if (currentPattern.type.equals("compact"))
+									{
+										taggedWordsBeforePattern = tokenIndex.subset(0, onset+1, fullTaggedList);
+										taggedWordsAfterPattern = tokenIndex.subset(offset, sentence.length(), fullTaggedList);
+									}
+									else
+									{
+										taggedWordsBeforePattern = wordsBeforeSplitPattern(currentPattern, sentence, onset, tokenIndex, fullTaggedList);
+										taggedWordsAfterPattern = wordsAfterSplitPattern(currentPattern, sentence, onset, offset, tokenIndex, fullTaggedList);
+									}
+																			
+									Collections.reverse(taggedWordsBeforePattern);
+									if (chunker.chunkReverse(taggedWordsBeforePattern, currentNPsBeforePattern))
+									{
+										stats.nounPhraseListsTruncated++;
+									}
+									if (chunker.chunk(taggedWordsAfterPattern, currentNPsAfterPattern))
+									{
+										stats.nounPhraseListsTruncated++;
+									}
+									
+									if (currentNPsAfterPattern.size()==0 || currentNPsBeforePattern.size()==0)
+									{
+										chunker.release(currentNPsBeforePattern);
+										chunker.release(currentNPsAfterPattern);
+										continue;												
+									}
+								
+								}
+								
+								catch (StringIndexOutOfBoundsException e)
+								{
+									log.error("NP-Extraction ERROR: "+sentence+" "+currentPattern.pid+" "+ExtractedMatch.appendList(new StringBuilder(), nounPhrases(currentNPsBeforePattern))+" "+ExtractedMatch.appendList(new StringBuilder(), nounPhrases(currentNPsAfterPattern))+" "+onset+" "+offset);
+								}
+								
+								//
+								//End Extracting single Tuples
+								//
+							
+								outcome.match = createMatch(i, sentence, onset, offset, tmpUrl, startMatchingTime);
+								chunker.release(currentNPsBeforePattern);
+								chunker.release(currentNPsAfterPattern);
+								startMatchingTime = System.nanoTime();									
+								//
+								//End storing pattern and statistics
+								//	
+							}
+						}							
+					}					
+					sentencesClean.clear();						
+				}
+			}
+			if (record.readError!=null)
+			{
+				throw record.readError;
+			}
+		} 
+		catch (Exception ex) {
+			log.error(ex + " in " + inputFileKey + " for record "
+					+ record.url, ex.fillInStackTrace());
+			ex.printStackTrace();
+			stats.errorTotal++;
+		}
+		sentenceTagger.finish();
+		return result;
+	}
+	
+	private ExtractedMatch createMatch(int patternIndex, String sentence, int onset, int offset, String pld, long startMatchingTime)
+	{
+		CustomPattern currentPattern = allPatterns.get(patternIndex);
+		ExtractedMatch match = new ExtractedMatch();
+		match.patternIndex = patternIndex;
+		match.pid = currentPattern.pid;
+		match.sentence = sentence;
+		if (currentPattern.instanceFirst)
+		{
+			match.instances = nounPhrases(currentNPsBeforePattern);
+			match.instanceTags = nounPhraseTags(currentNPsBeforePattern);
+			match.classes = nounPhrases(currentNPsAfterPattern);
+			match.classTags = nounPhraseTags(currentNPsAfterPattern);
+		}
+		else
+		{
+			match.instances = nounPhrases(currentNPsAfterPattern);
+			match.instanceTags = nounPhraseTags(currentNPsAfterPattern);
+			match.classes = nounPhrases(currentNPsBeforePattern);
+			match.classTags = nounPhraseTags(currentNPsBeforePattern);
+		}
+		match.onset = onset;
+		match.offset = offset;
+		match.pld = pld;
+		match.matchingTime = (System.nanoTime()-startMatchingTime)/1000;
+		return match;
+	}
+	
+	/**
+	 * Same as FastWetProcessor.getWordlistBeforeSplittedPattern, using the token index of the sentence
+	 */
+	private List<TaggedWord> wordsBeforeSplitPattern(CustomPattern custPat, String sentence, int onset, TokenOffsetIndex tokenIndex, List<TaggedWord> tw)
+	{
+		if (custPat.type.equals("split_noPrefix"))
+		{
+			if (lowerCaseSentence==null)
+			{
+				lowerCaseSentence = sentence.toLowerCase();
+			}
+			return tokenIndex.subset(onset+custPat.firstKeyWord.length()+1, lowerCaseSentence.indexOf(custPat.secondKeyWord, onset), tw);
+		}
+		if (custPat.type.equals("split") || custPat.type.equals("split_noSuffix"))
+		{
+			return tokenIndex.subset(0, onset, tw);
+		}
+		return new ArrayList<TaggedWord>();
+	}
+	
+	/**
+	 * Same as FastWetProcessor.getWordlistAfterSplittedPattern, using the token index of the sentence
+	 */
+	private static List<TaggedWord> wordsAfterSplitPattern(CustomPattern custPat, String sentence, int onset, int offset, TokenOffsetIndex tokenIndex, List<TaggedWord> tw)
+	{
+		if (custPat.type.equals("split_noPrefix"))
+		{
+			return tokenIndex.subset(offset, sentence.length(), tw);
+		}
+		if (custPat.type.equals("split_noSuffix"))
+		{
+			return tokenIndex.subset(onset, sentence.indexOf(custPat.secondKeyWord, onset), tw);
+		}
+		if (custPat.type.equals("split"))
+		{
+			return tokenIndex.subset(onset+custPat.firstKeyWord.length(), sentence.length(), tw);
+		}
+		return new ArrayList<TaggedWord>();
+	}
+	
+	private String[] nounPhrases(ArrayList<NounPhraseSpan> nps)
+	{
+		String[] result = new String[nps.size()];
+		for (int i=0; i<result.length; i++)
+		{
+			nounPhraseText.setLength(0);
+			nps.get(i).appendText(nounPhraseText);
+			result[i] = nounPhraseText.toString();
+		}
+		return result;
+	}
+	
+	private String[] nounPhraseTags(ArrayList<NounPhraseSpan> nps)
+	{
+		String[] result = new String[nps.size()];
+		for (int i=0; i<result.length; i++)
+		{
+			nounPhraseText.setLength(0);
+			nps.get(i).appendTags(nounPhraseText);
+			result[i] = nounPhraseText.toString();
+		}
+		return result;
+	}
+	
+	/**
+	 * @param sentence
+	 * @param onset
+	 * @return the word in front of onset, lower cased if it is not the first word of the sentence
+	 */
+	private static String lastWordBefore(String sentence, int onset)
+	{
+		String pronounHolder = sentence.substring(0, onset);
+		if (pronounHolder.indexOf(" ")!=-1)
+		{
+			pronounHolder= pronounHolder.substring(pronounHolder.lastIndexOf(" ")+1).toLowerCase();
+		}
+		return pronounHolder;
+	}
+	
+	/**
+	 * @param sentence
+	 * @param offset
+	 * @return the word after offset, lower cased if it is not the last word of the sentence
+	 */
+	private static String firstWordAfter(String sentence, int offset)
+	{
+		String pronounHolder = sentence.substring(offset);
+		if (pronounHolder.indexOf(" ")!=-1)
+		{
+			pronounHolder = pronounHolder.substring(0, pronounHolder.indexOf(" ")).toLowerCase();
+		}
+		return pronounHolder;
+	}
+	
+	private static boolean isExcludedPronoun(String pronounHolder)
+	{
+	 	for (int f=0; f<allExclusions.length && !pronounHolder.equals(""); f++)
+	 	{
+		 	if(pronounHolder.toLowerCase().equals(allExclusions[f]))
+			{
+				return true;
+			}
+	 	}
+	 	return false;
+	}
+}
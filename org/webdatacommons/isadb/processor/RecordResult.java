@@ -0,0 +1,23 @@
+// http://webdatacommons.org/isadb/
+// The WebIsADb and the API are licensed under a Creative Commons Attribution-Non Commercial-Share Alike 3.0 License: http://creativecommons.org/licenses/by-nc-sa/3.0/.
+// Acknowledgements
+// This work was partially funded by the Deutsche Forschungsgemeinschaft within the JOIN-T project (research grant PO 1900/1-1). Part of the computational resources used for this work were provide by an Amazon AWS in Education Grant award.
+// this software is meant to be part of the CommonCrawl framework: http://commoncrawl.org/ to re-build a new WebIsADb from fresh CommonCrawl dumps.
+
+package org.webdatacommons.isadb.processor;
+
+import java.util.ArrayList;
+
+/**
+ * Everything a worker extracted from one WetRecord, in the order of the sentences and patterns.
+ */
+public class RecordResult {
+
+	public final long sequence;
+	public final ArrayList<PatternOutcome> outcomes = new ArrayList<PatternOutcome>();
+
+	public RecordResult(long sequence)
+	{
+		this.sequence = sequence;
+	}
+}
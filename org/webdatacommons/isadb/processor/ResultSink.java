@@ -0,0 +1,38 @@
+// http://webdatacommons.org/isadb/
+// The WebIsADb and the API are licensed under a Creative Commons Attribution-Non Commercial-Share Alike 3.0 License: http://creativecommons.org/licenses/by-nc-sa/3.0/.
+// Acknowledgements
+// This work was partially funded by the Deutsche Forschungsgemeinschaft within the JOIN-T project (research grant PO 1900/1-1). Part of the computational resources used for this work were provide by an Amazon AWS in Education Grant award.
+// this software is meant to be part of the CommonCrawl framework: http://commoncrawl.org/ to re-build a new WebIsADb from fresh CommonCrawl dumps.
+
+
+package org.webdatacommons.isadb.processor;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Receives the rows of the extraction from the ResultWriter, after the duplicate check and in output order.
+ * Sinks are only used by one thread.
+ */
+public interface ResultSink {
+
+	public void write(ExtractedMatch match) throws IOException;
+
+	/**
+	 * Writes everything buffered and closes the underlying output
+	 * @throws IOException
+	 */
+	public void close() throws IOException;
+
+	/**
+	 * Drops the output instead of completing it, called instead of close() if the extraction failed.
+	 * Objects of a ResultStorage are not stored.
+	 */
+	public void abort();
+
+	/**
+	 * Adds statistics of the output to the statistics of the file, called after close()
+	 * @param dataStats
+	 */
+	public void addStats(Map<String, String> dataStats);
+}
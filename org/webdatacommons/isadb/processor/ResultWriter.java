@@ -0,0 +1,75 @@
+// http://webdatacommons.org/isadb/
+// The WebIsADb and the API are licensed under a Creative Commons Attribution-Non Commercial-Share Alike 3.0 License: http://creativecommons.org/licenses/by-nc-sa/3.0/.
+// Acknowledgements
+// This work was partially funded by the Deutsche Forschungsgemeinschaft within the JOIN-T project (research grant PO 1900/1-1). Part of the computational resources used for this work were provide by an Amazon AWS in Education Grant award.
+// this software is meant to be part of the CommonCrawl framework: http://commoncrawl.org/ to re-build a new WebIsADb from fresh CommonCrawl dumps.
+
+package org.webdatacommons.isadb.processor;
+
+import java.io.IOException;
+
+import org.webdatacommons.isadb.util.DedupStore;
+
+/**
+ * Single writer of the ExtractionPipeline. It receives the RecordResults in input order (or in
+ * completion order, if unordered output is requested), performs the duplicate check and writes the TSV rows.
+ */
+public class ResultWriter {
+
+	private final ResultSink sink;
+	private final DedupStore dedupStore;
+	private final ExtractionStats stats;
+
+	/**
+	 * @param sink receives the rows which pass the duplicate check
+	 * @param dedupStore keys of the sentences written, filled by this writer
+	 * @param patternCount
+	 */
+	public ResultWriter(ResultSink sink, DedupStore dedupStore, int patternCount)
+	{
+		this.sink = sink;
+		this.dedupStore = dedupStore;
+		this.stats = new ExtractionStats(patternCount);
+	}
+
+	public ExtractionStats getStats()
+	{
+		return stats;
+	}
+
+	public void write(RecordResult result) throws IOException
+	{
+		for (PatternOutcome outcome : result.outcomes)
+		{
+			//The first match passing the pronoun check finds the sentence already stored
+			if (outcome.knownDuplicate || dedupStore.contains(outcome.key))
+			{
+				stats.duplicateSentenceExclusions++;
+				continue;
+			}
+			//A new sentence could have been dropped with this probability, if the store is approximate
+			double falsePositive = dedupStore.getFalsePositiveProbability();
+			stats.dedupEstimatedFalseDrops += falsePositive / (1 - falsePositive);
+			stats.pronounFrontExclusions += outcome.pronounFrontExclusions;
+			stats.pronounBackExclusions += outcome.pronounBackExclusions;
+			if (outcome.match==null)
+			{
+				continue;
+			}
+
+			ExtractedMatch match = outcome.match;
+			sink.write(match);
+			dedupStore.add(outcome.key);
+
+			stats.matchesTotal++;
+			stats.tuplesTotal += match.getTupleCount();
+			stats.patternMatches[match.patternIndex]++;
+			stats.patternDurations[match.patternIndex] += match.matchingTime;
+			stats.matchingTime += match.matchingTime;
+			if (outcome.trailingDuplicate)
+			{
+				stats.duplicateSentenceExclusions++;
+			}
+		}
+	}
+}
@@ -0,0 +1,164 @@
+// http://webdatacommons.org/isadb/
+// The WebIsADb and the API are licensed under a Creative Commons Attribution-Non Commercial-Share Alike 3.0 License: http://creativecommons.org/licenses/by-nc-sa/3.0/.
+// Acknowledgements
+// This work was partially funded by the Deutsche Forschungsgemeinschaft within the JOIN-T project (research grant PO 1900/1-1). Part of the computational resources used for this work were provide by an Amazon AWS in Education Grant award.
+// this software is meant to be part of the CommonCrawl framework: http://commoncrawl.org/ to re-build a new WebIsADb from fresh CommonCrawl dumps.
+
+package org.webdatacommons.isadb.processor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Extraction of a file which is split into segments (see MappedWetFile). Each worker thread takes the next segment,
+ * reads its records and processes them with its RecordExtractor, so reading and decoding run in parallel as well.
+ * The calling thread writes the results segment by segment in the order of the file, so the output is the same
+ * as the output of the ExtractionPipeline in ordered mode. The results of segments which are not written yet are
+ * kept in memory; they only hold the matches of the records.
+ */
+public class SegmentedExtraction {
+
+	private static Logger log = Logger.getLogger(SegmentedExtraction.class);
+
+	private static final RecordResult END_OF_SEGMENT = new RecordResult(-1);
+
+	private final List<ExtractionPipeline.RecordSource> segments;
+	private final List<RecordExtractor> extractors;
+	private final ResultWriter writer;
+
+	private final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+	private long recordsTotal = 0;
+
+	/**
+	 * @param segments sources of the segments in the order of the file
+	 * @param extractors one per worker thread
+	 * @param writer
+	 */
+	public SegmentedExtraction(List<ExtractionPipeline.RecordSource> segments, List<RecordExtractor> extractors, ResultWriter writer)
+	{
+		this.segments = segments;
+		this.extractors = extractors;
+		this.writer = writer;
+	}
+
+	public long getRecordsTotal()
+	{
+		return recordsTotal;
+	}
+
+	/**
+	 * Processes all segments. Exceptions of the sources or the writer are thrown after all threads stopped.
+	 * @throws Exception
+	 */
+	public void run() throws Exception
+	{
+		final List<BlockingQueue<RecordResult>> results = new ArrayList<BlockingQueue<RecordResult>>();
+		for (int s=0; s<segments.size(); s++)
+		{
+			results.add(new LinkedBlockingQueue<RecordResult>());
+		}
+		final AtomicInteger nextSegment = new AtomicInteger();
+
+		List<Thread> workers = new ArrayList<Thread>();
+		for (int w=0; w<extractors.size(); w++)
+		{
+			final RecordExtractor extractor = extractors.get(w);
+			workers.add(new Thread(new Runnable() {
+				@Override
+				public void run()
+				{
+					int segment;
+					while ((segment = nextSegment.getAndIncrement())<segments.size() && !Thread.currentThread().isInterrupted())
+					{
+						BlockingQueue<RecordResult> segmentResults = results.get(segment);
+						try
+						{
+							ExtractionPipeline.RecordSource source = segments.get(segment);
+							long sequence = 0;
+							WetRecord record;
+							while ((record = source.next(sequence))!=null)
+							{
+								RecordResult result;
+								try
+								{
+									result = extractor.extract(record);
+								}
+								catch (Throwable t)
+								{
+									failure.compareAndSet(null, t);
+									result = new RecordResult(record.sequence);
+								}
+								segmentResults.add(result);
+								sequence++;
+								if (Thread.currentThread().isInterrupted())
+								{
+									log.debug("Worker interrupted in segment " + segment);
+									break;
+								}
+							}
+						}
+						catch (Throwable t)
+						{
+							failure.compareAndSet(null, t);
+						}
+						finally
+						{
+							segmentResults.add(END_OF_SEGMENT);
+						}
+					}
+				}
+			}, "isadb-segment-worker-"+w));
+		}
+
+		for (Thread worker : workers)
+		{
+			worker.setDaemon(true);
+			worker.start();
+		}
+
+		boolean completed = false;
+		try
+		{
+			for (int s=0; s<segments.size(); s++)
+			{
+				RecordResult result;
+				while ((result = results.get(s).take())!=END_OF_SEGMENT)
+				{
+					writer.write(result);
+					recordsTotal++;
+				}
+			}
+			completed = true;
+		}
+		finally
+		{
+			if (!completed)
+			{
+				for (Thread worker : workers)
+				{
+					worker.interrupt();
+				}
+			}
+			for (Thread worker : workers)
+			{
+				worker.join();
+			}
+		}
+
+		Throwable t = failure.get();
+		if (t instanceof Exception)
+		{
+			throw (Exception) t;
+		}
+		if (t instanceof Error)
+		{
+			throw (Error) t;
+		}
+	}
+}
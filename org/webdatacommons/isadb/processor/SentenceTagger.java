@@ -0,0 +1,233 @@
+// http://webdatacommons.org/isadb/
+// The WebIsADb and the API are licensed under a Creative Commons Attribution-Non Commercial-Share Alike 3.0 License: http://creativecommons.org/licenses/by-nc-sa/3.0/.
+// Acknowledgements
+// This work was partially funded by the Deutsche Forschungsgemeinschaft within the JOIN-T project (research grant PO 1900/1-1). Part of the computational resources used for this work were provide by an Amazon AWS in Education Grant award.
+// this software is meant to be part of the CommonCrawl framework: http://commoncrawl.org/ to re-build a new WebIsADb from fresh CommonCrawl dumps.
+
+package org.webdatacommons.isadb.processor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.webdatacommons.isadb.util.TokenOffsetIndex;
+
+import edu.stanford.nlp.ling.HasWord;
+import edu.stanford.nlp.ling.Sentence;
+import edu.stanford.nlp.ling.TaggedWord;
+import edu.stanford.nlp.tagger.maxent.MaxentTagger;
+
+/**
+ * POS tags of the current sentence, computed on the first match and reused for all further matches of the sentence.
+ * In the full mode the whole sentence is tagged, which gives the same tags as tagging it for every match.
+ * In the window mode only the tokens of the match spans plus a context window on both sides are tagged; tokens outside
+ * of the tagged range get the tag UNTAGGED, which the NP chunker treats like any other non-NP tag.
+ * A sample of the windowed sentences is also tagged completely to measure how many tags differ.
+ */
+public class SentenceTagger {
+
+	public static final String UNTAGGED = "-NONE-";
+
+	private final MaxentTagger tagger;
+	private final boolean windowMode;
+	private final int window;
+	private final int accuracySample;
+	private final ExtractionStats stats;
+
+	private String sentence;
+	private String[] tokens;
+	private int[] tokenStarts;
+	private final TokenOffsetIndex tokenIndex = new TokenOffsetIndex();
+	private String[] tags;
+	//Range of tagged tokens [taggedFrom, taggedTo)
+	private int taggedFrom;
+	private int taggedTo;
+	private long windowedSentences;
+
+	/**
+	 * @param tagger used by this instance only
+	 * @param windowMode true, if only the context of the matches is tagged
+	 * @param window number of tokens tagged on each side of a match
+	 * @param accuracySample every n-th windowed sentence is compared with the full tagging; 0 to disable
+	 * @param stats receives the tagging statistics
+	 */
+	public SentenceTagger(MaxentTagger tagger, boolean windowMode, int window, int accuracySample, ExtractionStats stats)
+	{
+		this.tagger = tagger;
+		this.windowMode = windowMode;
+		this.window = window;
+		this.accuracySample = accuracySample;
+		this.stats = stats;
+	}
+
+	/**
+	 * Sets the sentence of the following calls; the sentence is only tokenized and tagged when tags are requested.
+	 * @param sentence
+	 */
+	public void setSentence(String sentence)
+	{
+		if (this.sentence!=null)
+		{
+			finishSentence();
+		}
+		this.sentence = sentence;
+		this.tokens = null;
+	}
+
+	/**
+	 * Returns the tagged words of the whole sentence for a match between onset and offset. The words are new objects
+	 * for every call, as the NP chunking modifies them.
+	 * @param onset of the match in the sentence
+	 * @param offset of the match in the sentence
+	 * @return one tagged word per blank-separated token of the sentence
+	 */
+	public List<TaggedWord> tagMatch(int onset, int offset)
+	{
+		long start = System.nanoTime();
+		if (tokens==null)
+		{
+			tokenize();
+		}
+		int from = 0;
+		int to = tokens.length;
+		if (windowMode)
+		{
+			from = Math.max(0, tokenAt(onset)-window);
+			to = Math.min(tokens.length, tokenAt(offset)+1+window);
+		}
+		if (taggedFrom<taggedTo && from>=taggedFrom && to<=taggedTo)
+		{
+			stats.tagCacheHits++;
+		}
+		else
+		{
+			//Extend the tagged range to the union of all match windows so far
+			if (taggedFrom<taggedTo)
+			{
+				from = Math.min(from, taggedFrom);
+				to = Math.max(to, taggedTo);
+			}
+			tagRange(from, to, tags);
+			stats.taggerCalls++;
+			stats.taggedTokens += to-from;
+			taggedFrom = from;
+			taggedTo = to;
+		}
+		List<TaggedWord> result = new ArrayList<TaggedWord>(tokens.length);
+		for (int i=0; i<tokens.length; i++)
+		{
+			result.add(new TaggedWord(tokens[i], tags[i]==null ? UNTAGGED : tags[i]));
+		}
+		stats.taggingTime += (System.nanoTime()-start)/1000;
+		return result;
+	}
+
+	/**
+	 * @return the offsets of the tokens of the current sentence; valid after tagMatch() and shared by all its matches
+	 */
+	public TokenOffsetIndex getTokenIndex()
+	{
+		return tokenIndex;
+	}
+
+	private void tokenize()
+	{
+		tokens = sentence.split(" ");
+		tokenStarts = new int[tokens.length];
+		int position = 0;
+		for (int i=0; i<tokens.length; i++)
+		{
+			tokenStarts[i] = position;
+			position += tokens[i].length()+1;
+		}
+		tokenIndex.reset(tokens);
+		tags = new String[tokens.length];
+		taggedFrom = 0;
+		taggedTo = 0;
+	}
+
+	/**
+	 * @param position char offset in the sentence
+	 * @return index of the token containing the position (or the blank behind it)
+	 */
+	private int tokenAt(int position)
+	{
+		int low = 0;
+		int high = tokenStarts.length-1;
+		while (low<high)
+		{
+			int mid = (low+high+1) >>> 1;
+			if (tokenStarts[mid]<=position)
+			{
+				low = mid;
+			}
+			else
+			{
+				high = mid-1;
+			}
+		}
+		return low;
+	}
+
+	private void tagRange(int from, int to, String[] target)
+	{
+		List<HasWord> words = Sentence.toWordList(from==0 && to==tokens.length ? tokens : copyOfRange(tokens, from, to));
+		List<TaggedWord> tagged = tagger.tagSentence(words);
+		for (int i=0; i<tagged.size(); i++)
+		{
+			target[from+i] = tagged.get(i).tag();
+			//Genitive words, still containing a quotation mark next to the s, are tagged as adjectives
+			String word = tagged.get(i).word();
+			if (word.length() < word.replaceAll("(?<=s)[\\u201A\\u201C\\u201D\\u201E\\u201F\\u0022]", "").length() || word.length() < word.replaceAll("[\\u201A\\u201C\\u201D\\u201E\\u201F\\u0022](?=s)", "").length())
+			{
+				target[from+i] = "JJ";
+			}
+		}
+	}
+
+	private static String[] copyOfRange(String[] array, int from, int to)
+	{
+		String[] copy = new String[to-from];
+		System.arraycopy(array, from, copy, 0, to-from);
+		return copy;
+	}
+
+	/**
+	 * Accounts the tokens of the finished sentence and compares a sample of the windowed sentences with the full tagging
+	 */
+	private void finishSentence()
+	{
+		if (tokens==null)
+		{
+			return;
+		}
+		stats.sentenceTokens += tokens.length;
+		if (windowMode && accuracySample>0 && windowedSentences++ % accuracySample == 0)
+		{
+			long start = System.nanoTime();
+			String[] fullTags = new String[tokens.length];
+			tagRange(0, tokens.length, fullTags);
+			for (int i=taggedFrom; i<taggedTo; i++)
+			{
+				stats.tagSampleTokens++;
+				if (!fullTags[i].equals(tags[i]))
+				{
+					stats.tagSampleMismatches++;
+				}
+			}
+			stats.tagSampleTime += (System.nanoTime()-start)/1000;
+		}
+		tokens = null;
+	}
+
+	/**
+	 * Finishes the statistics of the last sentence; called at the end of a record
+	 */
+	public void finish()
+	{
+		if (sentence!=null)
+		{
+			finishSentence();
+			sentence = null;
+		}
+	}
+}
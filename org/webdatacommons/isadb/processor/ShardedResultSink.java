@@ -0,0 +1,276 @@
+// http://webdatacommons.org/isadb/
+// The WebIsADb and the API are licensed under a Creative Commons Attribution-Non Commercial-Share Alike 3.0 License: http://creativecommons.org/licenses/by-nc-sa/3.0/.
+// Acknowledgements
+// This work was partially funded by the Deutsche Forschungsgemeinschaft within the JOIN-T project (research grant PO 1900/1-1). Part of the computational resources used for this work were provide by an Amazon AWS in Education Grant award.
+// this software is meant to be part of the CommonCrawl framework: http://commoncrawl.org/ to re-build a new WebIsADb from fresh CommonCrawl dumps.
+
+
+package org.webdatacommons.isadb.processor;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Locale;
+import java.util.Map;
+
+import org.webdatacommons.isadb.util.ExternalSorter;
+import org.webdatacommons.isadb.util.ParallelGzipOutputStream;
+import org.webdatacommons.isadb.util.ResultStorage;
+import org.webdatacommons.isadb.util.Utf8Buffer;
+
+/**
+ * Output for the aggregation of many files (isadb.outputFormat=sharded): every instance-class tuple of a match becomes
+ * a row, the rows are hash-partitioned into a fixed number of shard files and every shard is sorted. The partition only
+ * depends on the normalized key, so shard i of all input files holds the same keys and can be combined with a
+ * streaming k-way merge (e.g. LC_ALL=C sort -m) instead of a global shuffle.
+ *
+ * The rows are UTF-8 lines without header, sorted in byte order:
+ * InstanceKey ClassKey Instance InstTag Class ClassTag PID PLD Sentence  (key=pair, partitioned by both keys)
+ * ClassKey InstanceKey Instance InstTag Class ClassTag PID PLD Sentence  (key=class, partitioned by the class key)
+ * The keys are the lower cased noun phrases with collapsed whitespace. The rows are sorted by an external sort:
+ * if the rows in memory exceed the memory budget, they are spilled as sorted runs and merged by close().
+ */
+public class ShardedResultSink implements ResultSink {
+
+	private final ResultStorage storage;
+	private final String prefix;
+	private final boolean classKey;
+	private final long memoryBudget;
+	private final int threads;
+	private final int level;
+	private final ExternalSorter[] sorters;
+	private final Utf8Buffer row = new Utf8Buffer(1024);
+	private long memoryUsage = 0;
+	private long tuples = 0;
+	private int spills = 0;
+
+	/**
+	 * @param storage receives the shard files
+	 * @param prefix the shards are stored as prefix.000.gz, prefix.001.gz, ... (see getShardKey)
+	 * @param shards number of shard files
+	 * @param classKey true to partition by the class key, false by the instance and class key
+	 * @param memoryBudget number of bytes the rows may use in memory before they are spilled
+	 * @param threads threads compressing a shard file
+	 * @param level compression level, -1 for the default level
+	 */
+	public ShardedResultSink(ResultStorage storage, String prefix, int shards, boolean classKey, long memoryBudget, int threads, int level)
+	{
+		this.storage = storage;
+		this.prefix = prefix;
+		this.classKey = classKey;
+		this.memoryBudget = memoryBudget;
+		this.threads = threads;
+		this.level = level;
+		this.sorters = new ExternalSorter[Math.max(shards, 1)];
+		for (int i=0; i<sorters.length; i++)
+		{
+			sorters[i] = new ExternalSorter(null);
+		}
+	}
+
+	public int getShardCount()
+	{
+		return sorters.length;
+	}
+
+	public String getShardKey(int shard)
+	{
+		return prefix + getShardSuffix(shard, sorters.length);
+	}
+
+	/**
+	 * @param shard
+	 * @param shards
+	 * @return the name suffix of a shard file, e.g. .007.gz
+	 */
+	public static String getShardSuffix(int shard, int shards)
+	{
+		int digits = Math.max(3, Integer.toString(shards - 1).length());
+		return String.format("." + "%0" + digits + "d.gz", shard);
+	}
+
+	/**
+	 * @param nounPhrase
+	 * @return the lower cased noun phrase, whitespace and control characters are collapsed to one blank
+	 */
+	public static String normalizeKey(String nounPhrase)
+	{
+		if (nounPhrase==null)
+		{
+			return "";
+		}
+		StringBuilder key = new StringBuilder(nounPhrase.length());
+		boolean blank = false;
+		for (int i=0; i<nounPhrase.length(); i++)
+		{
+			char c = nounPhrase.charAt(i);
+			if (c<=' ' || Character.isWhitespace(c))
+			{
+				blank = key.length()>0;
+				continue;
+			}
+			if (blank)
+			{
+				key.append(' ');
+				blank = false;
+			}
+			key.append(c);
+		}
+		return key.toString().toLowerCase(Locale.ROOT);
+	}
+
+	/**
+	 * @param instanceKey
+	 * @param classKey
+	 * @param classPartition true, if the shards are partitioned by the class key only
+	 * @param shards
+	 * @return the shard of a tuple; the same for every file and JVM
+	 */
+	public static int getShard(String instanceKey, String classKey, boolean classPartition, int shards)
+	{
+		int hash = classPartition ? classKey.hashCode() : 31 * instanceKey.hashCode() + classKey.hashCode();
+		//Spread the bits, String hashes of similar keys differ only in the low bits
+		hash ^= (hash >>> 16);
+		hash *= 0x85ebca6b;
+		hash ^= (hash >>> 13);
+		return (hash & 0x7fffffff) % shards;
+	}
+
+	@Override
+	public void write(ExtractedMatch match) throws IOException
+	{
+		for (int c=0; c<match.classes.length; c++)
+		{
+			String classNormalized = normalizeKey(match.classes[c]);
+			for (int i=0; i<match.instances.length; i++)
+			{
+				String instanceNormalized = normalizeKey(match.instances[i]);
+				row.clear();
+				if (classKey)
+				{
+					row.append(classNormalized).append('\t').append(instanceNormalized);
+				}
+				else
+				{
+					row.append(instanceNormalized).append('\t').append(classNormalized);
+				}
+				row.append('\t').append(match.instances[i])
+					.append('\t').append(i<match.instanceTags.length ? match.instanceTags[i] : "")
+					.append('\t').append(match.classes[c])
+					.append('\t').append(c<match.classTags.length ? match.classTags[c] : "")
+					.append('\t').append(match.pid)
+					.append('\t').append(match.pld)
+					.append('\t');
+				TsvResultSink.appendSentence(row, match.sentence);
+				ExternalSorter sorter = sorters[getShard(instanceNormalized, classNormalized, classKey, sorters.length)];
+				long before = sorter.getMemoryUsage();
+				sorter.add(Arrays.copyOf(row.getData(), row.length()));
+				memoryUsage += sorter.getMemoryUsage() - before;
+				tuples++;
+			}
+		}
+		if (memoryUsage>memoryBudget)
+		{
+			spill();
+		}
+	}
+
+	/**
+	 * Sorts and writes all shards. If a shard cannot be stored, the shards stored before are deleted, so a file has
+	 * either all of its shards or none.
+	 */
+	@Override
+	public void close() throws IOException
+	{
+		int shard = 0;
+		try
+		{
+			for (; shard<sorters.length; shard++)
+			{
+				ParallelGzipOutputStream out = new ParallelGzipOutputStream(storage.create(getShardKey(shard)), threads, 1 << 20, level);
+				try
+				{
+					sorters[shard].writeSorted(out, (byte) '\n');
+				}
+				catch (IOException | RuntimeException e)
+				{
+					out.abort();
+					throw e;
+				}
+				out.close();
+			}
+		}
+		catch (IOException | RuntimeException e)
+		{
+			//The shards stored before the failure are deleted; the stream of the failed shard was aborted, so its delete finds nothing
+			for (int stored=0; stored<=shard && stored<sorters.length; stored++)
+			{
+				try
+				{
+					storage.delete(getShardKey(stored));
+				}
+				catch (IOException deleteError)
+				{
+					e.addSuppressed(deleteError);
+				}
+			}
+			throw e;
+		}
+		finally
+		{
+			for (ExternalSorter sorter : sorters)
+			{
+				sorter.delete();
+			}
+			memoryUsage = 0;
+		}
+	}
+
+	/**
+	 * Drops the rows, no shard is stored
+	 */
+	@Override
+	public void abort()
+	{
+		for (ExternalSorter sorter : sorters)
+		{
+			sorter.delete();
+		}
+		memoryUsage = 0;
+	}
+
+	@Override
+	public void addStats(Map<String, String> dataStats)
+	{
+		dataStats.put("outputShards", Integer.toString(sorters.length));
+		dataStats.put("outputTuples", Long.toString(tuples));
+		dataStats.put("sortSpills", Integer.toString(spills));
+	}
+
+	/**
+	 * Spills the largest shards until the rows in memory use at most half of the budget; the small shards stay in
+	 * memory and do not produce tiny runs.
+	 */
+	private void spill() throws IOException
+	{
+		ExternalSorter[] bySize = sorters.clone();
+		Arrays.sort(bySize, new Comparator<ExternalSorter>() {
+			@Override
+			public int compare(ExternalSorter a, ExternalSorter b)
+			{
+				return Long.compare(b.getMemoryUsage(), a.getMemoryUsage());
+			}
+		});
+		for (ExternalSorter sorter : bySize)
+		{
+			if (memoryUsage<=memoryBudget / 2)
+			{
+				break;
+			}
+			long before = sorter.getMemoryUsage();
+			sorter.spill();
+			memoryUsage -= before - sorter.getMemoryUsage();
+		}
+		spills++;
+	}
+}
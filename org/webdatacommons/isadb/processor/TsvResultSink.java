@@ -0,0 +1,130 @@
+// http://webdatacommons.org/isadb/
+// The WebIsADb and the API are licensed under a Creative Commons Attribution-Non Commercial-Share Alike 3.0 License: http://creativecommons.org/licenses/by-nc-sa/3.0/.
+// Acknowledgements
+// This work was partially funded by the Deutsche Forschungsgemeinschaft within the JOIN-T project (research grant PO 1900/1-1). Part of the computational resources used for this work were provide by an Amazon AWS in Education Grant award.
+// this software is meant to be part of the CommonCrawl framework: http://commoncrawl.org/ to re-build a new WebIsADb from fresh CommonCrawl dumps.
+
+
+package org.webdatacommons.isadb.processor;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Map;
+
+import org.webdatacommons.isadb.util.ParallelGzipOutputStream;
+import org.webdatacommons.isadb.util.StorageOutputStream;
+import org.webdatacommons.isadb.util.Utf8Buffer;
+
+/**
+ * Writes the rows as UTF-8 encoded TSV lines to an OutputStream, e.g. a ParallelGzipOutputStream. The rows are
+ * encoded straight into a byte buffer, the bytes are the same as the bytes of ExtractedMatch.appendTsv written
+ * by a UTF-8 BufferedWriter. The header is written by the constructor.
+ */
+public class TsvResultSink implements ResultSink {
+
+	private static final int FLUSH_SIZE = 1 << 16;
+
+	private final OutputStream out;
+	private final Utf8Buffer buffer = new Utf8Buffer(2 * FLUSH_SIZE);
+	private final byte[] lineSeparator;
+
+	public TsvResultSink(OutputStream out) throws IOException
+	{
+		this.out = out;
+		this.lineSeparator = System.getProperty("line.separator").getBytes("UTF-8");
+		buffer.append(ExtractedMatch.TSV_HEADER).append(lineSeparator);
+	}
+
+	@Override
+	public void write(ExtractedMatch match) throws IOException
+	{
+		buffer.append(match.pid).append('\t');
+		appendSentence(buffer, match.sentence);
+		buffer.append('\t');
+		appendList(match.instances).append('\t');
+		appendList(match.instanceTags).append('\t');
+		appendList(match.classes).append('\t');
+		appendList(match.classTags).append('\t');
+		buffer.append(match.onset).append('\t')
+			.append(match.offset).append('\t')
+			.append(match.pld).append('\t')
+			.append(match.matchingTime)
+			.append(lineSeparator);
+		if (buffer.length()>=FLUSH_SIZE)
+		{
+			buffer.writeTo(out);
+			buffer.clear();
+		}
+	}
+
+	@Override
+	public void close() throws IOException
+	{
+		try
+		{
+			buffer.writeTo(out);
+			buffer.clear();
+		}
+		catch (IOException | RuntimeException e)
+		{
+			abort();
+			throw e;
+		}
+		out.close();
+	}
+
+	@Override
+	public void abort()
+	{
+		StorageOutputStream.abort(out);
+	}
+
+	@Override
+	public void addStats(Map<String, String> dataStats)
+	{
+		addStreamStats(dataStats, out);
+	}
+
+	/**
+	 * Adds the statistics of the compression, if out is a ParallelGzipOutputStream
+	 * @param dataStats
+	 * @param out
+	 */
+	static void addStreamStats(Map<String, String> dataStats, OutputStream out)
+	{
+		if (out instanceof ParallelGzipOutputStream)
+		{
+			ParallelGzipOutputStream output = (ParallelGzipOutputStream) out;
+			dataStats.put("outputThreads", Integer.toString(output.getThreads()));
+			dataStats.put("outputBlocks", Long.toString(output.getBlocks()));
+			dataStats.put("outputCompressedBytes", Long.toString(output.getCompressedBytes()));
+			dataStats.put("outputWaitTime", Long.toString(output.getWaitTime()));
+		}
+	}
+
+	/**
+	 * Appends sentence.replace("\\t", " ")
+	 */
+	static void appendSentence(Utf8Buffer buffer, String sentence)
+	{
+		int from = 0;
+		int escapedTab;
+		while ((escapedTab = sentence.indexOf("\\t", from))!=-1)
+		{
+			buffer.append(sentence, from, escapedTab).append(' ');
+			from = escapedTab + 2;
+		}
+		buffer.append(sentence, from, sentence.length());
+	}
+
+	private Utf8Buffer appendList(String[] list)
+	{
+		buffer.append('{');
+		for (int i=0; i<list.length; i++)
+		{
+			if (i>0) buffer.append('|');
+			buffer.append(list[i]);
+		}
+		return buffer.append('}');
+	}
+}
@@ -0,0 +1,70 @@
+// http://webdatacommons.org/isadb/
+// The WebIsADb and the API are licensed under a Creative Commons Attribution-Non Commercial-Share Alike 3.0 License: http://creativecommons.org/licenses/by-nc-sa/3.0/.
+// Acknowledgements
+// This work was partially funded by the Deutsche Forschungsgemeinschaft within the JOIN-T project (research grant PO 1900/1-1). Part of the computational resources used for this work were provide by an Amazon AWS in Education Grant award.
+// this software is meant to be part of the CommonCrawl framework: http://commoncrawl.org/ to re-build a new WebIsADb from fresh CommonCrawl dumps.
+
+package org.webdatacommons.isadb.processor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+
+import org.archive.io.ArchiveRecord;
+import org.archive.io.warc.WARCReader;
+import org.archive.io.warc.WARCRecord;
+
+/**
+ * Reads the records of a WARCReader. The content of a record is read as bytes; the LinePrecheck
+ * splits it into lines and decodes only the lines which can contain a pattern.
+ */
+public class WarcRecordSource implements ExtractionPipeline.RecordSource {
+
+	private final Iterator<ArchiveRecord> readerIt;
+	private final LinePrecheck linePrecheck;
+	private byte[] buffer = new byte[1 << 16];
+
+	/**
+	 * @param reader
+	 * @param linePrecheck created for the charset the content is decoded with
+	 */
+	public WarcRecordSource(WARCReader reader, LinePrecheck linePrecheck)
+	{
+		this.readerIt = reader.iterator();
+		this.linePrecheck = linePrecheck;
+	}
+
+	@Override
+	public WetRecord next(long sequence) throws Exception
+	{
+		if (!readerIt.hasNext())
+		{
+			return null;
+		}
+		WARCRecord record = (WARCRecord) readerIt.next();
+		WetRecord wetRecord = new WetRecord(sequence, record.getHeader().getUrl(), new ArrayList<String>());
+		int length = 0;
+		try
+		{
+			int n;
+			while ((n = record.read(buffer, length, buffer.length-length))!=-1)
+			{
+				length += n;
+				if (length==buffer.length)
+				{
+					buffer = Arrays.copyOf(buffer, buffer.length*2);
+				}
+			}
+		}
+		catch (Exception e)
+		{
+			wetRecord.readError = e;
+		}
+		finally
+		{
+			record.close();
+		}
+		linePrecheck.addLines(buffer, 0, length, wetRecord.lines);
+		return wetRecord;
+	}
+}
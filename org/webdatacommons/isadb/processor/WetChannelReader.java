@@ -0,0 +1,248 @@
+// http://webdatacommons.org/isadb/
+// The WebIsADb and the API are licensed under a Creative Commons Attribution-Non Commercial-Share Alike 3.0 License: http://creativecommons.org/licenses/by-nc-sa/3.0/.
+// Acknowledgements
+// This work was partially funded by the Deutsche Forschungsgemeinschaft within the JOIN-T project (research grant PO 1900/1-1). Part of the computational resources used for this work were provide by an Amazon AWS in Education Grant award.
+// this software is meant to be part of the CommonCrawl framework: http://commoncrawl.org/ to re-build a new WebIsADb from fresh CommonCrawl dumps.
+
+package org.webdatacommons.isadb.processor;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+
+import org.webdatacommons.isadb.util.GzipMemberInflater;
+
+/**
+ * Reads the records of a WET file directly from the channel, without the WARCReader and its stream chain.
+ * The records are inflated into one buffer in which the WARC headers are parsed in place. Only the lines which pass
+ * the LinePrecheck are decoded to Strings; the other lines are dropped as bytes.
+ * The content is decoded as UTF-8, the charset of the WET files.
+ */
+public class WetChannelReader implements ExtractionPipeline.RecordSource {
+
+	public static final Charset UTF8 = Charset.forName("UTF-8");
+	private static final byte[] WARC_VERSION = "WARC/".getBytes(UTF8);
+	private static final byte[] TARGET_URI = "WARC-Target-URI".getBytes(UTF8);
+	private static final byte[] CONTENT_LENGTH = "Content-Length".getBytes(UTF8);
+	private static final int MAX_BUFFER = Integer.MAX_VALUE - 8;
+
+	private final ReadableByteChannel channel;
+	private final GzipMemberInflater inflater;
+	private final LinePrecheck linePrecheck;
+
+	//Inflated data, valid in buffer[pos, limit)
+	private byte[] buffer;
+	private int pos = 0;
+	private int limit = 0;
+	private long bytesRead = 0;
+
+	/**
+	 * @param channel WET file
+	 * @param gzip true, if the channel contains the gzipped file (.warc.wet.gz), false for the uncompressed file
+	 * @param linePrecheck splits and decodes the content; created for UTF-8
+	 * @param bufferSize initial size of the buffers for the compressed and the inflated data; the latter grows to the largest record
+	 */
+	public WetChannelReader(ReadableByteChannel channel, boolean gzip, LinePrecheck linePrecheck, int bufferSize)
+	{
+		this.channel = channel;
+		this.inflater = gzip ? new GzipMemberInflater(channel, bufferSize) : null;
+		this.linePrecheck = linePrecheck;
+		this.buffer = new byte[Math.max(bufferSize, 1024)];
+	}
+
+	@Override
+	public WetRecord next(long sequence) throws Exception
+	{
+		//Records are separated by empty lines
+		while (true)
+		{
+			if (pos==limit && !fill())
+			{
+				if (inflater!=null)
+				{
+					inflater.close();
+				}
+				return null;
+			}
+			if (buffer[pos]!='\r' && buffer[pos]!='\n') break;
+			pos++;
+		}
+
+		//Header, parsed in place
+		int lineEnd = findLineEnd();
+		if (lineEnd<0)
+		{
+			throw new EOFException("Truncated WARC header");
+		}
+		if (!startsWith(pos, lineEnd, WARC_VERSION))
+		{
+			throw new IOException("No WARC record at offset " + (bytesRead - (limit - pos)) + " of the uncompressed data");
+		}
+		pos = lineEnd + 1;
+		String url = null;
+		long contentLength = -1;
+		while (true)
+		{
+			lineEnd = findLineEnd();
+			if (lineEnd<0)
+			{
+				throw new EOFException("Truncated WARC header");
+			}
+			int valueEnd = lineEnd>pos && buffer[lineEnd-1]=='\r' ? lineEnd-1 : lineEnd;
+			if (valueEnd==pos)
+			{
+				pos = lineEnd + 1;
+				break;
+			}
+			int colon = indexOf((byte) ':', pos, valueEnd);
+			if (colon>0 && equalsIgnoreCase(pos, colon, TARGET_URI))
+			{
+				url = new String(buffer, colon+1, valueEnd-colon-1, UTF8).trim();
+			}
+			else if (colon>0 && equalsIgnoreCase(pos, colon, CONTENT_LENGTH))
+			{
+				String value = new String(buffer, colon+1, valueEnd-colon-1, UTF8).trim();
+				try
+				{
+					contentLength = Long.parseLong(value);
+				}
+				catch (NumberFormatException e)
+				{
+					throw new IOException("Invalid Content-Length " + value + " of record " + url);
+				}
+			}
+			pos = lineEnd + 1;
+		}
+		if (contentLength<0 || contentLength>MAX_BUFFER)
+		{
+			throw new IOException("Missing or unsupported Content-Length " + contentLength + " of record " + url);
+		}
+
+		//Content
+		boolean complete = ensure((int) contentLength);
+		int contentEnd = complete ? pos + (int) contentLength : limit;
+		WetRecord record = new WetRecord(sequence, url, new ArrayList<String>());
+		linePrecheck.addLines(buffer, pos, contentEnd, record.lines);
+		pos = contentEnd;
+		if (!complete)
+		{
+			record.readError = new EOFException("Truncated content of record " + url);
+		}
+		return record;
+	}
+
+	/**
+	 * @return number of uncompressed bytes read so far
+	 */
+	public long getBytesRead()
+	{
+		return bytesRead;
+	}
+
+	/**
+	 * @return the inflater of the gzipped input, null for uncompressed input
+	 */
+	public GzipMemberInflater getInflater()
+	{
+		return inflater;
+	}
+
+	/**
+	 * @return index of the next \n at or behind pos, -1 if the data ends before
+	 */
+	private int findLineEnd() throws IOException
+	{
+		int scanned = 0;
+		while (true)
+		{
+			for (int i=pos+scanned; i<limit; i++)
+			{
+				if (buffer[i]=='\n') return i;
+			}
+			scanned = limit - pos;
+			if (!fill()) return -1;
+		}
+	}
+
+	private boolean ensure(int n) throws IOException
+	{
+		while (limit-pos<n)
+		{
+			if (!fill()) return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Inflates more data behind limit. The unread data is moved to the start of the buffer, so indices into the buffer change.
+	 * @return false at the end of the input
+	 */
+	private boolean fill() throws IOException
+	{
+		if (pos>0)
+		{
+			System.arraycopy(buffer, pos, buffer, 0, limit-pos);
+			limit -= pos;
+			pos = 0;
+		}
+		if (limit==buffer.length)
+		{
+			if (buffer.length==MAX_BUFFER)
+			{
+				throw new IOException("WARC record too large");
+			}
+			byte[] larger = new byte[(int) Math.min(buffer.length * 2L, MAX_BUFFER)];
+			System.arraycopy(buffer, 0, larger, 0, limit);
+			buffer = larger;
+		}
+		int n;
+		if (inflater!=null)
+		{
+			n = inflater.read(buffer, limit, buffer.length-limit);
+		}
+		else
+		{
+			ByteBuffer target = ByteBuffer.wrap(buffer, limit, buffer.length-limit);
+			while ((n = channel.read(target))==0);
+		}
+		if (n<0)
+		{
+			return false;
+		}
+		limit += n;
+		bytesRead += n;
+		return true;
+	}
+
+	private int indexOf(byte b, int from, int to)
+	{
+		for (int i=from; i<to; i++)
+		{
+			if (buffer[i]==b) return i;
+		}
+		return -1;
+	}
+
+	private boolean startsWith(int from, int to, byte[] prefix)
+	{
+		if (to-from<prefix.length) return false;
+		for (int i=0; i<prefix.length; i++)
+		{
+			if (buffer[from+i]!=prefix[i]) return false;
+		}
+		return true;
+	}
+
+	private boolean equalsIgnoreCase(int from, int to, byte[] name)
+	{
+		if (to-from!=name.length) return false;
+		for (int i=0; i<name.length; i++)
+		{
+			if (Character.toLowerCase((char) buffer[from+i])!=Character.toLowerCase((char) name[i])) return false;
+		}
+		return true;
+	}
+}
@@ -0,0 +1,29 @@
+// http://webdatacommons.org/isadb/
+// The WebIsADb and the API are licensed under a Creative Commons Attribution-Non Commercial-Share Alike 3.0 License: http://creativecommons.org/licenses/by-nc-sa/3.0/.
+// Acknowledgements
+// This work was partially funded by the Deutsche Forschungsgemeinschaft within the JOIN-T project (research grant PO 1900/1-1). Part of the computational resources used for this work were provide by an Amazon AWS in Education Grant award.
+// this software is meant to be part of the CommonCrawl framework: http://commoncrawl.org/ to re-build a new WebIsADb from fresh CommonCrawl dumps.
+
+package org.webdatacommons.isadb.processor;
+
+import java.util.List;
+
+/**
+ * The decoded content of one WET record, handed from the reader thread to the workers.
+ */
+public class WetRecord {
+
+	/** Position of the record inside the input file, starting with 0 */
+	public final long sequence;
+	public final String url;
+	public final List<String> lines;
+	/** Set, if the record could only be read partially; the lines read before the error are processed */
+	public Exception readError;
+
+	public WetRecord(long sequence, String url, List<String> lines)
+	{
+		this.sequence = sequence;
+		this.url = url;
+		this.lines = lines;
+	}
+}
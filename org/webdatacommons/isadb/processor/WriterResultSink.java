@@ -0,0 +1,62 @@
+// http://webdatacommons.org/isadb/
+// The WebIsADb and the API are licensed under a Creative Commons Attribution-Non Commercial-Share Alike 3.0 License: http://creativecommons.org/licenses/by-nc-sa/3.0/.
+// Acknowledgements
+// This work was partially funded by the Deutsche Forschungsgemeinschaft within the JOIN-T project (research grant PO 1900/1-1). Part of the computational resources used for this work were provide by an Amazon AWS in Education Grant award.
+// this software is meant to be part of the CommonCrawl framework: http://commoncrawl.org/ to re-build a new WebIsADb from fresh CommonCrawl dumps.
+
+
+package org.webdatacommons.isadb.processor;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Writes the rows as TSV lines to a BufferedWriter, the header has to be written already.
+ */
+public class WriterResultSink implements ResultSink {
+
+	private final BufferedWriter bw;
+	private final StringBuilder resultLine = new StringBuilder();
+
+	public WriterResultSink(BufferedWriter bw)
+	{
+		this.bw = bw;
+	}
+
+	@Override
+	public void write(ExtractedMatch match) throws IOException
+	{
+		resultLine.setLength(0);
+		match.appendTsv(resultLine);
+		bw.write(resultLine.toString());
+		bw.newLine();
+	}
+
+	@Override
+	public void close() throws IOException
+	{
+		bw.close();
+	}
+
+	/**
+	 * Only closes the writer, a BufferedWriter cannot drop what it received
+	 */
+	@Override
+	public void abort()
+	{
+		try
+		{
+			bw.close();
+		}
+		catch (IOException e)
+		{
+			//nothing to keep anyway
+		}
+	}
+
+	@Override
+	public void addStats(Map<String, String> dataStats)
+	{
+	}
+}
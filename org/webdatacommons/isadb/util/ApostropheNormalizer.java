@@ -0,0 +1,253 @@
+// http://webdatacommons.org/isadb/
+// The WebIsADb and the API are licensed under a Creative Commons Attribution-Non Commercial-Share Alike 3.0 License: http://creativecommons.org/licenses/by-nc-sa/3.0/.
+// Acknowledgements
+// This work was partially funded by the Deutsche Forschungsgemeinschaft within the JOIN-T project (research grant PO 1900/1-1). Part of the computational resources used for this work were provide by an Amazon AWS in Education Grant award.
+// this software is meant to be part of the CommonCrawl framework: http://commoncrawl.org/ to re-build a new WebIsADb from fresh CommonCrawl dumps.
+
+package org.webdatacommons.isadb.util;
+
+/**
+ * Replaces the contractions of auxiliary verbs and negations (he's, don't, 'll, ...) with their long form and removes
+ * double quotation marks, which are not part of a genitive, in one pass over the sentence.
+ * The result is the same as applying the contraction regexes one after the other and stripping the quotation marks
+ * with (?<!s)[quotes](?!s) afterwards: for every apostrophe the first contraction (in the order of the table) which
+ * matches is used, and the prefixes in front of the apostrophe are found with a trie over the reversed prefixes.
+ */
+public class ApostropheNormalizer {
+
+	private static final String APOSTROPHES = "‘’‛'";
+	private static final String QUOTES = "‚“”„‟\"";
+
+	//Text in front of the apostrophe, text behind it (followed by a whitespace) and replacement; the order decides between overlapping entries
+	private static final String[][] CONTRACTIONS = {
+		//Auxiliary Verb abbreviations
+		{"", "d", " would "},
+		{"", "re", " are "},
+		{"", "ve", " have "},
+		{"", "ll", " will "},
+		{"i", "m", "I am "},
+		//Auxiliary Verb 's
+		{"he", "s", "he is "},
+		{"she", "s", "she is "},
+		{"it", "s", "it is "},
+		{"that", "s", "he is "},
+		{"where", "s", "she is "},
+		{"who", "s", "it is "},
+		{"what", "s", "what is "},
+		{"when", "s", "when is "},
+		{"why", "s", "why is "},
+		{"how", "s", "how is "},
+		{"here", "s", "here is "},
+		{"there", "s", "there is "},
+		//Negations
+		{"isn", "t", "is not "},
+		{"aren", "t", "are not "},
+		{"don", "t", "do not "},
+		{"doesn", "t", "does not "},
+		{"can", "t", "can not "},
+		{"couldn", "t", "could not "},
+		{"shouldn", "t", "should not "},
+		{"won", "t", " will not "},
+		{"wouldn", "t", "would not "},
+		{"haven", "t", "have not "}};
+
+	//Trie over the reversed prefixes; each node holds the bits of the contractions whose prefix ends in it
+	private static final int[] children;
+	private static final long[] contractionBits;
+
+	static
+	{
+		int maxNodes = 1;
+		for (String[] contraction : CONTRACTIONS)
+		{
+			maxNodes += contraction[0].length();
+		}
+		children = new int[maxNodes*26];
+		contractionBits = new long[maxNodes];
+		int nodes = 1;
+		for (int k=0; k<CONTRACTIONS.length; k++)
+		{
+			String prefix = CONTRACTIONS[k][0];
+			int node = 0;
+			for (int i=prefix.length()-1; i>=0; i--)
+			{
+				int index = node*26 + prefix.charAt(i)-'a';
+				if (children[index]==0)
+				{
+					children[index] = nodes++;
+				}
+				node = children[index];
+			}
+			contractionBits[node] |= 1L << k;
+		}
+	}
+
+	/**
+	 * @param sentence
+	 * @param stripQuotes true, if double quotation marks are removed as well (unless they are next to an s)
+	 * @return the normalized sentence; the sentence itself if nothing was changed
+	 */
+	public static String normalize(String sentence, boolean stripQuotes)
+	{
+		int n = sentence.length();
+		int apostropheCount = 0;
+		boolean hasQuote = false;
+		for (int i=0; i<n; i++)
+		{
+			char c = sentence.charAt(i);
+			if (APOSTROPHES.indexOf(c)!=-1)
+			{
+				apostropheCount++;
+			}
+			else if (QUOTES.indexOf(c)!=-1)
+			{
+				hasQuote = true;
+			}
+		}
+		if (apostropheCount==0 && !(stripQuotes && hasQuote))
+		{
+			return sentence;
+		}
+
+		int[] apostrophes = new int[apostropheCount];
+		for (int i=0, j=0; j<apostropheCount; i++)
+		{
+			if (APOSTROPHES.indexOf(sentence.charAt(i))!=-1) apostrophes[j++] = i;
+		}
+
+		//Decide from right to left, as a replacement starting with a blank can provide the whitespace of the contraction in front of it
+		int[] replaced = new int[apostropheCount];
+		int[] replacedFrom = new int[apostropheCount];
+		int[] replacedTo = new int[apostropheCount];
+		boolean[] takesBlank = new boolean[apostropheCount];
+		for (int j=apostropheCount-1; j>=0; j--)
+		{
+			replaced[j] = -1;
+			int apostrophe = apostrophes[j];
+			long candidates = contractionBits[0];
+			int node = 0;
+			for (int i=apostrophe-1; i>=0; i--)
+			{
+				int letter = lowerCase(sentence.charAt(i))-'a';
+				if (letter<0 || letter>=26) break;
+				node = children[node*26 + letter];
+				if (node==0) break;
+				candidates |= contractionBits[node];
+			}
+			for (int k=0; candidates!=0 && k<CONTRACTIONS.length; k++, candidates>>>=1)
+			{
+				if ((candidates & 1)==0) continue;
+				String suffix = CONTRACTIONS[k][1];
+				int end = apostrophe+1+suffix.length();
+				if (end>n || !matchesIgnoreCase(sentence, apostrophe+1, suffix)) continue;
+				if (end<n && isWhitespace(sentence.charAt(end)))
+				{
+					replacedTo[j] = end+1;
+				}
+				else if (j+1<apostropheCount && replaced[j+1]!=-1 && replaced[j+1]<k && replacedFrom[j+1]==end && CONTRACTIONS[replaced[j+1]][2].charAt(0)==' ')
+				{
+					replacedTo[j] = end;
+					takesBlank[j] = true;
+				}
+				else
+				{
+					continue;
+				}
+				replaced[j] = k;
+				replacedFrom[j] = apostrophe-CONTRACTIONS[k][0].length();
+				break;
+			}
+		}
+
+		QuoteFilter out = new QuoteFilter(n+16, stripQuotes);
+		int copied = 0;
+		boolean skipBlank = false;
+		for (int j=0; j<apostropheCount; j++)
+		{
+			if (replaced[j]==-1) continue;
+			out.append(sentence, copied, replacedFrom[j]);
+			String replacement = CONTRACTIONS[replaced[j]][2];
+			out.append(replacement, skipBlank ? 1 : 0, replacement.length());
+			skipBlank = takesBlank[j];
+			copied = replacedTo[j];
+		}
+		out.append(sentence, copied, n);
+		return out.toString();
+	}
+
+	private static char lowerCase(char c)
+	{
+		return c>='A' && c<='Z' ? (char) (c+32) : c;
+	}
+
+	//Case-insensitive for ASCII letters only, like (?i) without UNICODE_CASE
+	private static boolean matchesIgnoreCase(String text, int start, String lowerCaseWord)
+	{
+		for (int i=0; i<lowerCaseWord.length(); i++)
+		{
+			if (lowerCase(text.charAt(start+i))!=lowerCaseWord.charAt(i)) return false;
+		}
+		return true;
+	}
+
+	//Whitespace as matched by \s
+	private static boolean isWhitespace(char c)
+	{
+		return c==' ' || c=='\t' || c=='\n' || c=='\u000B' || c=='\f' || c=='\r';
+	}
+
+	/**
+	 * Output buffer which drops double quotation marks unless the character in front of or behind them is an s.
+	 * A quotation mark is held back until the following character is known.
+	 */
+	private static class QuoteFilter
+	{
+		private final StringBuilder builder;
+		private final boolean stripQuotes;
+		private char last;
+		private char pendingQuote;
+		private boolean pending;
+		private boolean keepPending;
+
+		QuoteFilter(int capacity, boolean stripQuotes)
+		{
+			this.builder = new StringBuilder(capacity);
+			this.stripQuotes = stripQuotes;
+		}
+
+		void append(String text, int from, int to)
+		{
+			for (int i=from; i<to; i++)
+			{
+				char c = text.charAt(i);
+				if (pending)
+				{
+					if (keepPending || c=='s') builder.append(pendingQuote);
+					pending = false;
+				}
+				if (stripQuotes && QUOTES.indexOf(c)!=-1)
+				{
+					pending = true;
+					pendingQuote = c;
+					keepPending = last=='s';
+				}
+				else
+				{
+					builder.append(c);
+				}
+				last = c;
+			}
+		}
+
+		@Override
+		public String toString()
+		{
+			if (pending && keepPending)
+			{
+				builder.append(pendingQuote);
+				pending = false;
+			}
+			return builder.toString();
+		}
+	}
+}
@@ -0,0 +1,85 @@
+// http://webdatacommons.org/isadb/
+// The WebIsADb and the API are licensed under a Creative Commons Attribution-Non Commercial-Share Alike 3.0 License: http://creativecommons.org/licenses/by-nc-sa/3.0/.
+// Acknowledgements
+// This work was partially funded by the Deutsche Forschungsgemeinschaft within the JOIN-T project (research grant PO 1900/1-1). Part of the computational resources used for this work were provide by an Amazon AWS in Education Grant award.
+// this software is meant to be part of the CommonCrawl framework: http://commoncrawl.org/ to re-build a new WebIsADb from fresh CommonCrawl dumps.
+
+package org.webdatacommons.isadb.util;
+
+/**
+ * Approximate DedupStore with fixed memory: a Bloom filter sized for an expected number of keys and a target
+ * false positive rate. A false positive drops a sentence which was not extracted before; the rate grows
+ * beyond the target if more keys than expected are added.
+ */
+public class BloomDedupStore implements DedupStore {
+
+	private final long[] bits;
+	private final long bitCount;
+	private final int hashCount;
+	private long size;
+	private long setBits;
+
+	/**
+	 * @param expectedKeys
+	 * @param falsePositiveRate target rate at expectedKeys keys, e.g. 0.001
+	 */
+	public BloomDedupStore(long expectedKeys, double falsePositiveRate)
+	{
+		expectedKeys = Math.max(1, expectedKeys);
+		long m = (long) Math.ceil(-expectedKeys * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+		m = Math.max(64, (m + 63) & ~63L);
+		bits = new long[(int) Math.min(m >>> 6, Integer.MAX_VALUE - 8)];
+		bitCount = bits.length * 64L;
+		hashCount = Math.max(1, (int) Math.round((double) bitCount / expectedKeys * Math.log(2)));
+	}
+
+	@Override
+	public synchronized boolean contains(long key)
+	{
+		long h1 = key;
+		long h2 = DedupStores.mix(key) | 1;
+		for (int i=0; i<hashCount; i++)
+		{
+			long bit = ((h1 + i*h2) & Long.MAX_VALUE) % bitCount;
+			if ((bits[(int) (bit >>> 6)] & (1L << bit)) == 0) return false;
+		}
+		return true;
+	}
+
+	@Override
+	public synchronized void add(long key)
+	{
+		long h1 = key;
+		long h2 = DedupStores.mix(key) | 1;
+		for (int i=0; i<hashCount; i++)
+		{
+			long bit = ((h1 + i*h2) & Long.MAX_VALUE) % bitCount;
+			int word = (int) (bit >>> 6);
+			if ((bits[word] & (1L << bit)) == 0)
+			{
+				bits[word] |= 1L << bit;
+				setBits++;
+			}
+		}
+		size++;
+	}
+
+	@Override
+	public synchronized long size()
+	{
+		return size;
+	}
+
+	@Override
+	public long getMemoryBytes()
+	{
+		return bits.length * 8L;
+	}
+
+	@Override
+	public synchronized double getFalsePositiveProbability()
+	{
+		//Probability that all bits of a new key are set, estimated from the actual fill of the filter
+		return Math.pow((double) setBits / bitCount, hashCount);
+	}
+}
@@ -0,0 +1,59 @@
+// http://webdatacommons.org/isadb/
+// The WebIsADb and the API are licensed under a Creative Commons Attribution-Non Commercial-Share Alike 3.0 License: http://creativecommons.org/licenses/by-nc-sa/3.0/.
+// Acknowledgements
+// This work was partially funded by the Deutsche Forschungsgemeinschaft within the JOIN-T project (research grant PO 1900/1-1). Part of the computational resources used for this work were provide by an Amazon AWS in Education Grant award.
+// this software is meant to be part of the CommonCrawl framework: http://commoncrawl.org/ to re-build a new WebIsADb from fresh CommonCrawl dumps.
+
+package org.webdatacommons.isadb.util;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ReadableByteChannel;
+
+/**
+ * Channel reading the remaining bytes of a ByteBuffer, e.g. of a memory-mapped part of a file.
+ */
+public class ByteBufferChannel implements ReadableByteChannel {
+
+	private final ByteBuffer data;
+	private boolean open = true;
+
+	/**
+	 * @param data read from its position to its limit; the buffer itself is not changed
+	 */
+	public ByteBufferChannel(ByteBuffer data)
+	{
+		this.data = data.slice();
+	}
+
+	@Override
+	public int read(ByteBuffer dst) throws ClosedChannelException
+	{
+		if (!open)
+		{
+			throw new ClosedChannelException();
+		}
+		if (!data.hasRemaining())
+		{
+			return -1;
+		}
+		int n = Math.min(dst.remaining(), data.remaining());
+		ByteBuffer chunk = data.duplicate();
+		chunk.limit(chunk.position() + n);
+		dst.put(chunk);
+		data.position(data.position() + n);
+		return n;
+	}
+
+	@Override
+	public boolean isOpen()
+	{
+		return open;
+	}
+
+	@Override
+	public void close()
+	{
+		open = false;
+	}
+}
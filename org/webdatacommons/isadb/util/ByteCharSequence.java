@@ -0,0 +1,80 @@
+// http://webdatacommons.org/isadb/
+// The WebIsADb and the API are licensed under a Creative Commons Attribution-Non Commercial-Share Alike 3.0 License: http://creativecommons.org/licenses/by-nc-sa/3.0/.
+// Acknowledgements
+// This work was partially funded by the Deutsche Forschungsgemeinschaft within the JOIN-T project (research grant PO 1900/1-1). Part of the computational resources used for this work were provide by an Amazon AWS in Education Grant award.
+// this software is meant to be part of the CommonCrawl framework: http://commoncrawl.org/ to re-build a new WebIsADb from fresh CommonCrawl dumps.
+
+package org.webdatacommons.isadb.util;
+
+/**
+ * Read-only view of a byte range as ISO-8859-1 characters. For UTF-8 data, ASCII characters appear unchanged and
+ * every byte of a multi-byte character appears as a character above 127, so a regex built of ASCII atoms finds a match
+ * in the view exactly if it finds one in the decoded text. Used to test raw lines without decoding them.
+ */
+public class ByteCharSequence implements CharSequence {
+
+	private byte[] data;
+	private int start;
+	private int end;
+
+	public ByteCharSequence()
+	{
+	}
+
+	public ByteCharSequence(byte[] data, int start, int end)
+	{
+		set(data, start, end);
+	}
+
+	/**
+	 * Moves the view to another range, so one instance can be reused for all lines
+	 * @param data
+	 * @param start
+	 * @param end exclusive
+	 * @return this view
+	 */
+	public ByteCharSequence set(byte[] data, int start, int end)
+	{
+		this.data = data;
+		this.start = start;
+		this.end = end;
+		return this;
+	}
+
+	@Override
+	public int length()
+	{
+		return end - start;
+	}
+
+	@Override
+	public char charAt(int index)
+	{
+		if (index<0 || index>=end-start)
+		{
+			throw new IndexOutOfBoundsException(Integer.toString(index));
+		}
+		return (char) (data[start + index] & 0xff);
+	}
+
+	@Override
+	public CharSequence subSequence(int from, int to)
+	{
+		if (from<0 || to>end-start || from>to)
+		{
+			throw new IndexOutOfBoundsException(from + "," + to);
+		}
+		return new ByteCharSequence(data, start + from, start + to);
+	}
+
+	@Override
+	public String toString()
+	{
+		char[] chars = new char[end - start];
+		for (int i=0; i<chars.length; i++)
+		{
+			chars[i] = (char) (data[start + i] & 0xff);
+		}
+		return new String(chars);
+	}
+}
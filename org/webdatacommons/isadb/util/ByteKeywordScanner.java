@@ -0,0 +1,170 @@
+// http://webdatacommons.org/isadb/
+// The WebIsADb and the API are licensed under a Creative Commons Attribution-Non Commercial-Share Alike 3.0 License: http://creativecommons.org/licenses/by-nc-sa/3.0/.
+// Acknowledgements
+// This work was partially funded by the Deutsche Forschungsgemeinschaft within the JOIN-T project (research grant PO 1900/1-1). Part of the computational resources used for this work were provide by an Amazon AWS in Education Grant award.
+// this software is meant to be part of the CommonCrawl framework: http://commoncrawl.org/ to re-build a new WebIsADb from fresh CommonCrawl dumps.
+
+package org.webdatacommons.isadb.util;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * Aho-Corasick automaton over the raw bytes of a text, testing whether it contains any of a set of ASCII keywords.
+ * Blanks in the keywords match any whitespace byte (everything matched by \s). As all keywords are ASCII, a keyword
+ * is found in UTF-8 bytes exactly if it is found in the decoded text, so lines can be rejected before decoding.
+ */
+public class ByteKeywordScanner {
+
+	private static final String WHITESPACE = " \t\n\u000B\f\r";
+
+	//Byte classes; class 0 is used for all bytes which do not occur in any keyword
+	private final int[] byteClass = new int[256];
+	private int classCount;
+
+	//Complete transition table, state*classCount+class, holding the next state multiplied by classCount or -1 if a keyword ends there
+	private int[] delta;
+	private boolean emptyKeyword;
+
+	/**
+	 * @param keywords ASCII keywords, at least one
+	 */
+	public ByteKeywordScanner(List<String> keywords)
+	{
+		if (keywords.isEmpty())
+		{
+			throw new IllegalArgumentException("No keywords");
+		}
+		classCount = 1;
+		for (String keyword : keywords)
+		{
+			for (int i=0; i<keyword.length(); i++)
+			{
+				char c = keyword.charAt(i);
+				if (c>127)
+				{
+					throw new IllegalArgumentException("Keyword is not ASCII: " + keyword);
+				}
+				if (byteClass[c]==0)
+				{
+					byteClass[c] = classCount++;
+				}
+			}
+		}
+		for (int i=0; i<WHITESPACE.length(); i++)
+		{
+			byteClass[WHITESPACE.charAt(i)] = byteClass[' '];
+		}
+		build(keywords);
+	}
+
+	/**
+	 * Creates a scanner for the literals every match of the regexes has to contain (see PatternAutomaton.requiredLiteral).
+	 * @param regexes
+	 * @return the scanner, null if a regex has no required literal and therefore every text could match
+	 */
+	public static ByteKeywordScanner forRegexes(List<String> regexes)
+	{
+		ArrayList<String> keywords = new ArrayList<String>();
+		for (String regex : regexes)
+		{
+			String literal = PatternAutomaton.requiredLiteral(regex);
+			if (literal==null)
+			{
+				return null;
+			}
+			keywords.add(literal);
+		}
+		return keywords.isEmpty() ? null : new ByteKeywordScanner(keywords);
+	}
+
+	/**
+	 * @param data
+	 * @param from
+	 * @param to exclusive
+	 * @return true, if one of the keywords occurs in data[from, to)
+	 */
+	public boolean containsAny(byte[] data, int from, int to)
+	{
+		if (emptyKeyword)
+		{
+			return true;
+		}
+		int state = 0;
+		for (int i=from; i<to; i++)
+		{
+			state = delta[state + byteClass[data[i] & 0xff]];
+			if (state<0)
+			{
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private void build(List<String> keywords)
+	{
+		//Keyword trie
+		ArrayList<int[]> trie = new ArrayList<int[]>();
+		ArrayList<Boolean> ends = new ArrayList<Boolean>();
+		trie.add(new int[classCount]);
+		ends.add(false);
+		for (String keyword : keywords)
+		{
+			int state = 0;
+			for (int i=0; i<keyword.length(); i++)
+			{
+				int cls = byteClass[keyword.charAt(i)];
+				if (trie.get(state)[cls]==0)
+				{
+					trie.get(state)[cls] = trie.size();
+					trie.add(new int[classCount]);
+					ends.add(false);
+				}
+				state = trie.get(state)[cls];
+			}
+			ends.set(state, true);
+		}
+
+		//Breadth-first computation of the failure links; a state accepts if its own or its failure state's keyword ends there
+		int states = trie.size();
+		int[] next = new int[states*classCount];
+		boolean[] accepting = new boolean[states];
+		int[] fail = new int[states];
+		LinkedList<Integer> queue = new LinkedList<Integer>();
+		accepting[0] = ends.get(0);
+		for (int cls=1; cls<classCount; cls++)
+		{
+			int child = trie.get(0)[cls];
+			next[cls] = child;
+			if (child!=0) queue.add(child);
+		}
+		while (!queue.isEmpty())
+		{
+			int state = queue.removeFirst();
+			accepting[state] = ends.get(state) || accepting[fail[state]];
+			for (int cls=0; cls<classCount; cls++)
+			{
+				int child = trie.get(state)[cls];
+				if (child!=0)
+				{
+					fail[child] = next[fail[state]*classCount + cls];
+					next[state*classCount + cls] = child;
+					queue.add(child);
+				}
+				else
+				{
+					next[state*classCount + cls] = next[fail[state]*classCount + cls];
+				}
+			}
+		}
+
+		emptyKeyword = accepting[0];
+		delta = new int[states*classCount];
+		for (int i=0; i<delta.length; i++)
+		{
+			delta[i] = accepting[next[i]] ? -1 : next[i]*classCount;
+		}
+	}
+}
@@ -0,0 +1,211 @@
+// http://webdatacommons.org/isadb/
+// The WebIsADb and the API are licensed under a Creative Commons Attribution-Non Commercial-Share Alike 3.0 License: http://creativecommons.org/licenses/by-nc-sa/3.0/.
+// Acknowledgements
+// This work was partially funded by the Deutsche Forschungsgemeinschaft within the JOIN-T project (research grant PO 1900/1-1). Part of the computational resources used for this work were provide by an Amazon AWS in Education Grant award.
+// this software is meant to be part of the CommonCrawl framework: http://commoncrawl.org/ to re-build a new WebIsADb from fresh CommonCrawl dumps.
+
+package org.webdatacommons.isadb.util;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free Bloom filter DedupStore with bounded memory for long-living use, e.g. across all files of a node.
+ * Keys are added to the current generation; when it holds the number of keys it is sized for, it becomes the
+ * previous generation and a new one is started, so the oldest keys are forgotten instead of the false positive
+ * rate growing. Lookups check both generations. The state can be written to and read from a snapshot file.
+ */
+public class ConcurrentBloomDedupStore implements DedupStore {
+
+	private static final int SNAPSHOT_VERSION = 1;
+
+	private static class Generation
+	{
+		final AtomicLongArray bits;
+		final AtomicLong keys = new AtomicLong();
+		final AtomicLong setBits = new AtomicLong();
+
+		Generation(int words)
+		{
+			bits = new AtomicLongArray(words);
+		}
+	}
+
+	private final long keysPerGeneration;
+	private final int words;
+	private final long bitCount;
+	private final int hashCount;
+	private volatile Generation current;
+	private volatile Generation previous;
+
+	/**
+	 * @param keysPerGeneration number of keys after which a new generation is started
+	 * @param falsePositiveRate rate of one generation when it is full
+	 */
+	public ConcurrentBloomDedupStore(long keysPerGeneration, double falsePositiveRate)
+	{
+		this.keysPerGeneration = Math.max(1, keysPerGeneration);
+		long m = (long) Math.ceil(-this.keysPerGeneration * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+		words = (int) Math.min(Math.max(1, (m + 63) >>> 6), Integer.MAX_VALUE - 8);
+		bitCount = words * 64L;
+		hashCount = Math.max(1, (int) Math.round((double) bitCount / this.keysPerGeneration * Math.log(2)));
+		current = new Generation(words);
+		previous = new Generation(words);
+	}
+
+	@Override
+	public boolean contains(long key)
+	{
+		return contains(current, key) || contains(previous, key);
+	}
+
+	@Override
+	public void add(long key)
+	{
+		Generation generation = current;
+		long h1 = key;
+		long h2 = DedupStores.mix(key) | 1;
+		boolean changed = false;
+		for (int i=0; i<hashCount; i++)
+		{
+			long bit = ((h1 + i*h2) & Long.MAX_VALUE) % bitCount;
+			int word = (int) (bit >>> 6);
+			long mask = 1L << bit;
+			long value;
+			while (((value = generation.bits.get(word)) & mask) == 0)
+			{
+				if (generation.bits.compareAndSet(word, value, value | mask))
+				{
+					generation.setBits.incrementAndGet();
+					changed = true;
+					break;
+				}
+			}
+		}
+		if (changed && generation.keys.incrementAndGet() >= keysPerGeneration)
+		{
+			rotate(generation);
+		}
+	}
+
+	private synchronized void rotate(Generation full)
+	{
+		if (current==full)
+		{
+			previous = full;
+			current = new Generation(words);
+		}
+	}
+
+	@Override
+	public long size()
+	{
+		return current.keys.get() + previous.keys.get();
+	}
+
+	@Override
+	public long getMemoryBytes()
+	{
+		return 2 * words * 8L;
+	}
+
+	@Override
+	public double getFalsePositiveProbability()
+	{
+		double p1 = Math.pow((double) current.setBits.get() / bitCount, hashCount);
+		double p2 = Math.pow((double) previous.setBits.get() / bitCount, hashCount);
+		return 1 - (1-p1)*(1-p2);
+	}
+
+	private boolean contains(Generation generation, long key)
+	{
+		long h1 = key;
+		long h2 = DedupStores.mix(key) | 1;
+		for (int i=0; i<hashCount; i++)
+		{
+			long bit = ((h1 + i*h2) & Long.MAX_VALUE) % bitCount;
+			if ((generation.bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Writes the state to the file. Keys added concurrently may or may not be part of the snapshot.
+	 * The file is written next to the target and renamed, so an interrupted snapshot keeps the former one.
+	 * @param file
+	 * @throws IOException
+	 */
+	public synchronized void snapshot(File file) throws IOException
+	{
+		File tempFile = new File(file.getPath() + ".tmp");
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile), 1 << 16));
+		try
+		{
+			out.writeInt(SNAPSHOT_VERSION);
+			out.writeLong(keysPerGeneration);
+			out.writeInt(words);
+			out.writeInt(hashCount);
+			for (Generation generation : new Generation[] {current, previous})
+			{
+				out.writeLong(generation.keys.get());
+				out.writeLong(generation.setBits.get());
+				for (int i=0; i<words; i++)
+				{
+					out.writeLong(generation.bits.get(i));
+				}
+			}
+		}
+		finally
+		{
+			out.close();
+		}
+		if (file.exists() && !file.delete() || !tempFile.renameTo(file))
+		{
+			throw new IOException("Could not replace snapshot " + file);
+		}
+	}
+
+	/**
+	 * Reads a snapshot written by a store with the same sizing
+	 * @param file
+	 * @return false, if the snapshot was written with other parameters and has been ignored
+	 * @throws IOException
+	 */
+	public synchronized boolean restore(File file) throws IOException
+	{
+		DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), 1 << 16));
+		try
+		{
+			if (in.readInt()!=SNAPSHOT_VERSION || in.readLong()!=keysPerGeneration || in.readInt()!=words || in.readInt()!=hashCount)
+			{
+				return false;
+			}
+			Generation[] generations = new Generation[2];
+			for (int g=0; g<2; g++)
+			{
+				generations[g] = new Generation(words);
+				generations[g].keys.set(in.readLong());
+				generations[g].setBits.set(in.readLong());
+				for (int i=0; i<words; i++)
+				{
+					generations[g].bits.set(i, in.readLong());
+				}
+			}
+			current = generations[0];
+			previous = generations[1];
+			return true;
+		}
+		finally
+		{
+			in.close();
+		}
+	}
+}
@@ -0,0 +1,40 @@
+// http://webdatacommons.org/isadb/
+// The WebIsADb and the API are licensed under a Creative Commons Attribution-Non Commercial-Share Alike 3.0 License: http://creativecommons.org/licenses/by-nc-sa/3.0/.
+// Acknowledgements
+// This work was partially funded by the Deutsche Forschungsgemeinschaft within the JOIN-T project (research grant PO 1900/1-1). Part of the computational resources used for this work were provide by an Amazon AWS in Education Grant award.
+// this software is meant to be part of the CommonCrawl framework: http://commoncrawl.org/ to re-build a new WebIsADb from fresh CommonCrawl dumps.
+
+package org.webdatacommons.isadb.util;
+
+/**
+ * Set of 64-bit keys for the duplicate check of extracted sentences. Implementations are thread-safe:
+ * the workers check keys while the writer adds them.
+ */
+public interface DedupStore {
+
+	/**
+	 * @param key
+	 * @return true, if the key was added before (or, for approximate stores, seems to be)
+	 */
+	boolean contains(long key);
+
+	/**
+	 * @param key
+	 */
+	void add(long key);
+
+	/**
+	 * @return number of keys added
+	 */
+	long size();
+
+	/**
+	 * @return bytes allocated by the store
+	 */
+	long getMemoryBytes();
+
+	/**
+	 * @return probability, that contains() returns true for a key which was never added, with the current fill
+	 */
+	double getFalsePositiveProbability();
+}
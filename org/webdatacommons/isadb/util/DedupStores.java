@@ -0,0 +1,67 @@
+// http://webdatacommons.org/isadb/
+// The WebIsADb and the API are licensed under a Creative Commons Attribution-Non Commercial-Share Alike 3.0 License: http://creativecommons.org/licenses/by-nc-sa/3.0/.
+// Acknowledgements
+// This work was partially funded by the Deutsche Forschungsgemeinschaft within the JOIN-T project (research grant PO 1900/1-1). Part of the computational resources used for this work were provide by an Amazon AWS in Education Grant award.
+// this software is meant to be part of the CommonCrawl framework: http://commoncrawl.org/ to re-build a new WebIsADb from fresh CommonCrawl dumps.
+
+package org.webdatacommons.isadb.util;
+
+/**
+ * Creation of DedupStores and of the keys of extracted sentences
+ */
+public class DedupStores {
+
+	public static final String LONG_HASH = "longhash";
+	public static final String BLOOM = "bloom";
+
+	/**
+	 * @param mode LONG_HASH or BLOOM
+	 * @param expectedKeys number of keys the Bloom filter is sized for; the hash set starts small and grows
+	 * @param falsePositiveRate target rate of the Bloom filter
+	 * @return the store
+	 */
+	public static DedupStore create(String mode, long expectedKeys, double falsePositiveRate)
+	{
+		if (LONG_HASH.equals(mode))
+		{
+			return new LongHashDedupStore(4096);
+		}
+		if (BLOOM.equals(mode))
+		{
+			return new BloomDedupStore(expectedKeys, falsePositiveRate);
+		}
+		throw new IllegalArgumentException("Unknown dedup store: " + mode);
+	}
+
+	/**
+	 * 64-bit key of a sentence found by a pattern on a page. Like the former (sentence+pld).hashCode(),
+	 * the key is computed over the concatenation of sentence and PLD.
+	 * @param patternIndex
+	 * @param sentence
+	 * @param pld
+	 * @return the key
+	 */
+	public static long key(int patternIndex, String sentence, String pld)
+	{
+		long hash = 0xcbf29ce484222325L;
+		for (int i=0; i<sentence.length(); i++)
+		{
+			hash = (hash ^ sentence.charAt(i)) * 0x100000001b3L;
+		}
+		for (int i=0; i<pld.length(); i++)
+		{
+			hash = (hash ^ pld.charAt(i)) * 0x100000001b3L;
+		}
+		return mix(hash ^ (patternIndex * 0x9e3779b97f4a7c15L));
+	}
+
+	/**
+	 * The 64 bit finalizer of MurmurHash3, also the second hash of the Bloom filters
+	 */
+	static long mix(long key)
+	{
+		key = (key ^ (key >>> 33)) * 0xff51afd7ed558ccdL;
+		key = (key ^ (key >>> 33)) * 0xc4ceb9fe1a85ec53L;
+		return key ^ (key >>> 33);
+	}
+}
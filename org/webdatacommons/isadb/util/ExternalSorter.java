@@ -0,0 +1,345 @@
+// http://webdatacommons.org/isadb/
+// The WebIsADb and the API are licensed under a Creative Commons Attribution-Non Commercial-Share Alike 3.0 License: http://creativecommons.org/licenses/by-nc-sa/3.0/.
+// Acknowledgements
+// This work was partially funded by the Deutsche Forschungsgemeinschaft within the JOIN-T project (research grant PO 1900/1-1). Part of the computational resources used for this work were provide by an Amazon AWS in Education Grant award.
+// this software is meant to be part of the CommonCrawl framework: http://commoncrawl.org/ to re-build a new WebIsADb from fresh CommonCrawl dumps.
+
+
+package org.webdatacommons.isadb.util;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Sorts byte rows (e.g. UTF-8 encoded lines) in unsigned byte order, which is the order of LC_ALL=C sort.
+ * The rows are kept in memory until spill() is called; spill() writes them sorted to a run file.
+ * writeSorted and merge merge the runs and the rows in memory; more than maxFanIn runs are first merged in passes
+ * of maxFanIn runs to larger runs, so only maxFanIn run files are open at a time.
+ */
+public class ExternalSorter {
+
+	/** Unsigned lexicographic order of byte arrays */
+	public static final Comparator<byte[]> BYTE_ORDER = new Comparator<byte[]>() {
+		@Override
+		public int compare(byte[] a, byte[] b)
+		{
+			int n = Math.min(a.length, b.length);
+			for (int i=0; i<n; i++)
+			{
+				int diff = (a[i] & 0xff) - (b[i] & 0xff);
+				if (diff!=0)
+				{
+					return diff;
+				}
+			}
+			return a.length - b.length;
+		}
+	};
+
+	/**
+	 * Receives the rows of merge() in sorted order
+	 */
+	public interface RowHandler
+	{
+		public void row(byte[] row) throws IOException;
+	}
+
+	/** Default number of runs merged at once */
+	public static final int DEFAULT_MAX_FAN_IN = 64;
+
+	//Approximate heap overhead of a buffered row
+	private static final int ROW_OVERHEAD = 32;
+	//Buffer size of a run file
+	private static final int RUN_BUFFER = 1 << 16;
+
+	/**
+	 * Sorted rows of a run file or of the memory
+	 */
+	private static class Run
+	{
+		final DataInputStream in;
+		final ArrayList<byte[]> rows;
+		int next = 0;
+		byte[] current;
+
+		Run(DataInputStream in)
+		{
+			this.in = in;
+			this.rows = null;
+		}
+
+		Run(ArrayList<byte[]> rows)
+		{
+			this.in = null;
+			this.rows = rows;
+		}
+
+		boolean advance() throws IOException
+		{
+			if (rows!=null)
+			{
+				current = next<rows.size() ? rows.get(next++) : null;
+				return current!=null;
+			}
+			int length;
+			try
+			{
+				length = in.readInt();
+			}
+			catch (EOFException e)
+			{
+				current = null;
+				return false;
+			}
+			current = new byte[length];
+			in.readFully(current);
+			return true;
+		}
+
+		void close() throws IOException
+		{
+			if (in!=null) in.close();
+		}
+	}
+
+	private final File tempDirectory;
+	private final int maxFanIn;
+	private final ArrayList<byte[]> rows = new ArrayList<byte[]>();
+	private final ArrayList<File> runs = new ArrayList<File>();
+	private long memoryUsage = 0;
+	private long rowCount = 0;
+
+	/**
+	 * @param tempDirectory directory of the run files, null for the default temp directory
+	 */
+	public ExternalSorter(File tempDirectory)
+	{
+		this(tempDirectory, DEFAULT_MAX_FAN_IN);
+	}
+
+	/**
+	 * @param tempDirectory directory of the run files, null for the default temp directory
+	 * @param maxFanIn maximum number of runs merged at once, at least 2
+	 */
+	public ExternalSorter(File tempDirectory, int maxFanIn)
+	{
+		this.tempDirectory = tempDirectory;
+		this.maxFanIn = Math.max(2, maxFanIn);
+	}
+
+	public void add(byte[] row)
+	{
+		rows.add(row);
+		memoryUsage += row.length + ROW_OVERHEAD;
+		rowCount++;
+	}
+
+	/**
+	 * @return approximate number of bytes used by the rows in memory
+	 */
+	public long getMemoryUsage()
+	{
+		return memoryUsage;
+	}
+
+	/**
+	 * @return number of rows added
+	 */
+	public long getRowCount()
+	{
+		return rowCount;
+	}
+
+	/**
+	 * @return number of run files written
+	 */
+	public int getRuns()
+	{
+		return runs.size();
+	}
+
+	/**
+	 * Writes the rows in memory sorted to a new run file
+	 * @throws IOException
+	 */
+	public void spill() throws IOException
+	{
+		if (rows.isEmpty())
+		{
+			return;
+		}
+		Collections.sort(rows, BYTE_ORDER);
+		DataOutputStream out = createRun();
+		try
+		{
+			for (byte[] row : rows)
+			{
+				out.writeInt(row.length);
+				out.write(row);
+			}
+		}
+		finally
+		{
+			out.close();
+		}
+		rows.clear();
+		memoryUsage = 0;
+	}
+
+	/**
+	 * Writes all rows in sorted order, each followed by the separator, and deletes the run files
+	 * @param out
+	 * @param separator
+	 * @throws IOException
+	 */
+	public void writeSorted(final OutputStream out, final byte separator) throws IOException
+	{
+		merge(new RowHandler() {
+			@Override
+			public void row(byte[] row) throws IOException
+			{
+				out.write(row);
+				out.write(separator);
+			}
+		});
+	}
+
+	/**
+	 * Passes all rows in sorted order to the handler and deletes the run files
+	 * @param handler
+	 * @throws IOException
+	 */
+	public void merge(RowHandler handler) throws IOException
+	{
+		try
+		{
+			//The rows in memory are one more input of the last merge
+			while (runs.size()>=maxFanIn)
+			{
+				mergeRuns();
+			}
+			Collections.sort(rows, BYTE_ORDER);
+			merge(runs, rows, handler);
+		}
+		finally
+		{
+			delete();
+		}
+	}
+
+	/**
+	 * Merges the oldest maxFanIn runs to a new run
+	 * @throws IOException
+	 */
+	private void mergeRuns() throws IOException
+	{
+		final DataOutputStream out = createRun();
+		//The new run is added at the end, after the merged runs
+		List<File> merged = runs.subList(0, maxFanIn);
+		try
+		{
+			merge(merged, null, new RowHandler() {
+				@Override
+				public void row(byte[] row) throws IOException
+				{
+					out.writeInt(row.length);
+					out.write(row);
+				}
+			});
+		}
+		finally
+		{
+			out.close();
+		}
+		for (File run : merged)
+		{
+			run.delete();
+		}
+		merged.clear();
+	}
+
+	/**
+	 * Creates a new run file, which is deleted by delete()
+	 * @return the stream of the run
+	 * @throws IOException
+	 */
+	private DataOutputStream createRun() throws IOException
+	{
+		File run = File.createTempFile("isadb-sort", ".run", tempDirectory);
+		runs.add(run);
+		return new DataOutputStream(new BufferedOutputStream(new FileOutputStream(run), RUN_BUFFER));
+	}
+
+	private static void merge(List<File> files, ArrayList<byte[]> memory, RowHandler handler) throws IOException
+	{
+		PriorityQueue<Run> queue = new PriorityQueue<Run>(files.size() + 1, new Comparator<Run>() {
+			@Override
+			public int compare(Run a, Run b)
+			{
+				return BYTE_ORDER.compare(a.current, b.current);
+			}
+		});
+		ArrayList<Run> open = new ArrayList<Run>();
+		try
+		{
+			for (File run : files)
+			{
+				open.add(new Run(new DataInputStream(new BufferedInputStream(new FileInputStream(run), RUN_BUFFER))));
+			}
+			if (memory!=null)
+			{
+				open.add(new Run(memory));
+			}
+			for (Run run : open)
+			{
+				if (run.advance())
+				{
+					queue.add(run);
+				}
+			}
+			while (!queue.isEmpty())
+			{
+				Run run = queue.poll();
+				handler.row(run.current);
+				if (run.advance())
+				{
+					queue.add(run);
+				}
+			}
+		}
+		finally
+		{
+			for (Run run : open)
+			{
+				run.close();
+			}
+		}
+	}
+
+	/**
+	 * Drops all rows and deletes the run files
+	 */
+	public void delete()
+	{
+		for (File run : runs)
+		{
+			run.delete();
+		}
+		runs.clear();
+		rows.clear();
+		memoryUsage = 0;
+	}
+}
@@ -0,0 +1,280 @@
+// http://webdatacommons.org/isadb/
+// The WebIsADb and the API are licensed under a Creative Commons Attribution-Non Commercial-Share Alike 3.0 License: http://creativecommons.org/licenses/by-nc-sa/3.0/.
+// Acknowledgements
+// This work was partially funded by the Deutsche Forschungsgemeinschaft within the JOIN-T project (research grant PO 1900/1-1). Part of the computational resources used for this work were provide by an Amazon AWS in Education Grant award.
+// this software is meant to be part of the CommonCrawl framework: http://commoncrawl.org/ to re-build a new WebIsADb from fresh CommonCrawl dumps.
+
+package org.webdatacommons.isadb.util;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+/**
+ * Inflates a gzip file consisting of several members (the WARC files of the CommonCrawl contain one member per record)
+ * directly from a channel. Unlike GZIPInputStream, the detection of the next member does not depend on InputStream.available(),
+ * which is 0 for most channel streams. The compressed data is read into one large buffer which is handed to the Inflater
+ * without copying; the buffer is a heap buffer, as the Inflater only accepts arrays.
+ */
+public class GzipMemberInflater {
+
+	private static final int FHCRC = 2;
+	private static final int FEXTRA = 4;
+	private static final int FNAME = 8;
+	private static final int FCOMMENT = 16;
+
+	private final ReadableByteChannel channel;
+	private final ByteBuffer in;
+	private final Inflater inflater = new Inflater(true);
+	private final CRC32 crc = new CRC32();
+
+	private boolean inMember = false;
+	private boolean channelEnd = false;
+	private boolean finished = false;
+	private long channelPosition = 0;
+	private long memberStart = -1;
+	private long members = 0;
+	private long inflatedBytes = 0;
+
+	/**
+	 * @param channel gzip data
+	 * @param bufferSize size of the buffer for the compressed data
+	 */
+	public GzipMemberInflater(ReadableByteChannel channel, int bufferSize)
+	{
+		this.channel = channel;
+		this.in = ByteBuffer.allocate(Math.max(bufferSize, 64));
+		in.flip();
+	}
+
+	/**
+	 * Inflates the next bytes; the members are returned one after another.
+	 * @param b
+	 * @param off
+	 * @param len
+	 * @return number of bytes inflated, -1 at the end of the last member
+	 * @throws IOException if the data is corrupt or ends inside a member
+	 */
+	public int read(byte[] b, int off, int len) throws IOException
+	{
+		if (len==0)
+		{
+			return 0;
+		}
+		while (!finished)
+		{
+			if (!inMember && !startMember())
+			{
+				finished = true;
+				break;
+			}
+			if (inflater.needsInput())
+			{
+				if (!in.hasRemaining() && !fill(1))
+				{
+					throw new EOFException("Unexpected end of gzip member starting at " + memberStart);
+				}
+				inflater.setInput(in.array(), in.arrayOffset() + in.position(), in.remaining());
+			}
+			int n;
+			try
+			{
+				n = inflater.inflate(b, off, len);
+			}
+			catch (DataFormatException e)
+			{
+				throw new ZipException(e.getMessage() + " in gzip member starting at " + memberStart);
+			}
+			//The Inflater always works on in[position, limit)
+			in.position(in.limit() - inflater.getRemaining());
+			if (n>0)
+			{
+				crc.update(b, off, n);
+				inflatedBytes += n;
+				return n;
+			}
+			if (inflater.finished())
+			{
+				finishMember();
+			}
+			else if (inflater.needsDictionary())
+			{
+				throw new ZipException("Preset dictionary in gzip member starting at " + memberStart);
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * @return offset of the member which is currently inflated in the compressed data, -1 before the first member
+	 */
+	public long getMemberStart()
+	{
+		return memberStart;
+	}
+
+	/**
+	 * @return number of members started so far
+	 */
+	public long getMembers()
+	{
+		return members;
+	}
+
+	/**
+	 * @return number of bytes inflated so far
+	 */
+	public long getInflatedBytes()
+	{
+		return inflatedBytes;
+	}
+
+	/**
+	 * @return number of compressed bytes consumed so far
+	 */
+	public long getCompressedPosition()
+	{
+		return channelPosition - in.remaining();
+	}
+
+	/**
+	 * Releases the native memory of the Inflater; the channel is not closed.
+	 */
+	public void close()
+	{
+		inflater.end();
+	}
+
+	private boolean startMember() throws IOException
+	{
+		if (!fill(2))
+		{
+			if (members==0)
+			{
+				throw new EOFException("Empty gzip file");
+			}
+			return false;
+		}
+		if ((in.get(in.position()) & 0xff)!=0x1f || (in.get(in.position()+1) & 0xff)!=0x8b)
+		{
+			//Like GZIPInputStream, data behind the last member is ignored
+			if (members==0)
+			{
+				throw new ZipException("Not in GZIP format");
+			}
+			return false;
+		}
+		memberStart = getCompressedPosition();
+		if (!fill(10))
+		{
+			throw new EOFException("Truncated gzip header at " + memberStart);
+		}
+		in.position(in.position()+2);
+		int method = in.get() & 0xff;
+		int flags = in.get() & 0xff;
+		if (method!=8)
+		{
+			throw new ZipException("Unsupported compression method " + method + " at " + memberStart);
+		}
+		//MTIME, XFL and OS
+		in.position(in.position()+6);
+		if ((flags & FEXTRA)!=0)
+		{
+			skip(readByte() | (readByte() << 8));
+		}
+		if ((flags & FNAME)!=0)
+		{
+			while (readByte()!=0);
+		}
+		if ((flags & FCOMMENT)!=0)
+		{
+			while (readByte()!=0);
+		}
+		if ((flags & FHCRC)!=0)
+		{
+			skip(2);
+		}
+		inflater.reset();
+		crc.reset();
+		inMember = true;
+		members++;
+		return true;
+	}
+
+	private void finishMember() throws IOException
+	{
+		if (!fill(8))
+		{
+			throw new EOFException("Truncated gzip trailer of the member starting at " + memberStart);
+		}
+		long expectedCrc = readInt();
+		long expectedSize = readInt();
+		if (expectedCrc!=crc.getValue() || expectedSize!=(inflater.getBytesWritten() & 0xffffffffL))
+		{
+			throw new ZipException("Corrupt gzip trailer of the member starting at " + memberStart);
+		}
+		inMember = false;
+	}
+
+	private long readInt() throws IOException
+	{
+		return (readByte() | (readByte() << 8) | (readByte() << 16) | ((long) readByte() << 24)) & 0xffffffffL;
+	}
+
+	private int readByte() throws IOException
+	{
+		if (!fill(1))
+		{
+			throw new EOFException("Truncated gzip header at " + memberStart);
+		}
+		return in.get() & 0xff;
+	}
+
+	private void skip(int n) throws IOException
+	{
+		while (n>0)
+		{
+			if (!fill(1))
+			{
+				throw new EOFException("Truncated gzip header at " + memberStart);
+			}
+			int k = Math.min(n, in.remaining());
+			in.position(in.position()+k);
+			n -= k;
+		}
+	}
+
+	/**
+	 * Reads from the channel until at least n bytes are buffered.
+	 * @param n at most the buffer size
+	 * @return false, if the channel ended before
+	 * @throws IOException
+	 */
+	private boolean fill(int n) throws IOException
+	{
+		while (in.remaining()<n)
+		{
+			if (channelEnd)
+			{
+				return false;
+			}
+			in.compact();
+			int read = channel.read(in);
+			in.flip();
+			if (read<0)
+			{
+				channelEnd = true;
+			}
+			else
+			{
+				channelPosition += read;
+			}
+		}
+		return true;
+	}
+}
@@ -0,0 +1,82 @@
+// http://webdatacommons.org/isadb/
+// The WebIsADb and the API are licensed under a Creative Commons Attribution-Non Commercial-Share Alike 3.0 License: http://creativecommons.org/licenses/by-nc-sa/3.0/.
+// Acknowledgements
+// This work was partially funded by the Deutsche Forschungsgemeinschaft within the JOIN-T project (research grant PO 1900/1-1). Part of the computational resources used for this work were provide by an Amazon AWS in Education Grant award.
+// this software is meant to be part of the CommonCrawl framework: http://commoncrawl.org/ to re-build a new WebIsADb from fresh CommonCrawl dumps.
+
+package org.webdatacommons.isadb.util;
+
+import java.util.Arrays;
+
+/**
+ * Combination of two DedupStores: a key is contained if one of them contains it. Keys are only added to the first
+ * store and remembered; commit() adds them to the second one. Used to put an exact store for the current file in
+ * front of a shared, approximate one, which only receives the keys of a file once its output is stored.
+ */
+public class LayeredDedupStore implements DedupStore {
+
+	private final DedupStore first;
+	private final DedupStore second;
+	//Keys added since the last commit
+	private long[] pending = new long[1024];
+	private int pendingCount = 0;
+
+	public LayeredDedupStore(DedupStore first, DedupStore second)
+	{
+		this.first = first;
+		this.second = second;
+	}
+
+	@Override
+	public boolean contains(long key)
+	{
+		return first.contains(key) || second.contains(key);
+	}
+
+	@Override
+	public synchronized void add(long key)
+	{
+		first.add(key);
+		if (pendingCount==pending.length)
+		{
+			pending = Arrays.copyOf(pending, pending.length*2);
+		}
+		pending[pendingCount++] = key;
+	}
+
+	/**
+	 * Adds the keys added since the last commit to the second store
+	 */
+	public synchronized void commit()
+	{
+		for (int i=0; i<pendingCount; i++)
+		{
+			second.add(pending[i]);
+		}
+		pendingCount = 0;
+	}
+
+	/**
+	 * @return number of keys of the first store
+	 */
+	@Override
+	public long size()
+	{
+		return first.size();
+	}
+
+	/**
+	 * @return memory of the first store and of the keys which are not committed; the second store is shared
+	 */
+	@Override
+	public long getMemoryBytes()
+	{
+		return first.getMemoryBytes() + pending.length * 8L;
+	}
+
+	@Override
+	public double getFalsePositiveProbability()
+	{
+		return 1 - (1-first.getFalsePositiveProbability())*(1-second.getFalsePositiveProbability());
+	}
+}
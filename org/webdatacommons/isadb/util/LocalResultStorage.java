@@ -0,0 +1,137 @@
+// http://webdatacommons.org/isadb/
+// The WebIsADb and the API are licensed under a Creative Commons Attribution-Non Commercial-Share Alike 3.0 License: http://creativecommons.org/licenses/by-nc-sa/3.0/.
+// Acknowledgements
+// This work was partially funded by the Deutsche Forschungsgemeinschaft within the JOIN-T project (research grant PO 1900/1-1). Part of the computational resources used for this work were provide by an Amazon AWS in Education Grant award.
+// this software is meant to be part of the CommonCrawl framework: http://commoncrawl.org/ to re-build a new WebIsADb from fresh CommonCrawl dumps.
+
+
+package org.webdatacommons.isadb.util;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Stores the objects as files below a directory; the key is the relative path. An object is written to key.part
+ * and renamed when it is complete, so incomplete files never appear under their key.
+ */
+public class LocalResultStorage implements ResultStorage {
+
+	private final File directory;
+
+	public LocalResultStorage(File directory)
+	{
+		this.directory = directory;
+	}
+
+	public File getFile(String key)
+	{
+		return new File(directory, key);
+	}
+
+	@Override
+	public StorageOutputStream create(String key) throws IOException
+	{
+		final File file = getFile(key);
+		final File partFile = new File(file.getPath() + ".part");
+		createParent(file);
+		final BufferedOutputStream out = new BufferedOutputStream(new FileOutputStream(partFile), 1 << 16);
+		return new StorageOutputStream() {
+			private boolean closed = false;
+			private boolean aborted = false;
+
+			@Override
+			public void write(int b) throws IOException
+			{
+				if (checkOpen()) out.write(b);
+			}
+
+			@Override
+			public void write(byte[] data, int off, int len) throws IOException
+			{
+				if (checkOpen()) out.write(data, off, len);
+			}
+
+			@Override
+			public void flush() throws IOException
+			{
+				if (!closed) out.flush();
+			}
+
+			/**
+			 * @return false, if the stream was aborted and the write is ignored
+			 * @throws IOException if the file is already stored
+			 */
+			private boolean checkOpen() throws IOException
+			{
+				if (aborted)
+				{
+					return false;
+				}
+				if (closed)
+				{
+					throw new IOException("Stream of " + file + " is closed");
+				}
+				return true;
+			}
+
+			@Override
+			public void close() throws IOException
+			{
+				if (closed)
+				{
+					return;
+				}
+				closed = true;
+				out.close();
+				Files.move(partFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			}
+
+			@Override
+			public void abort()
+			{
+				if (closed)
+				{
+					return;
+				}
+				closed = true;
+				aborted = true;
+				try
+				{
+					out.close();
+				}
+				catch (IOException e)
+				{
+					//the file is deleted anyway
+				}
+				partFile.delete();
+			}
+		};
+	}
+
+	@Override
+	public void put(String key, File source) throws IOException
+	{
+		File file = getFile(key);
+		createParent(file);
+		Files.copy(source.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+	}
+
+	@Override
+	public void delete(String key) throws IOException
+	{
+		Files.deleteIfExists(getFile(key).toPath());
+	}
+
+	private static void createParent(File file) throws IOException
+	{
+		File parent = file.getParentFile();
+		if (parent!=null && !parent.isDirectory() && !parent.mkdirs())
+		{
+			throw new IOException("Cannot create directory " + parent);
+		}
+	}
+}
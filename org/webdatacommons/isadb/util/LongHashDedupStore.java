@@ -0,0 +1,135 @@
+// http://webdatacommons.org/isadb/
+// The WebIsADb and the API are licensed under a Creative Commons Attribution-Non Commercial-Share Alike 3.0 License: http://creativecommons.org/licenses/by-nc-sa/3.0/.
+// Acknowledgements
+// This work was partially funded by the Deutsche Forschungsgemeinschaft within the JOIN-T project (research grant PO 1900/1-1). Part of the computational resources used for this work were provide by an Amazon AWS in Education Grant award.
+// this software is meant to be part of the CommonCrawl framework: http://commoncrawl.org/ to re-build a new WebIsADb from fresh CommonCrawl dumps.
+
+package org.webdatacommons.isadb.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Exact DedupStore: open-addressing hash set of primitive longs with linear probing, doubled when half full.
+ * Keys only collide if their 64-bit hashes are equal.
+ * Lookups are lock-free, so the workers never wait for each other; adding keys is synchronized. A growing table is
+ * filled completely before it replaces the old one, so a lookup sees either table with all keys added before.
+ */
+public class LongHashDedupStore implements DedupStore {
+
+	//Largest power of two which is a valid array length
+	private static final int MAX_CAPACITY = 1 << 30;
+
+	private volatile AtomicLongArray table;
+	private volatile int size;
+	//0 marks an empty slot, so the key 0 is stored separately
+	private volatile boolean containsZero;
+
+	/**
+	 * @param expectedKeys initial capacity
+	 */
+	public LongHashDedupStore(int expectedKeys)
+	{
+		int capacity = 16;
+		while (capacity < expectedKeys*2L && capacity < MAX_CAPACITY)
+		{
+			capacity <<= 1;
+		}
+		table = new AtomicLongArray(capacity);
+	}
+
+	@Override
+	public boolean contains(long key)
+	{
+		if (key==0)
+		{
+			return containsZero;
+		}
+		AtomicLongArray table = this.table;
+		int mask = table.length()-1;
+		for (int slot = spread(key) & mask; ; slot = (slot+1) & mask)
+		{
+			long stored = table.get(slot);
+			if (stored==key) return true;
+			if (stored==0) return false;
+		}
+	}
+
+	/**
+	 * @throws IllegalStateException if the table has reached its maximum capacity and is 3/4 full
+	 */
+	@Override
+	public synchronized void add(long key)
+	{
+		if (key==0)
+		{
+			if (!containsZero) size++;
+			containsZero = true;
+			return;
+		}
+		if (size*2L >= table.length())
+		{
+			if (table.length()<MAX_CAPACITY)
+			{
+				grow();
+			}
+			else if (size*4L >= table.length()*3L)
+			{
+				throw new IllegalStateException("Dedup store is full (" + size + " keys), use " + DedupStores.BLOOM + " instead");
+			}
+		}
+		if (insert(table, key))
+		{
+			size++;
+		}
+	}
+
+	@Override
+	public long size()
+	{
+		return size;
+	}
+
+	@Override
+	public long getMemoryBytes()
+	{
+		return table.length() * 8L;
+	}
+
+	@Override
+	public double getFalsePositiveProbability()
+	{
+		return size / 18446744073709551616.0;
+	}
+
+	private void grow()
+	{
+		AtomicLongArray oldTable = table;
+		AtomicLongArray newTable = new AtomicLongArray(oldTable.length()*2);
+		for (int i=0; i<oldTable.length(); i++)
+		{
+			long key = oldTable.get(i);
+			if (key!=0) insert(newTable, key);
+		}
+		table = newTable;
+	}
+
+	private static boolean insert(AtomicLongArray table, long key)
+	{
+		int mask = table.length()-1;
+		for (int slot = spread(key) & mask; ; slot = (slot+1) & mask)
+		{
+			long stored = table.get(slot);
+			if (stored==key) return false;
+			if (stored==0)
+			{
+				table.set(slot, key);
+				return true;
+			}
+		}
+	}
+
+	private static int spread(long key)
+	{
+		return (int) (key ^ (key >>> 32));
+	}
+}
@@ -0,0 +1,130 @@
+// http://webdatacommons.org/isadb/
+// The WebIsADb and the API are licensed under a Creative Commons Attribution-Non Commercial-Share Alike 3.0 License: http://creativecommons.org/licenses/by-nc-sa/3.0/.
+// Acknowledgements
+// This work was partially funded by the Deutsche Forschungsgemeinschaft within the JOIN-T project (research grant PO 1900/1-1). Part of the computational resources used for this work were provide by an Amazon AWS in Education Grant award.
+// this software is meant to be part of the CommonCrawl framework: http://commoncrawl.org/ to re-build a new WebIsADb from fresh CommonCrawl dumps.
+
+
+package org.webdatacommons.isadb.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps the objects in memory, for benchmarks and offline runs without S3 (isadb.storage=memory).
+ */
+public class MemoryResultStorage implements ResultStorage {
+
+	private static final MemoryResultStorage shared = new MemoryResultStorage();
+
+	private final ConcurrentHashMap<String, byte[]> objects = new ConcurrentHashMap<String, byte[]>();
+
+	/**
+	 * @return the storage shared by all processors of the JVM
+	 */
+	public static MemoryResultStorage get()
+	{
+		return shared;
+	}
+
+	@Override
+	public StorageOutputStream create(final String key)
+	{
+		final ByteArrayOutputStream out = new ByteArrayOutputStream();
+		return new StorageOutputStream() {
+			private boolean closed = false;
+			private boolean aborted = false;
+
+			@Override
+			public void write(int b) throws IOException
+			{
+				if (checkOpen()) out.write(b);
+			}
+
+			@Override
+			public void write(byte[] data, int off, int len) throws IOException
+			{
+				if (checkOpen()) out.write(data, off, len);
+			}
+
+			/**
+			 * @return false, if the stream was aborted and the write is ignored
+			 * @throws IOException if the object is already stored
+			 */
+			private boolean checkOpen() throws IOException
+			{
+				if (aborted)
+				{
+					return false;
+				}
+				if (closed)
+				{
+					throw new IOException("Stream of " + key + " is closed");
+				}
+				return true;
+			}
+
+			@Override
+			public void close()
+			{
+				if (!closed)
+				{
+					closed = true;
+					objects.put(key, out.toByteArray());
+				}
+			}
+
+			@Override
+			public void abort()
+			{
+				if (!closed)
+				{
+					closed = true;
+					aborted = true;
+				}
+			}
+		};
+	}
+
+	@Override
+	public void put(String key, File file) throws IOException
+	{
+		objects.put(key, Files.readAllBytes(file.toPath()));
+	}
+
+	@Override
+	public void delete(String key)
+	{
+		objects.remove(key);
+	}
+
+	/**
+	 * @param key
+	 * @return the object, null if there is none
+	 */
+	public byte[] getObject(String key)
+	{
+		return objects.get(key);
+	}
+
+	/**
+	 * @return the keys of all objects, sorted
+	 */
+	public List<String> getKeys()
+	{
+		ArrayList<String> keys = new ArrayList<String>(objects.keySet());
+		Collections.sort(keys);
+		return keys;
+	}
+
+	public void clear()
+	{
+		objects.clear();
+	}
+}
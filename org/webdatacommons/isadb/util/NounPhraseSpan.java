@@ -0,0 +1,176 @@
+// http://webdatacommons.org/isadb/
+// The WebIsADb and the API are licensed under a Creative Commons Attribution-Non Commercial-Share Alike 3.0 License: http://creativecommons.org/licenses/by-nc-sa/3.0/.
+// Acknowledgements
+// This work was partially funded by the Deutsche Forschungsgemeinschaft within the JOIN-T project (research grant PO 1900/1-1). Part of the computational resources used for this work were provide by an Amazon AWS in Education Grant award.
+// this software is meant to be part of the CommonCrawl framework: http://commoncrawl.org/ to re-build a new WebIsADb from fresh CommonCrawl dumps.
+
+
+package org.webdatacommons.isadb.util;
+
+import java.util.Arrays;
+import java.util.List;
+
+import edu.stanford.nlp.ling.TaggedWord;
+
+/**
+ * Noun phrase as token indices into the tagged word list it was found in, instead of lists of TaggedWords.
+ * The modifiers are kept in output order: the pre-modifiers grow at the front, the post-modifiers at the end,
+ * with the same length limits as NounPhrase. Instances are reset and reused by the NounPhraseChunker, the
+ * text is rendered from the current words of the list.
+ */
+public class NounPhraseSpan {
+
+	private final int maxNPLength;
+	private List<TaggedWord> words;
+	private int core;
+	//pre-modifiers are preModifier[preStart, preModifier.length)
+	private final int[] preModifier;
+	private int preStart;
+	private int[] postModifier;
+	private int postLength;
+
+	public NounPhraseSpan(int maxNPLength)
+	{
+		this.maxNPLength = maxNPLength;
+		this.preModifier = new int[maxNPLength];
+		this.postModifier = new int[maxNPLength];
+	}
+
+	/**
+	 * Starts a new noun phrase
+	 * @param words
+	 * @param core index of the core noun in words
+	 */
+	public void reset(List<TaggedWord> words, int core)
+	{
+		this.words = words;
+		this.core = core;
+		preStart = preModifier.length;
+		postLength = 0;
+	}
+
+	/**
+	 * Same as NounPhrase.addPreModifier: the word is inserted in front, the last one is dropped at maxNPLength words
+	 * @param index
+	 */
+	public void addPreModifier(int index)
+	{
+		preModifier[--preStart] = index;
+		if (getPreModifierCount()==maxNPLength)
+		{
+			System.arraycopy(preModifier, preStart, preModifier, preStart+1, maxNPLength-1);
+			preStart++;
+		}
+	}
+
+	/**
+	 * Same as NounPhrase.addPostModifier: the word is appended, the first pre-modifier is dropped if the noun phrase gets too long
+	 * @param index
+	 */
+	public void addPostModifier(int index)
+	{
+		if (postLength==postModifier.length)
+		{
+			postModifier = Arrays.copyOf(postModifier, postLength*2);
+		}
+		postModifier[postLength++] = index;
+		if (postLength+1+getPreModifierCount()>maxNPLength && preStart<preModifier.length)
+		{
+			preStart++;
+		}
+	}
+
+	public int getCore()
+	{
+		return core;
+	}
+
+	public int getPreModifierCount()
+	{
+		return preModifier.length - preStart;
+	}
+
+	/**
+	 * @param i position in the pre-modifiers
+	 * @return index of the word
+	 */
+	public int getPreModifier(int i)
+	{
+		return preModifier[preStart + i];
+	}
+
+	public void removeFirstPreModifier()
+	{
+		preStart++;
+	}
+
+	public int getPostModifierCount()
+	{
+		return postLength;
+	}
+
+	/**
+	 * @param i position in the post-modifiers
+	 * @return index of the word
+	 */
+	public int getPostModifier(int i)
+	{
+		return postModifier[i];
+	}
+
+	public void removeLastPostModifier()
+	{
+		postLength--;
+	}
+
+	/**
+	 * Appends the words separated by blanks, like NounPhrase.toString
+	 * @param sb
+	 */
+	public void appendText(StringBuilder sb)
+	{
+		append(sb, false);
+	}
+
+	/**
+	 * Appends the tags separated by blanks, like NounPhrase.tagsToString
+	 * @param sb
+	 */
+	public void appendTags(StringBuilder sb)
+	{
+		append(sb, true);
+	}
+
+	private void append(StringBuilder sb, boolean tags)
+	{
+		for (int i=preStart; i<preModifier.length; i++)
+		{
+			append(sb, preModifier[i], tags).append(' ');
+		}
+		append(sb, core, tags);
+		for (int i=0; i<postLength; i++)
+		{
+			append(sb.append(' '), postModifier[i], tags);
+		}
+	}
+
+	private StringBuilder append(StringBuilder sb, int index, boolean tags)
+	{
+		TaggedWord word = words.get(index);
+		return sb.append(tags ? word.tag() : word.word());
+	}
+
+	public String toString()
+	{
+		StringBuilder sb = new StringBuilder();
+		appendText(sb);
+		return sb.toString();
+	}
+
+	public String tagsToString()
+	{
+		StringBuilder sb = new StringBuilder();
+		appendTags(sb);
+		return sb.toString();
+	}
+}
@@ -0,0 +1,382 @@
+// http://webdatacommons.org/isadb/
+// The WebIsADb and the API are licensed under a Creative Commons Attribution-Non Commercial-Share Alike 3.0 License: http://creativecommons.org/licenses/by-nc-sa/3.0/.
+// Acknowledgements
+// This work was partially funded by the Deutsche Forschungsgemeinschaft within the JOIN-T project (research grant PO 1900/1-1). Part of the computational resources used for this work were provide by an Amazon AWS in Education Grant award.
+// this software is meant to be part of the CommonCrawl framework: http://commoncrawl.org/ to re-build a new WebIsADb from fresh CommonCrawl dumps.
+
+package org.webdatacommons.isadb.util;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Channel of the inflated data of a multi-member gzip file, inflated in parallel. A feeder thread reads the compressed
+ * data and cuts it into chunks in front of gzip headers; the chunks are inflated on a thread pool and returned in order.
+ * A header found inside the compressed data of a member cannot be told from a real one without inflating. The chunk
+ * in front of such a false cut ends inside a member, so it is merged with the following chunk(s) and inflated again;
+ * the output is always the same as the output of a serial GzipMemberInflater.
+ */
+public class ParallelGzipChannel implements ReadableByteChannel {
+
+	private static final Chunk END = new Chunk(new byte[0], 0);
+
+	private static class Chunk
+	{
+		final byte[] compressed;
+		final int length;
+		Future<Inflated> inflated;
+
+		Chunk(byte[] compressed, int length)
+		{
+			this.compressed = compressed;
+			this.length = length;
+		}
+	}
+
+	private static class Inflated
+	{
+		byte[] data;
+		int length;
+		long members;
+		//The chunk ends inside a member
+		boolean incomplete;
+		IOException error;
+	}
+
+	private final ReadableByteChannel channel;
+	private final int chunkSize;
+	private final ExecutorService pool;
+	private final BlockingQueue<Chunk> chunks;
+	private final Thread feeder;
+	private final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+
+	private Inflated current;
+	private int currentPos;
+	private boolean finished = false;
+	private boolean open = true;
+
+	private long chunkCount = 0;
+	private long merges = 0;
+	private long members = 0;
+	private long waitTime = 0;
+
+	/**
+	 * @param channel gzip data
+	 * @param threads number of threads inflating chunks
+	 * @param chunkSize minimal number of compressed bytes per chunk
+	 */
+	public ParallelGzipChannel(ReadableByteChannel channel, int threads, int chunkSize)
+	{
+		this.channel = channel;
+		this.chunkSize = Math.max(chunkSize, 1024);
+		this.pool = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+			private int count = 0;
+			@Override
+			public synchronized Thread newThread(Runnable r)
+			{
+				Thread thread = new Thread(r, "isadb-inflate-" + count++);
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		this.chunks = new ArrayBlockingQueue<Chunk>(2 * threads);
+		this.feeder = new Thread(new Runnable() {
+			@Override
+			public void run()
+			{
+				feed();
+			}
+		}, "isadb-inflate-feeder");
+		feeder.setDaemon(true);
+		feeder.start();
+	}
+
+	@Override
+	public int read(ByteBuffer dst) throws IOException
+	{
+		while (current==null || currentPos==current.length)
+		{
+			if (finished)
+			{
+				return -1;
+			}
+			nextChunk();
+		}
+		int n = Math.min(dst.remaining(), current.length - currentPos);
+		dst.put(current.data, currentPos, n);
+		currentPos += n;
+		return n;
+	}
+
+	@Override
+	public boolean isOpen()
+	{
+		return open;
+	}
+
+	/**
+	 * Stops the feeder and the pool; the underlying channel is not closed.
+	 */
+	@Override
+	public void close()
+	{
+		open = false;
+		feeder.interrupt();
+		pool.shutdownNow();
+	}
+
+	/**
+	 * @return number of chunks inflated
+	 */
+	public long getChunks()
+	{
+		return chunkCount;
+	}
+
+	/**
+	 * @return number of chunks which ended inside a member and were inflated again together with the next chunk
+	 */
+	public long getMerges()
+	{
+		return merges;
+	}
+
+	/**
+	 * @return number of gzip members returned so far
+	 */
+	public long getMembers()
+	{
+		return members;
+	}
+
+	/**
+	 * @return time in milliseconds the reader waited for inflated chunks
+	 */
+	public long getWaitTime()
+	{
+		return waitTime;
+	}
+
+	private void nextChunk() throws IOException
+	{
+		Chunk chunk = take();
+		if (chunk==END)
+		{
+			finished = true;
+			current = null;
+			return;
+		}
+		Inflated inflated = get(chunk);
+		while (inflated.incomplete)
+		{
+			//The cut behind this chunk was inside a member: inflate it again with the next chunk
+			Chunk next = take();
+			if (next==END)
+			{
+				throw new EOFException("Unexpected end of gzip member");
+			}
+			next.inflated.cancel(false);
+			byte[] merged = Arrays.copyOf(chunk.compressed, chunk.length + next.length);
+			System.arraycopy(next.compressed, 0, merged, chunk.length, next.length);
+			chunk = new Chunk(merged, merged.length);
+			inflated = inflate(chunk);
+			merges++;
+		}
+		if (inflated.error!=null)
+		{
+			throw inflated.error;
+		}
+		chunkCount++;
+		members += inflated.members;
+		current = inflated;
+		currentPos = 0;
+	}
+
+	private Chunk take() throws IOException
+	{
+		long waitTimer = System.currentTimeMillis();
+		try
+		{
+			Chunk chunk = chunks.take();
+			if (chunk==END && failure.get()!=null)
+			{
+				Throwable t = failure.get();
+				throw t instanceof IOException ? (IOException) t : new IOException(t);
+			}
+			return chunk;
+		}
+		catch (InterruptedException e)
+		{
+			throw new InterruptedIOException("Interrupted while waiting for compressed data");
+		}
+		finally
+		{
+			waitTime += System.currentTimeMillis() - waitTimer;
+		}
+	}
+
+	private Inflated get(Chunk chunk) throws IOException
+	{
+		long waitTimer = System.currentTimeMillis();
+		try
+		{
+			return chunk.inflated.get();
+		}
+		catch (InterruptedException e)
+		{
+			throw new InterruptedIOException("Interrupted while inflating");
+		}
+		catch (ExecutionException e)
+		{
+			throw new IOException(e.getCause());
+		}
+		finally
+		{
+			waitTime += System.currentTimeMillis() - waitTimer;
+		}
+	}
+
+	/**
+	 * Inflates all members of a chunk
+	 */
+	private static Inflated inflate(Chunk chunk)
+	{
+		Inflated inflated = new Inflated();
+		inflated.data = new byte[Math.max(4 * chunk.length, 1024)];
+		GzipMemberInflater inflater = new GzipMemberInflater(new ByteBufferChannel(ByteBuffer.wrap(chunk.compressed, 0, chunk.length)), 1 << 16);
+		try
+		{
+			int n;
+			while ((n = inflater.read(inflated.data, inflated.length, inflated.data.length - inflated.length))>=0)
+			{
+				inflated.length += n;
+				if (inflated.length==inflated.data.length)
+				{
+					inflated.data = Arrays.copyOf(inflated.data, inflated.data.length * 2);
+				}
+			}
+		}
+		catch (EOFException e)
+		{
+			inflated.incomplete = true;
+		}
+		catch (IOException e)
+		{
+			inflated.error = e;
+		}
+		finally
+		{
+			inflated.members = inflater.getMembers();
+			inflater.close();
+		}
+		return inflated;
+	}
+
+	/**
+	 * Reads the compressed data and submits chunks which end in front of a gzip header
+	 */
+	private void feed()
+	{
+		try
+		{
+			byte[] buffer = new byte[2 * chunkSize];
+			int length = 0;
+			boolean end = false;
+			while (!end)
+			{
+				int searchFrom = 0;
+				int cut = -1;
+				while (cut<0)
+				{
+					//Read at least chunkSize bytes behind the search start
+					while (!end && length<searchFrom + chunkSize)
+					{
+						if (length==buffer.length)
+						{
+							buffer = Arrays.copyOf(buffer, buffer.length * 2);
+						}
+						int n = channel.read(ByteBuffer.wrap(buffer, length, buffer.length - length));
+						if (n<0)
+						{
+							end = true;
+						}
+						else
+						{
+							length += n;
+						}
+					}
+					if (end)
+					{
+						cut = length;
+						break;
+					}
+					cut = findLastHeader(buffer, Math.max(searchFrom, 1), length);
+					searchFrom = Math.max(1, length - 3);
+				}
+				if (cut>0)
+				{
+					submit(Arrays.copyOf(buffer, cut), cut);
+					System.arraycopy(buffer, cut, buffer, 0, length - cut);
+					length -= cut;
+				}
+			}
+		}
+		catch (InterruptedException e)
+		{
+			return;
+		}
+		catch (Throwable t)
+		{
+			failure.compareAndSet(null, t);
+		}
+		try
+		{
+			chunks.put(END);
+		}
+		catch (InterruptedException e)
+		{
+			//closed
+		}
+	}
+
+	private void submit(byte[] compressed, int length) throws InterruptedException
+	{
+		final Chunk chunk = new Chunk(compressed, length);
+		chunk.inflated = pool.submit(new Callable<Inflated>() {
+			@Override
+			public Inflated call()
+			{
+				return inflate(chunk);
+			}
+		});
+		chunks.put(chunk);
+	}
+
+	/**
+	 * @return start of the last possible gzip header (magic bytes, deflate, no reserved flags) in data[from, to), -1 if there is none
+	 */
+	private static int findLastHeader(byte[] data, int from, int to)
+	{
+		for (int i=to-4; i>=from; i--)
+		{
+			if (data[i]==(byte) 0x1f && data[i+1]==(byte) 0x8b && data[i+2]==8 && (data[i+3] & 0xe0)==0)
+			{
+				return i;
+			}
+		}
+		return -1;
+	}
+}
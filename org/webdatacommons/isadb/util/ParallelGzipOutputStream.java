@@ -0,0 +1,386 @@
+// http://webdatacommons.org/isadb/
+// The WebIsADb and the API are licensed under a Creative Commons Attribution-Non Commercial-Share Alike 3.0 License: http://creativecommons.org/licenses/by-nc-sa/3.0/.
+// Acknowledgements
+// This work was partially funded by the Deutsche Forschungsgemeinschaft within the JOIN-T project (research grant PO 1900/1-1). Part of the computational resources used for this work were provide by an Amazon AWS in Education Grant award.
+// this software is meant to be part of the CommonCrawl framework: http://commoncrawl.org/ to re-build a new WebIsADb from fresh CommonCrawl dumps.
+
+
+package org.webdatacommons.isadb.util;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Gzip OutputStream which compresses blocks of the data in parallel. Every block becomes an own gzip member,
+ * so the output is a multi-member gzip file which can be read by gunzip and GZIPInputStream. The blocks are
+ * compressed on a thread pool and written in order by a writer thread; the caller only waits if more blocks are
+ * pending than threads are available.
+ */
+public class ParallelGzipOutputStream extends OutputStream {
+
+	private static final byte[] HEADER = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, 0};
+
+	//Marks the end of the blocks; it is only compared by identity and never run
+	private static final Future<byte[]> END = new FutureTask<byte[]>(new Callable<byte[]>() {
+		@Override
+		public byte[] call()
+		{
+			return null;
+		}
+	});
+
+	private final OutputStream out;
+	private final int threads;
+	private final int blockSize;
+	private final int level;
+	private final ExecutorService pool;
+	private final BlockingQueue<Future<byte[]>> pending;
+	private final Thread writer;
+	private volatile IOException error;
+
+	private byte[] block;
+	private int blockLength = 0;
+	private boolean closed = false;
+
+	private long blocks = 0;
+	//Guarded by this
+	private long written = 0;
+	private volatile long compressedBytes = 0;
+	private long waitTime = 0;
+
+	/**
+	 * @param out receives the gzip members; it is closed by close()
+	 * @param threads number of threads compressing blocks
+	 * @param blockSize number of uncompressed bytes per gzip member
+	 * @param level compression level of the Deflater, -1 for the default level
+	 */
+	public ParallelGzipOutputStream(OutputStream out, int threads, int blockSize, int level)
+	{
+		this.out = out;
+		this.threads = threads;
+		this.blockSize = Math.max(blockSize, 1024);
+		this.level = level;
+		this.block = new byte[this.blockSize];
+		this.pool = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+			private int count = 0;
+			@Override
+			public synchronized Thread newThread(Runnable r)
+			{
+				Thread thread = new Thread(r, "isadb-deflate-" + count++);
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		this.pending = new ArrayBlockingQueue<Future<byte[]>>(2 * threads);
+		this.writer = new Thread(new Runnable() {
+			@Override
+			public void run()
+			{
+				writeBlocks();
+			}
+		}, "isadb-deflate-writer");
+		writer.setDaemon(true);
+		writer.start();
+	}
+
+	@Override
+	public void write(int b) throws IOException
+	{
+		write(new byte[] {(byte) b}, 0, 1);
+	}
+
+	@Override
+	public void write(byte[] data, int off, int len) throws IOException
+	{
+		checkError();
+		if (closed)
+		{
+			throw new IOException("Stream closed");
+		}
+		while (len>0)
+		{
+			int n = Math.min(len, blockSize - blockLength);
+			System.arraycopy(data, off, block, blockLength, n);
+			blockLength += n;
+			off += n;
+			len -= n;
+			if (blockLength==blockSize)
+			{
+				submitBlock();
+			}
+		}
+	}
+
+	/**
+	 * Compresses the data written so far as own member and waits until it is written to the underlying stream
+	 */
+	@Override
+	public void flush() throws IOException
+	{
+		checkError();
+		if (closed)
+		{
+			return;
+		}
+		if (blockLength>0)
+		{
+			submitBlock();
+		}
+		long waitTimer = System.currentTimeMillis();
+		try
+		{
+			synchronized (this)
+			{
+				while (written<blocks)
+				{
+					wait();
+				}
+			}
+		}
+		catch (InterruptedException e)
+		{
+			throw new InterruptedIOException("Interrupted while flushing");
+		}
+		finally
+		{
+			waitTime += System.currentTimeMillis() - waitTimer;
+		}
+		checkError();
+		out.flush();
+	}
+
+	@Override
+	public void close() throws IOException
+	{
+		if (closed)
+		{
+			return;
+		}
+		boolean complete = false;
+		try
+		{
+			//An empty stream still needs one (empty) member
+			if (blockLength>0 || blocks==0)
+			{
+				submitBlock();
+			}
+			pending.put(END);
+			writer.join();
+			complete = error==null;
+		}
+		catch (InterruptedException e)
+		{
+			throw new InterruptedIOException("Interrupted while closing");
+		}
+		finally
+		{
+			//Only a complete stream is stored, truncated output is dropped
+			if (complete)
+			{
+				closed = true;
+				pool.shutdownNow();
+				out.close();
+			}
+			else
+			{
+				abort();
+			}
+		}
+		checkError();
+	}
+
+	/**
+	 * Stops the compression without writing the pending blocks and aborts the underlying stream (see StorageOutputStream.abort)
+	 */
+	public void abort()
+	{
+		if (closed)
+		{
+			return;
+		}
+		closed = true;
+		pool.shutdownNow();
+		writer.interrupt();
+		try
+		{
+			writer.join();
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+		}
+		StorageOutputStream.abort(out);
+	}
+
+	public int getThreads()
+	{
+		return threads;
+	}
+
+	/**
+	 * @return number of gzip members written
+	 */
+	public long getBlocks()
+	{
+		return blocks;
+	}
+
+	/**
+	 * @return number of compressed bytes written so far
+	 */
+	public long getCompressedBytes()
+	{
+		return compressedBytes;
+	}
+
+	/**
+	 * @return time in milliseconds the caller waited for the compression
+	 */
+	public long getWaitTime()
+	{
+		return waitTime;
+	}
+
+	private void submitBlock() throws IOException
+	{
+		final byte[] data = block;
+		final int length = blockLength;
+		Future<byte[]> compressed = pool.submit(new Callable<byte[]>() {
+			@Override
+			public byte[] call()
+			{
+				return compress(data, length, level);
+			}
+		});
+		long waitTimer = System.currentTimeMillis();
+		try
+		{
+			pending.put(compressed);
+		}
+		catch (InterruptedException e)
+		{
+			throw new InterruptedIOException("Interrupted while compressing");
+		}
+		finally
+		{
+			waitTime += System.currentTimeMillis() - waitTimer;
+		}
+		blocks++;
+		block = new byte[blockSize];
+		blockLength = 0;
+	}
+
+	private void checkError() throws IOException
+	{
+		if (error!=null)
+		{
+			throw error;
+		}
+	}
+
+	/**
+	 * Writes the compressed blocks in order; after an error the remaining blocks are only discarded
+	 */
+	private void writeBlocks()
+	{
+		while (true)
+		{
+			Future<byte[]> next;
+			try
+			{
+				next = pending.take();
+			}
+			catch (InterruptedException e)
+			{
+				return;
+			}
+			if (next==END)
+			{
+				return;
+			}
+			try
+			{
+				byte[] compressed = next.get();
+				if (error==null)
+				{
+					out.write(compressed);
+					compressedBytes += compressed.length;
+				}
+			}
+			catch (InterruptedException e)
+			{
+				return;
+			}
+			catch (ExecutionException e)
+			{
+				error = new IOException(e.getCause());
+			}
+			catch (IOException e)
+			{
+				error = e;
+			}
+			finally
+			{
+				synchronized (this)
+				{
+					written++;
+					notifyAll();
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return data[0, length) as a complete gzip member
+	 */
+	private static byte[] compress(byte[] data, int length, int level)
+	{
+		Deflater deflater = new Deflater(level, true);
+		try
+		{
+			deflater.setInput(data, 0, length);
+			deflater.finish();
+			byte[] member = Arrays.copyOf(HEADER, Math.max(length + length / 8 + 64, 1024));
+			int memberLength = HEADER.length;
+			while (!deflater.finished())
+			{
+				if (memberLength==member.length)
+				{
+					member = Arrays.copyOf(member, member.length * 2);
+				}
+				memberLength += deflater.deflate(member, memberLength, member.length - memberLength);
+			}
+			CRC32 crc = new CRC32();
+			crc.update(data, 0, length);
+			member = Arrays.copyOf(member, memberLength + 8);
+			writeInt(member, memberLength, (int) crc.getValue());
+			writeInt(member, memberLength + 4, length);
+			return member;
+		}
+		finally
+		{
+			deflater.end();
+		}
+	}
+
+	private static void writeInt(byte[] data, int pos, int value)
+	{
+		data[pos] = (byte) value;
+		data[pos+1] = (byte) (value >>> 8);
+		data[pos+2] = (byte) (value >>> 16);
+		data[pos+3] = (byte) (value >>> 24);
+	}
+}
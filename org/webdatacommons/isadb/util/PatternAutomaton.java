@@ -0,0 +1,401 @@
+// http://webdatacommons.org/isadb/
+// The WebIsADb and the API are licensed under a Creative Commons Attribution-Non Commercial-Share Alike 3.0 License: http://creativecommons.org/licenses/by-nc-sa/3.0/.
+// Acknowledgements
+// This work was partially funded by the Deutsche Forschungsgemeinschaft within the JOIN-T project (research grant PO 1900/1-1). Part of the computational resources used for this work were provide by an Amazon AWS in Education Grant award.
+// this software is meant to be part of the CommonCrawl framework: http://commoncrawl.org/ to re-build a new WebIsADb from fresh CommonCrawl dumps.
+
+package org.webdatacommons.isadb.util;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * Aho-Corasick automaton over the literal anchors of a list of CustomPatterns.
+ * One pass over a sentence marks every pattern whose anchor occurs in it; only these candidates
+ * have to be checked with their full regex. The anchor of a pattern is a literal part of its regex
+ * which every match has to contain, so skipping the other patterns never changes the result.
+ * Whitespace characters (everything matched by \s) are folded into one symbol.
+ */
+public class PatternAutomaton {
+
+	private static final String WHITESPACE = " \t\n\u000B\f\r";
+
+	private final int patternCount;
+	private final int words;
+	private final String[] anchors;
+	private final long[] alwaysCandidates;
+
+	//Symbol classes; class 0 is used for all characters which do not occur in any anchor
+	private final int[] asciiClass = new int[128];
+	private final HashMap<Character, Integer> otherClass = new HashMap<Character, Integer>();
+	private int classCount;
+
+	//Complete transition table (state*classCount+class) and the candidate bits reached in each state
+	private int[] delta;
+	private long[] output;
+	private boolean[] hasOutput;
+
+	public PatternAutomaton(List<CustomPattern> patterns)
+	{
+		patternCount = patterns.size();
+		words = (patternCount + 63) / 64;
+		anchors = new String[patternCount];
+		alwaysCandidates = new long[words];
+
+		classCount = 1;
+		for (int i=0; i<patternCount; i++)
+		{
+			anchors[i] = requiredLiteral(patterns.get(i).regex);
+			if (anchors[i]==null)
+			{
+				alwaysCandidates[i >>> 6] |= 1L << i;
+				continue;
+			}
+			for (int j=0; j<anchors[i].length(); j++)
+			{
+				addSymbol(anchors[i].charAt(j));
+			}
+		}
+		for (int j=0; j<WHITESPACE.length(); j++)
+		{
+			if (WHITESPACE.charAt(j)<128) asciiClass[WHITESPACE.charAt(j)] = asciiClass[' '];
+		}
+		build();
+	}
+
+	public long[] newCandidateSet()
+	{
+		return new long[words];
+	}
+
+	public static boolean isCandidate(long[] candidates, int patternIndex)
+	{
+		return (candidates[patternIndex >>> 6] & (1L << patternIndex)) != 0;
+	}
+
+	/**
+	 * @param patternIndex
+	 * @return the literal which is searched for the pattern, null if the pattern is always checked
+	 */
+	public String getAnchor(int patternIndex)
+	{
+		return anchors[patternIndex];
+	}
+
+	/**
+	 * Marks all patterns which can match inside the text in candidates. Patterns without anchor are always marked.
+	 * @param text
+	 * @param candidates a set created by newCandidateSet(); it is overwritten
+	 */
+	public void findCandidates(CharSequence text, long[] candidates)
+	{
+		System.arraycopy(alwaysCandidates, 0, candidates, 0, words);
+		int state = 0;
+		for (int i=0; i<text.length(); i++)
+		{
+			state = delta[state*classCount + symbolClass(text.charAt(i))];
+			if (hasOutput[state])
+			{
+				for (int w=0; w<words; w++)
+				{
+					candidates[w] |= output[state*words + w];
+				}
+			}
+		}
+	}
+
+	private int symbolClass(char c)
+	{
+		if (c<128)
+		{
+			return asciiClass[c];
+		}
+		if (otherClass.isEmpty())
+		{
+			return 0;
+		}
+		Integer cls = otherClass.get(c);
+		return cls==null ? 0 : cls;
+	}
+
+	private void addSymbol(char c)
+	{
+		if (symbolClass(c)!=0)
+		{
+			return;
+		}
+		if (c<128)
+		{
+			asciiClass[c] = classCount++;
+		}
+		else
+		{
+			otherClass.put(c, classCount++);
+		}
+	}
+
+	private void build()
+	{
+		//Build the keyword trie
+		ArrayList<int[]> trie = new ArrayList<int[]>();
+		ArrayList<long[]> outputs = new ArrayList<long[]>();
+		trie.add(new int[classCount]);
+		outputs.add(new long[words]);
+		for (int i=0; i<patternCount; i++)
+		{
+			if (anchors[i]==null) continue;
+			int state = 0;
+			for (int j=0; j<anchors[i].length(); j++)
+			{
+				int cls = symbolClass(anchors[i].charAt(j));
+				if (trie.get(state)[cls]==0)
+				{
+					trie.get(state)[cls] = trie.size();
+					trie.add(new int[classCount]);
+					outputs.add(new long[words]);
+				}
+				state = trie.get(state)[cls];
+			}
+			outputs.get(state)[i >>> 6] |= 1L << i;
+		}
+
+		//Breadth-first computation of the failure links, turning the trie into a complete transition table
+		int states = trie.size();
+		delta = new int[states*classCount];
+		output = new long[states*words];
+		hasOutput = new boolean[states];
+		int[] fail = new int[states];
+		LinkedList<Integer> queue = new LinkedList<Integer>();
+		for (int cls=1; cls<classCount; cls++)
+		{
+			int child = trie.get(0)[cls];
+			delta[cls] = child;
+			if (child!=0) queue.add(child);
+		}
+		System.arraycopy(outputs.get(0), 0, output, 0, words);
+		while (!queue.isEmpty())
+		{
+			int state = queue.removeFirst();
+			long[] own = outputs.get(state);
+			for (int w=0; w<words; w++)
+			{
+				output[state*words + w] = own[w] | output[fail[state]*words + w];
+				hasOutput[state] |= output[state*words + w]!=0;
+			}
+			for (int cls=0; cls<classCount; cls++)
+			{
+				int child = trie.get(state)[cls];
+				if (child!=0)
+				{
+					fail[child] = delta[fail[state]*classCount + cls];
+					delta[state*classCount + cls] = child;
+					queue.add(child);
+				}
+				else
+				{
+					delta[state*classCount + cls] = delta[fail[state]*classCount + cls];
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns the longest run of literal characters which has to be part of every match of the regex.
+	 * Only top-level atoms are considered; \s is returned as a blank. If the regex uses constructs which
+	 * are not understood (e.g. top-level alternations or case-insensitive flags) null is returned.
+	 * @param regex
+	 * @return the literal or null
+	 */
+	public static String requiredLiteral(String regex)
+	{
+		if (regex==null)
+		{
+			return null;
+		}
+		String best = "";
+		StringBuilder run = new StringBuilder();
+		int n = regex.length();
+		int i = 0;
+		while (i<n)
+		{
+			char c = regex.charAt(i);
+			int literal = -1;
+			int atomEnd = i+1;
+			if (c=='\\')
+			{
+				if (i+1>=n) return null;
+				char e = regex.charAt(i+1);
+				atomEnd = i+2;
+				if (e=='s')
+				{
+					literal = ' ';
+				}
+				else if (e=='p' || e=='P')
+				{
+					if (i+2<n && regex.charAt(i+2)=='{')
+					{
+						atomEnd = regex.indexOf('}', i+2)+1;
+						if (atomEnd==0) return null;
+					}
+					else
+					{
+						atomEnd = i+3;
+					}
+				}
+				else if (e=='u')
+				{
+					if (i+6>n) return null;
+					try
+					{
+						literal = Integer.parseInt(regex.substring(i+2, i+6), 16);
+					}
+					catch (NumberFormatException ex)
+					{
+						return null;
+					}
+					atomEnd = i+6;
+				}
+				else if ("xc0kNQE".indexOf(e)!=-1)
+				{
+					return null;
+				}
+				else if (!Character.isLetterOrDigit(e))
+				{
+					literal = e;
+				}
+			}
+			else if (c=='[')
+			{
+				atomEnd = skipClass(regex, i);
+			}
+			else if (c=='(')
+			{
+				if (regex.startsWith("(?", i) && isFlagGroup(regex, i)) return null;
+				atomEnd = skipGroup(regex, i);
+			}
+			else if (c=='|' || c==')' || c=='*' || c=='+' || c=='?' || c=='{')
+			{
+				return null;
+			}
+			else if (c!='.' && c!='^' && c!='$')
+			{
+				literal = c;
+			}
+			if (atomEnd<=i || atomEnd>n) return null;
+
+			//Quantifier of the atom
+			boolean optional = false;
+			boolean repeated = false;
+			int q = atomEnd;
+			if (q<n)
+			{
+				char qc = regex.charAt(q);
+				if (qc=='?' || qc=='*')
+				{
+					optional = true;
+					q++;
+				}
+				else if (qc=='+')
+				{
+					repeated = true;
+					q++;
+				}
+				else if (qc=='{')
+				{
+					int close = regex.indexOf('}', q);
+					if (close==-1) return null;
+					String min = regex.substring(q+1, close);
+					if (min.indexOf(',')!=-1) min = min.substring(0, min.indexOf(','));
+					optional = min.trim().equals("0");
+					repeated = true;
+					q = close+1;
+				}
+				if (q>atomEnd && q<n && (regex.charAt(q)=='?' || regex.charAt(q)=='+')) q++;
+			}
+
+			if (literal>=0 && !optional)
+			{
+				run.append((char) literal);
+			}
+			if (literal<0 || optional || repeated)
+			{
+				if (run.length()>best.length()) best = run.toString();
+				run.setLength(0);
+			}
+			i = q;
+		}
+		if (run.length()>best.length()) best = run.toString();
+		return best.length()>0 ? best : null;
+	}
+
+	private static boolean isFlagGroup(String regex, int start)
+	{
+		for (int j=start+2; j<regex.length(); j++)
+		{
+			char c = regex.charAt(j);
+			if (c==')' || c==':') return j>start+2 && (regex.substring(start+2, j).indexOf('i')!=-1 || regex.substring(start+2, j).indexOf('x')!=-1);
+			if ("idmsuxU-".indexOf(c)==-1) return false;
+		}
+		return false;
+	}
+
+	private static int skipClass(String regex, int start)
+	{
+		int j = start+1;
+		if (j<regex.length() && regex.charAt(j)=='^') j++;
+		if (j<regex.length() && regex.charAt(j)==']') j++;
+		while (j<regex.length())
+		{
+			char c = regex.charAt(j);
+			if (c=='\\')
+			{
+				j+=2;
+			}
+			else if (c=='[')
+			{
+				j = skipClass(regex, j);
+				if (j==-1) return -1;
+			}
+			else if (c==']')
+			{
+				return j+1;
+			}
+			else
+			{
+				j++;
+			}
+		}
+		return -1;
+	}
+
+	private static int skipGroup(String regex, int start)
+	{
+		int depth = 0;
+		int j = start;
+		while (j<regex.length())
+		{
+			char c = regex.charAt(j);
+			if (c=='\\')
+			{
+				j+=2;
+				continue;
+			}
+			if (c=='[')
+			{
+				j = skipClass(regex, j);
+				if (j==-1) return -1;
+				continue;
+			}
+			if (c=='(') depth++;
+			if (c==')')
+			{
+				depth--;
+				if (depth==0) return j+1;
+			}
+			j++;
+		}
+		return -1;
+	}
+}
@@ -0,0 +1,40 @@
+// http://webdatacommons.org/isadb/
+// The WebIsADb and the API are licensed under a Creative Commons Attribution-Non Commercial-Share Alike 3.0 License: http://creativecommons.org/licenses/by-nc-sa/3.0/.
+// Acknowledgements
+// This work was partially funded by the Deutsche Forschungsgemeinschaft within the JOIN-T project (research grant PO 1900/1-1). Part of the computational resources used for this work were provide by an Amazon AWS in Education Grant award.
+// this software is meant to be part of the CommonCrawl framework: http://commoncrawl.org/ to re-build a new WebIsADb from fresh CommonCrawl dumps.
+
+
+package org.webdatacommons.isadb.util;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Storage of the extracted files: S3 (S3ResultStorage), a local directory (LocalResultStorage) or the memory
+ * (MemoryResultStorage). Implementations can be used by several threads.
+ */
+public interface ResultStorage {
+
+	/**
+	 * @param key
+	 * @return stream of a new object, which is stored when the stream is closed; S3 uploads parts while it is written
+	 * @throws IOException
+	 */
+	public StorageOutputStream create(String key) throws IOException;
+
+	/**
+	 * Stores a complete file
+	 * @param key
+	 * @param file
+	 * @throws IOException
+	 */
+	public void put(String key, File file) throws IOException;
+
+	/**
+	 * Removes a stored object, a missing object is ignored
+	 * @param key
+	 * @throws IOException
+	 */
+	public void delete(String key) throws IOException;
+}
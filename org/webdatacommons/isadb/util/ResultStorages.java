@@ -0,0 +1,39 @@
+// http://webdatacommons.org/isadb/
+// The WebIsADb and the API are licensed under a Creative Commons Attribution-Non Commercial-Share Alike 3.0 License: http://creativecommons.org/licenses/by-nc-sa/3.0/.
+// Acknowledgements
+// This work was partially funded by the Deutsche Forschungsgemeinschaft within the JOIN-T project (research grant PO 1900/1-1). Part of the computational resources used for this work were provide by an Amazon AWS in Education Grant award.
+// this software is meant to be part of the CommonCrawl framework: http://commoncrawl.org/ to re-build a new WebIsADb from fresh CommonCrawl dumps.
+
+
+package org.webdatacommons.isadb.util;
+
+import java.io.File;
+
+/**
+ * Creation of the ResultStorages which do not need the framework; S3ResultStorage is created by the processors
+ * with the S3Service and result bucket of the ProcessingNode.
+ */
+public class ResultStorages {
+
+	public static final String S3 = "s3";
+	public static final String LOCAL = "local";
+	public static final String MEMORY = "memory";
+
+	/**
+	 * @param mode LOCAL or MEMORY
+	 * @param directory root directory of the local storage
+	 * @return the storage; MEMORY returns the storage shared by the JVM
+	 */
+	public static ResultStorage create(String mode, File directory)
+	{
+		if (LOCAL.equals(mode))
+		{
+			return new LocalResultStorage(directory);
+		}
+		if (MEMORY.equals(mode))
+		{
+			return MemoryResultStorage.get();
+		}
+		throw new IllegalArgumentException("Unknown result storage: " + mode);
+	}
+}
@@ -0,0 +1,284 @@
+// http://webdatacommons.org/isadb/
+// The WebIsADb and the API are licensed under a Creative Commons Attribution-Non Commercial-Share Alike 3.0 License: http://creativecommons.org/licenses/by-nc-sa/3.0/.
+// Acknowledgements
+// This work was partially funded by the Deutsche Forschungsgemeinschaft within the JOIN-T project (research grant PO 1900/1-1). Part of the computational resources used for this work were provide by an Amazon AWS in Education Grant award.
+// this software is meant to be part of the CommonCrawl framework: http://commoncrawl.org/ to re-build a new WebIsADb from fresh CommonCrawl dumps.
+
+
+package org.webdatacommons.isadb.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+import org.apache.log4j.Logger;
+import org.jets3t.service.S3Service;
+import org.jets3t.service.S3ServiceException;
+import org.jets3t.service.ServiceException;
+import org.jets3t.service.model.MultipartPart;
+import org.jets3t.service.model.MultipartUpload;
+import org.jets3t.service.model.S3Object;
+
+/**
+ * Stores the objects in an S3 bucket. The stream of create() uploads every full part of a multipart upload in the
+ * background while the rest of the object is still written, so the upload overlaps with the extraction and no temporary
+ * file is needed. Objects smaller than one part are stored with a single put.
+ */
+public class S3ResultStorage implements ResultStorage {
+
+	private static final Logger log = Logger.getLogger(S3ResultStorage.class);
+
+	//S3 rejects smaller parts except the last one
+	public static final int MIN_PART_SIZE = 5 << 20;
+
+	private static final ExecutorService uploadPool = Executors.newCachedThreadPool(new ThreadFactory() {
+		@Override
+		public Thread newThread(Runnable r)
+		{
+			Thread thread = new Thread(r, "s3-upload");
+			thread.setDaemon(true);
+			return thread;
+		}
+	});
+
+	private final S3Service service;
+	private final String bucket;
+	private final int partSize;
+	private final int parallelParts;
+
+	/**
+	 * @param service
+	 * @param bucket
+	 * @param partSize number of bytes per part, at least MIN_PART_SIZE
+	 * @param parallelParts number of parts of one object which are uploaded at the same time; writing blocks if all are busy
+	 */
+	public S3ResultStorage(S3Service service, String bucket, int partSize, int parallelParts)
+	{
+		this.service = service;
+		this.bucket = bucket;
+		this.partSize = Math.max(MIN_PART_SIZE, partSize);
+		this.parallelParts = Math.max(1, parallelParts);
+	}
+
+	@Override
+	public StorageOutputStream create(String key)
+	{
+		return new UploadStream(key);
+	}
+
+	@Override
+	public void put(String key, File file) throws IOException
+	{
+		try
+		{
+			S3Object object = new S3Object(file);
+			object.setKey(key);
+			service.putObject(bucket, object);
+		}
+		catch (S3ServiceException | NoSuchAlgorithmException e)
+		{
+			throw new IOException("Cannot upload " + key, e);
+		}
+	}
+
+	@Override
+	public void delete(String key) throws IOException
+	{
+		try
+		{
+			service.deleteObject(bucket, key);
+		}
+		catch (ServiceException e)
+		{
+			throw new IOException("Cannot delete " + key, e);
+		}
+	}
+
+	private static S3Object newObject(String key, byte[] data) throws IOException
+	{
+		try
+		{
+			return new S3Object(key, data);
+		}
+		catch (NoSuchAlgorithmException e)
+		{
+			throw new IOException(e);
+		}
+	}
+
+	private class UploadStream extends StorageOutputStream {
+
+		private final String key;
+		private byte[] buffer = new byte[1 << 16];
+		private int length = 0;
+		private MultipartUpload upload = null;
+		private final List<Future<MultipartPart>> parts = new ArrayList<Future<MultipartPart>>();
+		private int finishedParts = 0;
+		private boolean closed = false;
+		private boolean aborted = false;
+
+		public UploadStream(String key)
+		{
+			this.key = key;
+		}
+
+		@Override
+		public void write(int b) throws IOException
+		{
+			if (!checkOpen()) return;
+			if (length==buffer.length) grow(length+1);
+			buffer[length++] = (byte) b;
+		}
+
+		@Override
+		public void write(byte[] data, int off, int len) throws IOException
+		{
+			if (!checkOpen()) return;
+			while (len>0)
+			{
+				if (length==buffer.length) grow(length+1);
+				int n = Math.min(len, buffer.length - length);
+				System.arraycopy(data, off, buffer, length, n);
+				length += n;
+				off += n;
+				len -= n;
+			}
+		}
+
+		/**
+		 * @return false, if the stream was aborted and the write is ignored
+		 * @throws IOException if the object is already stored
+		 */
+		private boolean checkOpen() throws IOException
+		{
+			if (aborted)
+			{
+				return false;
+			}
+			if (closed)
+			{
+				throw new IOException("Stream of " + key + " is closed");
+			}
+			return true;
+		}
+
+		private void grow(int required) throws IOException
+		{
+			if (required>partSize)
+			{
+				uploadPart(false);
+			}
+			else
+			{
+				buffer = Arrays.copyOf(buffer, Math.min(partSize, Math.max(required, buffer.length*2)));
+			}
+		}
+
+		/**
+		 * Hands the buffer to the upload pool and waits for the oldest part if too many are in flight
+		 * @param last true, if no buffer for a further part is needed
+		 */
+		private void uploadPart(boolean last) throws IOException
+		{
+			try
+			{
+				if (upload==null)
+				{
+					upload = service.multipartStartUpload(bucket, new S3Object(key));
+				}
+				final S3Object part = newObject(key, length==buffer.length ? buffer : Arrays.copyOf(buffer, length));
+				final int partNumber = parts.size() + 1;
+				parts.add(uploadPool.submit(new Callable<MultipartPart>() {
+					@Override
+					public MultipartPart call() throws S3ServiceException
+					{
+						return service.multipartUploadPart(upload, partNumber, part);
+					}
+				}));
+				buffer = last ? null : new byte[buffer.length];
+				length = 0;
+				while (parts.size() - finishedParts >= parallelParts)
+				{
+					parts.get(finishedParts++).get();
+				}
+			}
+			catch (S3ServiceException | InterruptedException | ExecutionException e)
+			{
+				abort();
+				throw new IOException("Cannot upload " + key, e);
+			}
+		}
+
+		@Override
+		public void close() throws IOException
+		{
+			if (closed)
+			{
+				return;
+			}
+			try
+			{
+				if (upload==null)
+				{
+					service.putObject(bucket, newObject(key, Arrays.copyOf(buffer, length)));
+				}
+				else
+				{
+					if (length>0)
+					{
+						uploadPart(true);
+					}
+					List<MultipartPart> uploaded = new ArrayList<MultipartPart>(parts.size());
+					for (Future<MultipartPart> part : parts)
+					{
+						uploaded.add(part.get());
+					}
+					service.multipartCompleteUpload(upload, uploaded);
+				}
+				closed = true;
+				buffer = null;
+			}
+			catch (S3ServiceException | InterruptedException | ExecutionException e)
+			{
+				abort();
+				throw new IOException("Cannot upload " + key, e);
+			}
+		}
+
+		@Override
+		public void abort()
+		{
+			if (closed)
+			{
+				return;
+			}
+			closed = true;
+			aborted = true;
+			buffer = null;
+			if (upload!=null)
+			{
+				for (Future<MultipartPart> part : parts)
+				{
+					part.cancel(true);
+				}
+				try
+				{
+					service.multipartAbortUpload(upload);
+				}
+				catch (S3ServiceException e)
+				{
+					log.warn("Cannot abort the upload of " + key, e);
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,189 @@
+// http://webdatacommons.org/isadb/
+// The WebIsADb and the API are licensed under a Creative Commons Attribution-Non Commercial-Share Alike 3.0 License: http://creativecommons.org/licenses/by-nc-sa/3.0/.
+// Acknowledgements
+// This work was partially funded by the Deutsche Forschungsgemeinschaft within the JOIN-T project (research grant PO 1900/1-1). Part of the computational resources used for this work were provide by an Amazon AWS in Education Grant award.
+// this software is meant to be part of the CommonCrawl framework: http://commoncrawl.org/ to re-build a new WebIsADb from fresh CommonCrawl dumps.
+
+package org.webdatacommons.isadb.util;
+
+/**
+ * Splits a line into sentences in a single pass without creating strings. The rules are the ones of the regex splitter
+ * used before: a sentence ends at a whitespace character which follows [!.?] (optionally followed by a quotation mark) and
+ * precedes an upper case letter (optionally preceded by a quotation mark). If the text in front of the split ends with one
+ * of the abbreviations plus a dot, the split is dropped and both parts stay one sentence.
+ * The sentences are returned as [start, end) ranges into the line; merged sentences keep the whitespace of the line.
+ * An instance reuses its range arrays and must only be used by one thread.
+ */
+public class SentenceSegmenter {
+
+	private static final String QUOTES = "\u0027\u2018\u2019\u201A\u201B\u201C\u201D\u201E\u201F\"";
+
+	//Trie over the reversed abbreviations (including the dot); symbol 0 is used for all characters not occurring in them
+	private final int[] symbols = new int[128];
+	private int symbolCount;
+	private int[] children;
+	private boolean[] terminal;
+
+	private int[] starts = new int[16];
+	private int[] ends = new int[16];
+	private int count;
+
+	/**
+	 * @param abbreviations words which are usually followed by a dot without ending the sentence, e.g. "Dr"
+	 */
+	public SentenceSegmenter(String[] abbreviations)
+	{
+		symbolCount = 1;
+		int maxNodes = 1;
+		for (String abbreviation : abbreviations)
+		{
+			String word = abbreviation + ".";
+			for (int i=0; i<word.length(); i++)
+			{
+				char c = word.charAt(i);
+				if (c>=128)
+				{
+					throw new IllegalArgumentException("Only ASCII abbreviations are supported: " + abbreviation);
+				}
+				if (symbols[c]==0)
+				{
+					symbols[c] = symbolCount++;
+				}
+			}
+			maxNodes += word.length();
+		}
+		children = new int[maxNodes*symbolCount];
+		terminal = new boolean[maxNodes];
+		int nodes = 1;
+		for (String abbreviation : abbreviations)
+		{
+			String word = abbreviation + ".";
+			int node = 0;
+			for (int i=word.length()-1; i>=0; i--)
+			{
+				int index = node*symbolCount + symbols[word.charAt(i)];
+				if (children[index]==0)
+				{
+					children[index] = nodes++;
+				}
+				node = children[index];
+			}
+			terminal[node] = true;
+		}
+	}
+
+	/**
+	 * Splits the text into sentences, which can be read with getStart(i) and getEnd(i) afterwards
+	 * @param text
+	 * @return number of sentences; at least one, even for an empty text
+	 */
+	public int segment(CharSequence text)
+	{
+		count = 0;
+		int sentenceStart = 0;
+		int length = text.length();
+		for (int p=1; p<length-1; p++)
+		{
+			if (isSplit(text, p) && !endsWithAbbreviation(text, sentenceStart, p))
+			{
+				add(sentenceStart, p);
+				sentenceStart = p+1;
+			}
+		}
+		add(sentenceStart, length);
+		return count;
+	}
+
+	public int getStart(int sentence)
+	{
+		return starts[sentence];
+	}
+
+	public int getEnd(int sentence)
+	{
+		return ends[sentence];
+	}
+
+	private boolean isSplit(CharSequence text, int p)
+	{
+		if (!isWhitespace(text.charAt(p)))
+		{
+			return false;
+		}
+		char before = text.charAt(p-1);
+		if (!isSentenceEnd(before) && !(isQuote(before) && p>=2 && isSentenceEnd(text.charAt(p-2))))
+		{
+			return false;
+		}
+		int next = p+1;
+		if (isQuote(text.charAt(next)))
+		{
+			next++;
+		}
+		return next<text.length() && isUpperCase(text, next);
+	}
+
+	/**
+	 * @return true, if the text between start and end ends with an abbreviation followed by a dot
+	 */
+	private boolean endsWithAbbreviation(CharSequence text, int start, int end)
+	{
+		int node = 0;
+		for (int i=end-1; i>=start; i--)
+		{
+			char c = text.charAt(i);
+			if (c>=128 || symbols[c]==0)
+			{
+				return false;
+			}
+			node = children[node*symbolCount + symbols[c]];
+			if (node==0)
+			{
+				return false;
+			}
+			if (terminal[node])
+			{
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private void add(int start, int end)
+	{
+		if (count==starts.length)
+		{
+			int[] newStarts = new int[count*2];
+			int[] newEnds = new int[count*2];
+			System.arraycopy(starts, 0, newStarts, 0, count);
+			System.arraycopy(ends, 0, newEnds, 0, count);
+			starts = newStarts;
+			ends = newEnds;
+		}
+		starts[count] = start;
+		ends[count] = end;
+		count++;
+	}
+
+	private static boolean isSentenceEnd(char c)
+	{
+		return c=='.' || c=='!' || c=='?';
+	}
+
+	private static boolean isQuote(char c)
+	{
+		return QUOTES.indexOf(c)!=-1;
+	}
+
+	//Whitespace as matched by \s
+	private static boolean isWhitespace(char c)
+	{
+		return c==' ' || c=='\t' || c=='\n' || c=='\u000B' || c=='\f' || c=='\r';
+	}
+
+	//Upper case letter as matched by \p{Lu}, including supplementary characters
+	private static boolean isUpperCase(CharSequence text, int index)
+	{
+		return Character.getType(Character.codePointAt(text, index))==Character.UPPERCASE_LETTER;
+	}
+}
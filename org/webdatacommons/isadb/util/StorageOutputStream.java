@@ -0,0 +1,50 @@
+// http://webdatacommons.org/isadb/
+// The WebIsADb and the API are licensed under a Creative Commons Attribution-Non Commercial-Share Alike 3.0 License: http://creativecommons.org/licenses/by-nc-sa/3.0/.
+// Acknowledgements
+// This work was partially funded by the Deutsche Forschungsgemeinschaft within the JOIN-T project (research grant PO 1900/1-1). Part of the computational resources used for this work were provide by an Amazon AWS in Education Grant award.
+// this software is meant to be part of the CommonCrawl framework: http://commoncrawl.org/ to re-build a new WebIsADb from fresh CommonCrawl dumps.
+
+
+package org.webdatacommons.isadb.util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Stream of an object of a ResultStorage. The object is stored by close(); abort() drops it, e.g. if the extraction failed.
+ * Writing after close() throws an IOException.
+ */
+public abstract class StorageOutputStream extends OutputStream {
+
+	/**
+	 * Drops the object without storing it; further writes are ignored
+	 */
+	public abstract void abort();
+
+	/**
+	 * Aborts out, if it is a StorageOutputStream or a ParallelGzipOutputStream over one; other streams are closed
+	 * @param out
+	 */
+	public static void abort(OutputStream out)
+	{
+		if (out instanceof StorageOutputStream)
+		{
+			((StorageOutputStream) out).abort();
+		}
+		else if (out instanceof ParallelGzipOutputStream)
+		{
+			((ParallelGzipOutputStream) out).abort();
+		}
+		else
+		{
+			try
+			{
+				out.close();
+			}
+			catch (IOException e)
+			{
+				//nothing to keep anyway
+			}
+		}
+	}
+}
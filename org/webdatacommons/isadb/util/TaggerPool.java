@@ -0,0 +1,103 @@
+// http://webdatacommons.org/isadb/
+// The WebIsADb and the API are licensed under a Creative Commons Attribution-Non Commercial-Share Alike 3.0 License: http://creativecommons.org/licenses/by-nc-sa/3.0/.
+// Acknowledgements
+// This work was partially funded by the Deutsche Forschungsgemeinschaft within the JOIN-T project (research grant PO 1900/1-1). Part of the computational resources used for this work were provide by an Amazon AWS in Education Grant award.
+// this software is meant to be part of the CommonCrawl framework: http://commoncrawl.org/ to re-build a new WebIsADb from fresh CommonCrawl dumps.
+
+package org.webdatacommons.isadb.util;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.log4j.Logger;
+
+import edu.stanford.nlp.tagger.maxent.MaxentTagger;
+
+/**
+ * JVM-wide POS tagger models. Loading a model takes seconds and hundreds of MB, so every model is loaded once
+ * and its tagger is shared by all worker threads and files. MaxentTagger.tagSentence only reads the model and keeps
+ * the state of a sentence in a new TestSentence, CoreNLP shares one tagger between the threads of its own
+ * multithreaded tagging in the same way.
+ */
+public class TaggerPool {
+
+	private static Logger log = Logger.getLogger(TaggerPool.class);
+
+	public static final String DEFAULT_MODEL = "english-left3words-distsim.tagger";
+
+	private static final ConcurrentHashMap<String, TaggerPool> pools = new ConcurrentHashMap<String, TaggerPool>();
+
+	private final String model;
+	private volatile MaxentTagger tagger;
+	private long loadTime = 0;
+	private long loadMemory = 0;
+
+	private TaggerPool(String model)
+	{
+		this.model = model;
+	}
+
+	/**
+	 * @param model path or classpath name of the tagger model
+	 * @return the pool of the model, shared by all callers in the JVM
+	 */
+	public static TaggerPool get(String model)
+	{
+		TaggerPool pool = pools.get(model);
+		if (pool==null)
+		{
+			pools.putIfAbsent(model, new TaggerPool(model));
+			pool = pools.get(model);
+		}
+		return pool;
+	}
+
+	/**
+	 * @return the tagger of the model, loaded by the first call; it can be used by several threads at the same time
+	 */
+	public MaxentTagger getTagger()
+	{
+		MaxentTagger loaded = tagger;
+		if (loaded!=null)
+		{
+			return loaded;
+		}
+		synchronized (this)
+		{
+			if (tagger==null)
+			{
+				long memoryBefore = usedMemory();
+				long start = System.currentTimeMillis();
+				MaxentTagger newTagger = new MaxentTagger(model);
+				loadTime = System.currentTimeMillis()-start;
+				loadMemory = Math.max(0, usedMemory()-memoryBefore);
+				log.info("Loaded tagger " + model + " in " + loadTime + " ms, ~" + (loadMemory>>20) + " MB");
+				tagger = newTagger;
+			}
+			return tagger;
+		}
+	}
+
+	//The model is loaded once per JVM, so the collections for a less noisy estimate are affordable
+	private static long usedMemory()
+	{
+		Runtime runtime = Runtime.getRuntime();
+		System.gc();
+		return runtime.totalMemory()-runtime.freeMemory();
+	}
+
+	/**
+	 * @return milliseconds spent loading the model, 0 if it is not loaded
+	 */
+	public synchronized long getLoadTime()
+	{
+		return loadTime;
+	}
+
+	/**
+	 * @return heap growth while loading the model in bytes, 0 if it is not loaded; an estimate, as other threads allocate as well
+	 */
+	public synchronized long getLoadMemory()
+	{
+		return loadMemory;
+	}
+}
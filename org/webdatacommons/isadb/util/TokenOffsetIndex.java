@@ -0,0 +1,86 @@
+// http://webdatacommons.org/isadb/
+// The WebIsADb and the API are licensed under a Creative Commons Attribution-Non Commercial-Share Alike 3.0 License: http://creativecommons.org/licenses/by-nc-sa/3.0/.
+// Acknowledgements
+// This work was partially funded by the Deutsche Forschungsgemeinschaft within the JOIN-T project (research grant PO 1900/1-1). Part of the computational resources used for this work were provide by an Amazon AWS in Education Grant award.
+// this software is meant to be part of the CommonCrawl framework: http://commoncrawl.org/ to re-build a new WebIsADb from fresh CommonCrawl dumps.
+
+
+package org.webdatacommons.isadb.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import edu.stanford.nlp.ling.TaggedWord;
+
+/**
+ * Maps char offsets of a sentence to its blank-separated tokens. It is built once when the sentence is tokenized and
+ * replaces the recounting of the word lengths by FastWetProcessor.getWordListSubset for every match: token t ends at
+ * end(t) = sum of the lengths of the tokens 0..t plus t blanks, which increases with t, so the tokens of an offset
+ * range are found by binary search.
+ */
+public class TokenOffsetIndex {
+
+	private int[] ends = new int[64];
+	private int size = 0;
+
+	/**
+	 * @param tokens the tokens of the sentence, as split at blanks
+	 */
+	public void reset(String[] tokens)
+	{
+		size = tokens.length;
+		if (ends.length<size)
+		{
+			ends = new int[Math.max(size, ends.length*2)];
+		}
+		int position = 0;
+		for (int i=0; i<size; i++)
+		{
+			position += tokens[i].length();
+			ends[i] = position;
+			position++;
+		}
+	}
+
+	/**
+	 * @param position
+	 * @return index of the first token which ends at or after position, the number of tokens if there is none
+	 */
+	public int firstEndingFrom(int position)
+	{
+		int low = 0;
+		int high = size;
+		while (low<high)
+		{
+			int mid = (low+high) >>> 1;
+			if (ends[mid]<position)
+			{
+				low = mid+1;
+			}
+			else
+			{
+				high = mid;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * Same as FastWetProcessor.getWordListSubset(onset, offset, taggedWords) for the tagged tokens of the sentence:
+	 * the tokens whose end lies in [onset, offset]
+	 * @param onset
+	 * @param offset
+	 * @param taggedWords one tagged word per token
+	 * @return a new list
+	 */
+	public List<TaggedWord> subset(int onset, int offset, List<TaggedWord> taggedWords)
+	{
+		int from = firstEndingFrom(onset);
+		int to = firstEndingFrom(offset+1);
+		if (from>=to)
+		{
+			return new ArrayList<TaggedWord>();
+		}
+		return new ArrayList<TaggedWord>(taggedWords.subList(from, to));
+	}
+}
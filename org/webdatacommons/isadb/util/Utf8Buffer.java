@@ -0,0 +1,223 @@
+// http://webdatacommons.org/isadb/
+// The WebIsADb and the API are licensed under a Creative Commons Attribution-Non Commercial-Share Alike 3.0 License: http://creativecommons.org/licenses/by-nc-sa/3.0/.
+// Acknowledgements
+// This work was partially funded by the Deutsche Forschungsgemeinschaft within the JOIN-T project (research grant PO 1900/1-1). Part of the computational resources used for this work were provide by an Amazon AWS in Education Grant award.
+// this software is meant to be part of the CommonCrawl framework: http://commoncrawl.org/ to re-build a new WebIsADb from fresh CommonCrawl dumps.
+
+
+package org.webdatacommons.isadb.util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * Growable byte buffer which encodes text directly to UTF-8, without creating Strings or byte arrays per value.
+ * Unpaired surrogates are encoded as '?', like the UTF-8 OutputStreamWriter does. Numbers can also be appended
+ * as unsigned LEB128 varints for binary formats.
+ */
+public class Utf8Buffer {
+
+	private byte[] data;
+	private int length = 0;
+
+	public Utf8Buffer(int capacity)
+	{
+		data = new byte[Math.max(capacity, 16)];
+	}
+
+	public byte[] getData()
+	{
+		return data;
+	}
+
+	public int length()
+	{
+		return length;
+	}
+
+	public void clear()
+	{
+		length = 0;
+	}
+
+	public void writeTo(OutputStream out) throws IOException
+	{
+		out.write(data, 0, length);
+	}
+
+	/**
+	 * Appends the text; null is appended as "null" like StringBuilder does
+	 * @param text
+	 * @return this
+	 */
+	public Utf8Buffer append(CharSequence text)
+	{
+		if (text==null)
+		{
+			return append("null");
+		}
+		return append(text, 0, text.length());
+	}
+
+	public Utf8Buffer append(CharSequence text, int start, int end)
+	{
+		ensureCapacity(length + 3 * (end - start));
+		byte[] data = this.data;
+		int length = this.length;
+		for (int i=start; i<end; i++)
+		{
+			char c = text.charAt(i);
+			if (c<0x80)
+			{
+				data[length++] = (byte) c;
+			}
+			else if (c<0x800)
+			{
+				data[length++] = (byte) (0xc0 | (c >> 6));
+				data[length++] = (byte) (0x80 | (c & 0x3f));
+			}
+			else if (Character.isHighSurrogate(c) && i+1<end && Character.isLowSurrogate(text.charAt(i+1)))
+			{
+				int cp = Character.toCodePoint(c, text.charAt(++i));
+				data[length++] = (byte) (0xf0 | (cp >> 18));
+				data[length++] = (byte) (0x80 | ((cp >> 12) & 0x3f));
+				data[length++] = (byte) (0x80 | ((cp >> 6) & 0x3f));
+				data[length++] = (byte) (0x80 | (cp & 0x3f));
+			}
+			else if (Character.isSurrogate(c))
+			{
+				data[length++] = '?';
+			}
+			else
+			{
+				data[length++] = (byte) (0xe0 | (c >> 12));
+				data[length++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+				data[length++] = (byte) (0x80 | (c & 0x3f));
+			}
+		}
+		this.length = length;
+		return this;
+	}
+
+	/**
+	 * Appends an ASCII character
+	 * @param c
+	 * @return this
+	 */
+	public Utf8Buffer append(char c)
+	{
+		if (c>=0x80)
+		{
+			return append(String.valueOf(c));
+		}
+		ensureCapacity(length + 1);
+		data[length++] = (byte) c;
+		return this;
+	}
+
+	/**
+	 * Appends the decimal representation of value
+	 * @param value
+	 * @return this
+	 */
+	public Utf8Buffer append(long value)
+	{
+		if (value==Long.MIN_VALUE)
+		{
+			return append(Long.toString(value));
+		}
+		ensureCapacity(length + 20);
+		if (value<0)
+		{
+			data[length++] = '-';
+			value = -value;
+		}
+		int digits = 1;
+		for (long v = value / 10; v>0; v /= 10)
+		{
+			digits++;
+		}
+		for (int i=length+digits-1; i>=length; i--)
+		{
+			data[i] = (byte) ('0' + value % 10);
+			value /= 10;
+		}
+		length += digits;
+		return this;
+	}
+
+	public Utf8Buffer append(byte[] bytes)
+	{
+		return append(bytes, 0, bytes.length);
+	}
+
+	public Utf8Buffer append(byte[] bytes, int off, int len)
+	{
+		ensureCapacity(length + len);
+		System.arraycopy(bytes, off, data, length, len);
+		length += len;
+		return this;
+	}
+
+	/**
+	 * Appends value as unsigned varint (7 bits per byte, least significant group first)
+	 * @param value
+	 * @return this
+	 */
+	public Utf8Buffer appendVarint(long value)
+	{
+		ensureCapacity(length + 10);
+		while ((value & ~0x7fL)!=0)
+		{
+			data[length++] = (byte) ((value & 0x7f) | 0x80);
+			value >>>= 7;
+		}
+		data[length++] = (byte) value;
+		return this;
+	}
+
+	/**
+	 * @param text
+	 * @return number of bytes append(text) adds
+	 */
+	public static int encodedLength(CharSequence text)
+	{
+		int length = 0;
+		int end = text.length();
+		for (int i=0; i<end; i++)
+		{
+			char c = text.charAt(i);
+			if (c<0x80)
+			{
+				length++;
+			}
+			else if (c<0x800)
+			{
+				length += 2;
+			}
+			else if (Character.isHighSurrogate(c) && i+1<end && Character.isLowSurrogate(text.charAt(i+1)))
+			{
+				length += 4;
+				i++;
+			}
+			else if (Character.isSurrogate(c))
+			{
+				length++;
+			}
+			else
+			{
+				length += 3;
+			}
+		}
+		return length;
+	}
+
+	private void ensureCapacity(int capacity)
+	{
+		if (capacity>data.length)
+		{
+			data = Arrays.copyOf(data, Math.max(capacity, 2 * data.length));
+		}
+	}
+}
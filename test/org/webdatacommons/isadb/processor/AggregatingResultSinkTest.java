@@ -0,0 +1,83 @@
+// http://webdatacommons.org/isadb/
+// The WebIsADb and the API are licensed under a Creative Commons Attribution-Non Commercial-Share Alike 3.0 License: http://creativecommons.org/licenses/by-nc-sa/3.0/.
+// Acknowledgements
+// This work was partially funded by the Deutsche Forschungsgemeinschaft within the JOIN-T project (research grant PO 1900/1-1). Part of the computational resources used for this work were provide by an Amazon AWS in Education Grant award.
+// this software is meant to be part of the CommonCrawl framework: http://commoncrawl.org/ to re-build a new WebIsADb from fresh CommonCrawl dumps.
+
+package org.webdatacommons.isadb.processor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+import org.webdatacommons.isadb.util.CustomPattern;
+
+/**
+ * The rows of the AggregatingResultSink do not depend on spilling or on the order of the matches
+ */
+public class AggregatingResultSinkTest {
+
+	@Test
+	public void spilledEqualsInMemory() throws IOException
+	{
+		List<CustomPattern> patterns = PatternSet.compile(null).getPatterns();
+		ByteArrayOutputStream spilled = new ByteArrayOutputStream();
+		ByteArrayOutputStream inMemory = new ByteArrayOutputStream();
+		//A budget of 1 byte spills after every match
+		Map<String, String> stats = writeMatches(new AggregatingResultSink(spilled, 1, patterns), patterns);
+		assertEquals("2000", stats.get("aggregateSpills"));
+		stats = writeMatches(new AggregatingResultSink(inMemory, Long.MAX_VALUE, patterns), patterns);
+		assertEquals("0", stats.get("aggregateSpills"));
+		assertTrue(inMemory.size()>0);
+		assertEquals(inMemory.toString("UTF-8"), spilled.toString("UTF-8"));
+	}
+
+	@Test
+	public void catalogOrderOfPidsAndSortedPlds() throws IOException
+	{
+		List<CustomPattern> patterns = PatternSet.compile(null).getPatterns();
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		AggregatingResultSink sink = new AggregatingResultSink(out, Long.MAX_VALUE, patterns);
+		sink.write(match("Cities", "Paris", patterns.get(7).pid, "z.org"));
+		sink.write(match("cities", "paris", "unknown", null));
+		sink.write(match("cities", "Paris", patterns.get(2).pid, "a.org"));
+		sink.close();
+		assertEquals("paris\tcities\t3\t{" + patterns.get(2).pid + "|" + patterns.get(7).pid + "|unknown}\t3\t{a.org|null|z.org}\n",
+				out.toString("UTF-8"));
+	}
+
+	private static Map<String, String> writeMatches(AggregatingResultSink sink, List<CustomPattern> patterns) throws IOException
+	{
+		Random random = new Random(17);
+		for (int i=0; i<2000; i++)
+		{
+			ExtractedMatch match = match("class " + random.nextInt(20), "Instance " + random.nextInt(100),
+					patterns.get(random.nextInt(patterns.size())).pid, random.nextInt(10)==0 ? null : "pld" + random.nextInt(30) + ".org");
+			sink.write(match);
+		}
+		sink.close();
+		Map<String, String> stats = new HashMap<String, String>();
+		sink.addStats(stats);
+		return stats;
+	}
+
+	private static ExtractedMatch match(String cls, String instance, String pid, String pld)
+	{
+		ExtractedMatch match = new ExtractedMatch();
+		match.instances = new String[] {instance};
+		match.instanceTags = new String[] {"NN"};
+		match.classes = new String[] {cls};
+		match.classTags = new String[] {"NNS"};
+		match.pid = pid;
+		match.pld = pld;
+		match.sentence = cls + " such as " + instance;
+		return match;
+	}
+}
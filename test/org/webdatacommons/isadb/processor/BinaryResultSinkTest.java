@@ -0,0 +1,163 @@
+// http://webdatacommons.org/isadb/
+// The WebIsADb and the API are licensed under a Creative Commons Attribution-Non Commercial-Share Alike 3.0 License: http://creativecommons.org/licenses/by-nc-sa/3.0/.
+// Acknowledgements
+// This work was partially funded by the Deutsche Forschungsgemeinschaft within the JOIN-T project (research grant PO 1900/1-1). Part of the computational resources used for this work were provide by an Amazon AWS in Education Grant award.
+// this software is meant to be part of the CommonCrawl framework: http://commoncrawl.org/ to re-build a new WebIsADb from fresh CommonCrawl dumps.
+
+package org.webdatacommons.isadb.processor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Rows written by the BinaryResultSink are read back by the BinaryResultReader, also if several threads write
+ */
+public class BinaryResultSinkTest {
+
+	@Test
+	public void roundTrip() throws IOException
+	{
+		List<ExtractedMatch> matches = new ArrayList<ExtractedMatch>();
+		matches.add(match("p1", "cities such as Paris", new String[] {"Paris"}, new String[] {"NNP"},
+				new String[] {"cities"}, new String[] {"NNS"}, 7, 15, "example.org", 12));
+		//null PLD and sentence, empty lists, negative numbers and characters outside the BMP
+		matches.add(match("p2", null, new String[0], new String[0], new String[0], new String[0], -1, -200, null, -3));
+		matches.add(match("p1", "\u00E4pfel und \uD83C\uDF4E", new String[] {"\u00E4pfel", null}, new String[] {"NN", "NN"},
+				new String[] {"obst"}, new String[] {"NN"}, 0, Integer.MAX_VALUE, "example.org", Long.MAX_VALUE));
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		BinaryResultSink sink = new BinaryResultSink(out);
+		for (ExtractedMatch match : matches)
+		{
+			sink.write(match);
+		}
+		sink.close();
+		Map<String, String> stats = new HashMap<String, String>();
+		sink.addStats(stats);
+		assertEquals("3", stats.get("outputRows"));
+		assertEquals(Integer.toString(out.size()), stats.get("outputUncompressedBytes"));
+
+		BinaryResultReader reader = new BinaryResultReader(new ByteArrayInputStream(out.toByteArray()));
+		ExtractedMatch read = new ExtractedMatch();
+		for (ExtractedMatch match : matches)
+		{
+			assertTrue(reader.next(read));
+			assertEquals(toString(match), toString(read));
+		}
+		assertFalse(reader.next(read));
+		//p1, p2, NNP, NNS, NN and example.org
+		assertEquals(6, reader.getDictionarySize());
+		reader.close();
+	}
+
+	@Test
+	public void concurrentWriters() throws Exception
+	{
+		final int threads = 6;
+		final int rowsPerThread = 5000;
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		final BinaryResultSink sink = new BinaryResultSink(out);
+		final Exception[] errors = new Exception[threads];
+		Thread[] writers = new Thread[threads];
+		for (int t=0; t<threads; t++)
+		{
+			final int thread = t;
+			writers[t] = new Thread() {
+				@Override
+				public void run()
+				{
+					Random random = new Random(thread);
+					try
+					{
+						for (int i=0; i<rowsPerThread; i++)
+						{
+							//Shared and new dictionary entries, so the threads define entries the others use
+							String tag = "T" + random.nextInt(200);
+							sink.write(match("p" + random.nextInt(60), thread + " " + i, new String[] {"instance"}, new String[] {tag},
+									new String[] {"class"}, new String[] {"T" + random.nextInt(200)}, i, i + 1, "pld" + random.nextInt(2000), i));
+						}
+					}
+					catch (Exception e)
+					{
+						errors[thread] = e;
+					}
+				}
+			};
+			writers[t].start();
+		}
+		for (Thread writer : writers)
+		{
+			writer.join();
+		}
+		sink.close();
+		for (Exception error : errors)
+		{
+			if (error!=null) throw error;
+		}
+
+		//The reader fails on a dictionary id which is not defined before its first use
+		BinaryResultReader reader = new BinaryResultReader(new ByteArrayInputStream(out.toByteArray()));
+		ExtractedMatch read = new ExtractedMatch();
+		List<String> sentences = new ArrayList<String>();
+		while (reader.next(read))
+		{
+			sentences.add(read.sentence);
+			assertTrue(read.pid.startsWith("p"));
+			assertTrue(read.pld.startsWith("pld"));
+			assertTrue(read.instanceTags[0].startsWith("T"));
+			assertTrue(read.classTags[0].startsWith("T"));
+		}
+		reader.close();
+		List<String> expected = new ArrayList<String>();
+		for (int t=0; t<threads; t++)
+		{
+			for (int i=0; i<rowsPerThread; i++)
+			{
+				expected.add(t + " " + i);
+			}
+		}
+		Collections.sort(expected);
+		Collections.sort(sentences);
+		assertEquals(expected, sentences);
+		Map<String, String> stats = new HashMap<String, String>();
+		sink.addStats(stats);
+		assertEquals(stats.get("outputDictionarySize"), Integer.toString(reader.getDictionarySize()));
+	}
+
+	private static ExtractedMatch match(String pid, String sentence, String[] instances, String[] instanceTags, String[] classes,
+			String[] classTags, int onset, int offset, String pld, long matchingTime)
+	{
+		ExtractedMatch match = new ExtractedMatch();
+		match.pid = pid;
+		match.sentence = sentence;
+		match.instances = instances;
+		match.instanceTags = instanceTags;
+		match.classes = classes;
+		match.classTags = classTags;
+		match.onset = onset;
+		match.offset = offset;
+		match.pld = pld;
+		match.matchingTime = matchingTime;
+		return match;
+	}
+
+	private static String toString(ExtractedMatch match)
+	{
+		return match.pid + "|" + match.sentence + "|" + Arrays.toString(match.instances) + "|" + Arrays.toString(match.instanceTags)
+				+ "|" + Arrays.toString(match.classes) + "|" + Arrays.toString(match.classTags) + "|" + match.onset + "|"
+				+ match.offset + "|" + match.pld + "|" + match.matchingTime;
+	}
+}
@@ -0,0 +1,126 @@
+// http://webdatacommons.org/isadb/
+// The WebIsADb and the API are licensed under a Creative Commons Attribution-Non Commercial-Share Alike 3.0 License: http://creativecommons.org/licenses/by-nc-sa/3.0/.
+// Acknowledgements
+// This work was partially funded by the Deutsche Forschungsgemeinschaft within the JOIN-T project (research grant PO 1900/1-1). Part of the computational resources used for this work were provide by an Amazon AWS in Education Grant award.
+// this software is meant to be part of the CommonCrawl framework: http://commoncrawl.org/ to re-build a new WebIsADb from fresh CommonCrawl dumps.
+
+package org.webdatacommons.isadb.processor;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Rows written by the ColumnarResultSink are read back by the ColumnarResultReader, all columns or a subset of them
+ */
+public class ColumnarResultSinkTest {
+
+	@Test
+	public void roundTripOfRowGroups() throws IOException
+	{
+		Random random = new Random(21);
+		List<ExtractedMatch> matches = new ArrayList<ExtractedMatch>();
+		for (int i=0; i<250; i++)
+		{
+			ExtractedMatch match = new ExtractedMatch();
+			match.pid = "p" + random.nextInt(8);
+			//null values and empty lists
+			match.sentence = i%17==0 ? null : "sentence " + i + " \u00E4";
+			match.instances = words(random, "instance");
+			match.instanceTags = tags(random, match.instances.length);
+			match.classes = words(random, "class");
+			match.classTags = tags(random, match.classes.length);
+			match.onset = random.nextInt(200) - 1;
+			match.offset = random.nextInt(200);
+			match.pld = i%5==0 ? null : "pld" + random.nextInt(20) + ".org";
+			match.matchingTime = random.nextInt(1000);
+			matches.add(match);
+		}
+		File file = File.createTempFile("isadb", ".isadb.col");
+		try
+		{
+			ColumnarResultSink sink = new ColumnarResultSink(new FileOutputStream(file), 64, -1);
+			for (ExtractedMatch match : matches)
+			{
+				sink.write(match);
+			}
+			sink.close();
+
+			ColumnarResultReader reader = new ColumnarResultReader(file);
+			try
+			{
+				assertEquals(4, reader.getRowGroupCount());
+				assertEquals(58, reader.getRowCount(3));
+				assertEquals(matches.size(), reader.getRowCount());
+				int row = 0;
+				for (int group=0; group<reader.getRowGroupCount(); group++)
+				{
+					List<ExtractedMatch> all = reader.read(group);
+					List<ExtractedMatch> subset = reader.read(group, "PLD", "Instances", "Offset");
+					assertEquals(reader.getRowCount(group), all.size());
+					assertEquals(all.size(), subset.size());
+					for (int i=0; i<all.size(); i++, row++)
+					{
+						ExtractedMatch expected = matches.get(row);
+						assertEquals(toString(expected), toString(all.get(i)));
+						ExtractedMatch partial = subset.get(i);
+						assertEquals(expected.pld, partial.pld);
+						assertArrayEquals(expected.instances, partial.instances);
+						assertEquals(expected.offset, partial.offset);
+						//The other columns are not read
+						assertNull(partial.pid);
+						assertNull(partial.sentence);
+						assertNull(partial.classes);
+						assertEquals(0, partial.onset);
+					}
+				}
+				assertEquals(matches.size(), row);
+			}
+			finally
+			{
+				reader.close();
+			}
+		}
+		finally
+		{
+			file.delete();
+		}
+	}
+
+	private static String[] words(Random random, String prefix)
+	{
+		String[] words = new String[random.nextInt(4)];
+		for (int i=0; i<words.length; i++)
+		{
+			words[i] = prefix + " " + random.nextInt(50);
+		}
+		return words;
+	}
+
+	private static String[] tags(Random random, int count)
+	{
+		String[] tags = new String[count];
+		for (int i=0; i<count; i++)
+		{
+			tags[i] = random.nextBoolean() ? "NN" : "NNS";
+		}
+		return tags;
+	}
+
+	private static String toString(ExtractedMatch match)
+	{
+		return match.pid + "|" + match.sentence + "|" + Arrays.toString(match.instances) + "|" + Arrays.toString(match.instanceTags)
+				+ "|" + Arrays.toString(match.classes) + "|" + Arrays.toString(match.classTags) + "|" + match.onset + "|"
+				+ match.offset + "|" + match.pld + "|" + match.matchingTime;
+	}
+}
@@ -0,0 +1,186 @@
+// http://webdatacommons.org/isadb/
+// The WebIsADb and the API are licensed under a Creative Commons Attribution-Non Commercial-Share Alike 3.0 License: http://creativecommons.org/licenses/by-nc-sa/3.0/.
+// Acknowledgements
+// This work was partially funded by the Deutsche Forschungsgemeinschaft within the JOIN-T project (research grant PO 1900/1-1). Part of the computational resources used for this work were provide by an Amazon AWS in Education Grant award.
+// this software is meant to be part of the CommonCrawl framework: http://commoncrawl.org/ to re-build a new WebIsADb from fresh CommonCrawl dumps.
+
+package org.webdatacommons.isadb.processor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * The records of all segments of a MappedWetFile, read one segment after the other, are the records of a serial read
+ */
+public class MappedWetFileTest {
+
+	private static File gzipFile;
+	private static File plainFile;
+	private static List<String> expected;
+
+	@BeforeClass
+	public static void writeFiles() throws IOException
+	{
+		gzipFile = File.createTempFile("mapped", ".warc.wet.gz");
+		plainFile = File.createTempFile("mapped", ".warc.wet");
+		OutputStream gzip = new FileOutputStream(gzipFile);
+		OutputStream plain = new FileOutputStream(plainFile);
+		try
+		{
+			Random random = new Random(13);
+			//Large enough for several segments of MIN_SEGMENT bytes, also after the compression
+			for (int r=0; r<1500; r++)
+			{
+				byte[] record = createRecord(random, r);
+				plain.write(record);
+				ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+				GZIPOutputStream member = new GZIPOutputStream(compressed);
+				member.write(record);
+				member.close();
+				compressed.writeTo(gzip);
+			}
+		}
+		finally
+		{
+			gzip.close();
+			plain.close();
+		}
+		expected = readSerial(gzipFile, true);
+		assertTrue(expected.size()>1000);
+	}
+
+	@AfterClass
+	public static void deleteFiles()
+	{
+		gzipFile.delete();
+		plainFile.delete();
+	}
+
+	@Test
+	public void uncompressedSerialReadEqualsGzipped() throws Exception
+	{
+		assertEquals(expected, readSerial(plainFile, false));
+	}
+
+	@Test
+	public void gzipSegmentsEqualSerialRead() throws Exception
+	{
+		checkSegments(gzipFile);
+	}
+
+	@Test
+	public void uncompressedSegmentsEqualSerialRead() throws Exception
+	{
+		checkSegments(plainFile);
+	}
+
+	private static void checkSegments(File file) throws Exception
+	{
+		boolean split = false;
+		for (int segments : new int[] {1, 2, 3, 5, 8, 20})
+		{
+			MappedWetFile mappedFile = new MappedWetFile(file, segments);
+			try
+			{
+				split |= mappedFile.getSegmentCount()>1;
+				ArrayList<String> records = new ArrayList<String>();
+				for (int s=0; s<mappedFile.getSegmentCount(); s++)
+				{
+					readAll(mappedFile.createSource(s, createLinePrecheck(), 1 << 16), records);
+				}
+				assertEquals("segments=" + segments, expected, records);
+			}
+			finally
+			{
+				mappedFile.close();
+			}
+		}
+		assertTrue("file was never split", split);
+	}
+
+	private static List<String> readSerial(File file, boolean gzip) throws IOException
+	{
+		FileChannel channel = new FileInputStream(file).getChannel();
+		try
+		{
+			ArrayList<String> records = new ArrayList<String>();
+			readAll(new WetChannelReader(channel, gzip, createLinePrecheck(), 1 << 16), records);
+			return records;
+		}
+		catch (Exception e)
+		{
+			throw new IOException(e);
+		}
+		finally
+		{
+			channel.close();
+		}
+	}
+
+	private static void readAll(ExtractionPipeline.RecordSource source, List<String> records) throws Exception
+	{
+		WetRecord record;
+		while ((record = source.next(records.size()))!=null)
+		{
+			records.add(record.url + "\n" + record.lines);
+		}
+	}
+
+	private static LinePrecheck createLinePrecheck() throws IOException
+	{
+		PatternSet patternSet = PatternSet.get(null);
+		return new LinePrecheck(patternSet.getPatterns(), patternSet.getPreCheckPattern(), WetChannelReader.UTF8);
+	}
+
+	private static byte[] createRecord(Random random, int r) throws IOException
+	{
+		StringBuilder body = new StringBuilder();
+		int lines = 5 + random.nextInt(40);
+		for (int l=0; l<lines; l++)
+		{
+			int words = 3 + random.nextInt(25);
+			for (int w=0; w<words; w++)
+			{
+				if (w>0) body.append(' ');
+				if (random.nextInt(30)==0)
+				{
+					body.append(random.nextBoolean() ? "such as" : "and other");
+					continue;
+				}
+				int length = 1 + random.nextInt(9);
+				for (int c=0; c<length; c++)
+				{
+					body.append((char) ('a' + random.nextInt(26)));
+				}
+			}
+			body.append(random.nextInt(10)==0 ? "\r\n" : "\n");
+		}
+		byte[] content = body.toString().getBytes(WetChannelReader.UTF8);
+		String header = "WARC/1.0\r\n"
+				+ "WARC-Type: conversion\r\n"
+				+ "WARC-Target-URI: http://www.example" + random.nextInt(100) + ".com/page" + r + "\r\n"
+				+ "Content-Type: text/plain\r\n"
+				+ "Content-Length: " + content.length + "\r\n\r\n";
+		ByteArrayOutputStream record = new ByteArrayOutputStream();
+		record.write(header.getBytes(WetChannelReader.UTF8));
+		record.write(content);
+		record.write("\r\n\r\n".getBytes(WetChannelReader.UTF8));
+		return record.toByteArray();
+	}
+}
@@ -0,0 +1,194 @@
+// http://webdatacommons.org/isadb/
+// The WebIsADb and the API are licensed under a Creative Commons Attribution-Non Commercial-Share Alike 3.0 License: http://creativecommons.org/licenses/by-nc-sa/3.0/.
+// Acknowledgements
+// This work was partially funded by the Deutsche Forschungsgemeinschaft within the JOIN-T project (research grant PO 1900/1-1). Part of the computational resources used for this work were provide by an Amazon AWS in Education Grant award.
+// this software is meant to be part of the CommonCrawl framework: http://commoncrawl.org/ to re-build a new WebIsADb from fresh CommonCrawl dumps.
+
+package org.webdatacommons.isadb.processor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+import org.webdatacommons.isadb.util.NounPhrase;
+import org.webdatacommons.isadb.util.NounPhraseSpan;
+
+import edu.stanford.nlp.ling.TaggedWord;
+
+/**
+ * The NounPhraseChunker finds the noun phrases of FastWetProcessor.findNextNounPhrase and findNextNounPhraseReverse
+ */
+public class NounPhraseChunkerTest {
+
+	//Duplicates make the list tags more frequent
+	private static final String[] TAGS = {"NN", "NNS", "NNP", "JJ", "JJR", "VBN", "VBG", "IN", "CD", "DT", "CC", "VB", "RB", "PRP", ".",
+		"NN", "NNS", "JJ", "DT", ","};
+	//Coordinators, punctuation and line terminators which are stripped from the words
+	private static final String[] WORDS = {"q.\u2028", "r!\u2029", " s, ", "t,\n", "!", "", ".", "x", "y,", "and", "Or", "&", "z.", "w,",
+		"AND", "a", "b!", "c,", "or,", "and,", "d;"};
+
+	@Test
+	public void chunkEqualsFindNextNounPhrase()
+	{
+		compareRandom(false);
+	}
+
+	@Test
+	public void chunkReverseEqualsFindNextNounPhraseReverse()
+	{
+		compareRandom(true);
+	}
+
+	@Test
+	public void stripTrailingPunctuationEqualsRegex()
+	{
+		Random random = new Random(3);
+		String alphabet = "a.,;:?! \n\r\t\u0085\u2028\u2029x";
+		for (int i=0; i<200000; i++)
+		{
+			StringBuilder word = new StringBuilder();
+			int length = random.nextInt(6);
+			for (int c=0; c<length; c++)
+			{
+				word.append(alphabet.charAt(random.nextInt(alphabet.length())));
+			}
+			String expected = word.toString().trim().replaceAll("(\\.|\\,|\\;|\\:|\\?|\\!)$", "");
+			assertEquals(expected, NounPhraseChunker.stripTrailingPunctuation(word.toString()));
+		}
+	}
+
+	@Test
+	public void longListStopsAtTheCap()
+	{
+		List<TaggedWord> words = new ArrayList<TaggedWord>();
+		for (int i=0; i<10000; i++)
+		{
+			words.add(new TaggedWord("w" + i + ",", "NN"));
+		}
+		ArrayList<NounPhraseSpan> nounPhrases = new ArrayList<NounPhraseSpan>();
+		assertTrue(new NounPhraseChunker(4, 3).chunk(copy(words), nounPhrases));
+		assertEquals(3, nounPhrases.size());
+		assertEquals("w0, w1, w2,", nounPhrases.get(0).toString() + " " + nounPhrases.get(1) + " " + nounPhrases.get(2));
+		nounPhrases.clear();
+		assertTrue(new NounPhraseChunker(4, 3).chunkReverse(copy(words), nounPhrases));
+		assertEquals(3, nounPhrases.size());
+		//Without a cap the whole list is collected, without a stack overflow
+		nounPhrases.clear();
+		assertFalse(new NounPhraseChunker(4, 20000).chunk(copy(words), nounPhrases));
+		assertEquals(10000, nounPhrases.size());
+		nounPhrases.clear();
+		assertFalse(new NounPhraseChunker(4, 20000).chunkReverse(copy(words), nounPhrases));
+		//Like findNextNounPhraseReverse, the reverse walk skips the word after a comma
+		assertEquals(5000, nounPhrases.size());
+	}
+
+	@Test
+	public void listEndingAtTheCapIsNotCut()
+	{
+		List<TaggedWord> words = new ArrayList<TaggedWord>();
+		for (String word : new String[] {"a,", "b,", "c,"})
+		{
+			words.add(new TaggedWord(word, "NN"));
+		}
+		ArrayList<NounPhraseSpan> nounPhrases = new ArrayList<NounPhraseSpan>();
+		assertFalse(new NounPhraseChunker(4, 3).chunk(copy(words), nounPhrases));
+		assertEquals(3, nounPhrases.size());
+		nounPhrases.clear();
+		assertTrue(new NounPhraseChunker(4, 2).chunk(copy(words), nounPhrases));
+		assertEquals(2, nounPhrases.size());
+		//The coordinator continues the reverse walk, but no further noun follows
+		words = new ArrayList<TaggedWord>();
+		words.add(new TaggedWord("a", "NN"));
+		words.add(new TaggedWord("and", "CC"));
+		nounPhrases.clear();
+		assertFalse(new NounPhraseChunker(4, 1).chunkReverse(copy(words), nounPhrases));
+		assertEquals(1, nounPhrases.size());
+		words.add(new TaggedWord("b", "NN"));
+		nounPhrases.clear();
+		assertTrue(new NounPhraseChunker(4, 1).chunkReverse(copy(words), nounPhrases));
+		assertEquals(1, nounPhrases.size());
+	}
+
+	private static void compareRandom(boolean reverse)
+	{
+		Random random = new Random(7);
+		NounPhraseChunker chunker = new NounPhraseChunker(4, 1000);
+		int nounPhrases = 0;
+		for (int s=0; s<50000; s++)
+		{
+			List<TaggedWord> sentence = new ArrayList<TaggedWord>();
+			int length = random.nextInt(25);
+			for (int i=0; i<length; i++)
+			{
+				sentence.add(new TaggedWord(WORDS[random.nextInt(WORDS.length)], TAGS[random.nextInt(TAGS.length)]));
+			}
+			//Both strip the punctuation of the words, the rest of the words must be the same as well
+			List<TaggedWord> expectedWords = copy(sentence);
+			List<TaggedWord> words = copy(sentence);
+			ArrayList<NounPhrase> expected = new ArrayList<NounPhrase>();
+			ArrayList<NounPhraseSpan> actual = new ArrayList<NounPhraseSpan>();
+			if (reverse)
+			{
+				FastWetProcessor.findNextNounPhraseReverse(0, expectedWords, expected);
+				chunker.chunkReverse(words, actual);
+			}
+			else
+			{
+				FastWetProcessor.findNextNounPhrase(0, expectedWords, expected);
+				chunker.chunk(words, actual);
+			}
+			assertEquals(sentence.toString(), toString(expected, expectedWords), spansToString(actual, words));
+			nounPhrases += expected.size();
+			chunker.release(actual);
+		}
+		assertTrue(nounPhrases>10000);
+	}
+
+	private static List<TaggedWord> copy(List<TaggedWord> words)
+	{
+		List<TaggedWord> copy = new ArrayList<TaggedWord>(words.size());
+		for (TaggedWord word : words)
+		{
+			copy.add(new TaggedWord(word.word(), word.tag()));
+		}
+		return copy;
+	}
+
+	private static String toString(ArrayList<NounPhrase> nounPhrases, List<TaggedWord> words)
+	{
+		StringBuilder sb = new StringBuilder();
+		for (NounPhrase nounPhrase : nounPhrases)
+		{
+			sb.append(nounPhrase.toString()).append('/').append(nounPhrase.tagsToString()).append('|');
+		}
+		return appendWords(sb, words);
+	}
+
+	private static String spansToString(List<NounPhraseSpan> nounPhrases, List<TaggedWord> words)
+	{
+		StringBuilder sb = new StringBuilder();
+		for (NounPhraseSpan nounPhrase : nounPhrases)
+		{
+			nounPhrase.appendText(sb);
+			sb.append('/');
+			nounPhrase.appendTags(sb);
+			sb.append('|');
+		}
+		return appendWords(sb, words);
+	}
+
+	private static String appendWords(StringBuilder sb, List<TaggedWord> words)
+	{
+		sb.append('#');
+		for (TaggedWord word : words)
+		{
+			sb.append(word.word()).append(' ');
+		}
+		return sb.toString();
+	}
+}
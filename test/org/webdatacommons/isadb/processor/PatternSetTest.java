@@ -0,0 +1,194 @@
+// http://webdatacommons.org/isadb/
+// The WebIsADb and the API are licensed under a Creative Commons Attribution-Non Commercial-Share Alike 3.0 License: http://creativecommons.org/licenses/by-nc-sa/3.0/.
+// Acknowledgements
+// This work was partially funded by the Deutsche Forschungsgemeinschaft within the JOIN-T project (research grant PO 1900/1-1). Part of the computational resources used for this work were provide by an Amazon AWS in Education Grant award.
+// this software is meant to be part of the CommonCrawl framework: http://commoncrawl.org/ to re-build a new WebIsADb from fresh CommonCrawl dumps.
+
+package org.webdatacommons.isadb.processor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.junit.Assume.assumeTrue;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.StringReader;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+
+import org.junit.Test;
+import org.webdatacommons.isadb.util.CustomPattern;
+
+/**
+ * Parsing, validation and reloading of the pattern catalogs
+ */
+public class PatternSetTest {
+
+	private static final String HEADER = "#pid\ttype\tinstanceFirst\tpreCondition\tfirstKeyWord\tsecondKeyWord\tregex\n";
+
+	@Test
+	public void defaultCatalog() throws IOException
+	{
+		PatternSet set = PatternSet.compile(null);
+		assertEquals(PatternSet.DEFAULT_CATALOG, set.getCatalog());
+		assertEquals(58, set.getPatterns().size());
+		assertTrue(set.getPreCheckPattern().matcher("cities such as Paris").find());
+	}
+
+	@Test
+	public void parseFields() throws IOException
+	{
+		List<CustomPattern> patterns = parse(HEADER
+				+ "\n"
+				+ "p1\tcompact\ttrue\tsuch\\sas\t\t\t\\,?\\ssuch\\sas\\s\r\n"
+				+ "p2\tsplit_noSuffix\tfalse\tsuch\tsuch\tas\t\\ssuch\\s${np}as\\s\n"
+				+ "p3\tsplit\ttrue\tmost\tthe\tmost\tthe\\s${npAdjMost}\n");
+		assertEquals(3, patterns.size());
+		CustomPattern compact = patterns.get(0);
+		assertEquals("p1", compact.pid);
+		assertEquals("compact", compact.type);
+		assertTrue(compact.instanceFirst);
+		assertEquals("such\\sas", compact.preCondition);
+		assertNull(compact.firstKeyWord);
+		assertNull(compact.secondKeyWord);
+		CustomPattern split = patterns.get(1);
+		assertEquals("split_noSuffix", split.type);
+		assertFalse(split.instanceFirst);
+		assertEquals("such", split.firstKeyWord);
+		assertEquals("as", split.secondKeyWord);
+		assertFalse(split.regex.contains("${"));
+		assertTrue(split.pattern.matcher("cities such big towns as Paris").find());
+		assertFalse(patterns.get(2).regex.contains("${"));
+	}
+
+	@Test
+	public void invalidLines()
+	{
+		assertInvalid("p1\tcompact\ttrue\tsuch\t\t\\ssuch\\s\n", "columns");
+		assertInvalid("p1\tcompact\ttrue\tsuch\t\t\t\\ssuch\\s\np1\tcompact\ttrue\tas\t\t\t\\sas\\s\n", "duplicate pid");
+		assertInvalid("\tcompact\ttrue\tsuch\t\t\t\\ssuch\\s\n", "missing or duplicate pid");
+		assertInvalid("p1\tsplit_noInfix\ttrue\tsuch\t\t\t\\ssuch\\s\n", "unknown type");
+		assertInvalid("p1\tcompact\tyes\tsuch\t\t\t\\ssuch\\s\n", "instanceFirst");
+		assertInvalid("p1\tsplit\ttrue\tsuch\t\t\tsuch\\s${nps}\n", "unknown placeholder");
+		assertInvalid("p1\tcompact\ttrue\tsuch\t\t\t\n", "missing regex");
+		assertInvalid("p1\tcompact\ttrue\tsuch\t\t\t\\ssuch(\\s\n", "invalid regex");
+		assertInvalid("# only comments\n", "no patterns");
+	}
+
+	@Test
+	public void reloadChangedCatalog() throws IOException
+	{
+		File catalog = File.createTempFile("patterns", ".tsv");
+		try
+		{
+			write(catalog, "p1\tcompact\ttrue\tsuch\\sas\t\t\t\\,?\\ssuch\\sas\\s\n", 1000000000000L);
+			PatternSet first = PatternSet.get(catalog.getPath());
+			assertEquals(1, first.getPatterns().size());
+			assertEquals(first.getCompileTime(), first.takeCompileTime());
+			assertEquals(0, first.takeCompileTime());
+			assertSame(first, PatternSet.get(catalog.getPath()));
+			assertEquals(0, first.takeCompileTime());
+
+			write(catalog, "p1\tcompact\ttrue\tsuch\\sas\t\t\t\\,?\\ssuch\\sas\\s\np2\tcompact\ttrue\tincluding\t\t\t\\,?\\sincluding\\s\n", 1000000001000L);
+			PatternSet second = PatternSet.get(catalog.getPath());
+			assertNotSame(first, second);
+			assertEquals(2, second.getPatterns().size());
+
+			//A broken edit keeps the previous set
+			write(catalog, "p1\tcompact\n", 1000000002000L);
+			assertSame(second, PatternSet.get(catalog.getPath()));
+			try
+			{
+				PatternSet.reload(catalog.getPath());
+				fail("reload of a broken catalog");
+			}
+			catch (IOException e)
+			{
+				assertSame(second, PatternSet.get(catalog.getPath()));
+			}
+		}
+		finally
+		{
+			catalog.delete();
+			PatternSet.reload(null);
+		}
+	}
+
+	@Test
+	public void compileTimeOnlyForTheCompilingThread() throws Exception
+	{
+		final PatternSet set = PatternSet.reload(null);
+		//reload() does not belong to the get() of a file
+		assertEquals(0, set.takeCompileTime());
+		File catalog = File.createTempFile("patterns", ".tsv");
+		try
+		{
+			//The default catalog takes long enough to compile for a compile time above 0 ms
+			Files.copy(PatternSet.class.getResourceAsStream(PatternSet.DEFAULT_CATALOG), catalog.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			final PatternSet compiled = PatternSet.get(catalog.getPath());
+			assumeTrue(compiled.getCompileTime()>0);
+			final long[] taken = {-1};
+			Thread other = new Thread() {
+				@Override
+				public void run()
+				{
+					taken[0] = compiled.takeCompileTime();
+				}
+			};
+			other.start();
+			other.join();
+			assertEquals(0, taken[0]);
+			assertEquals(compiled.getCompileTime(), compiled.takeCompileTime());
+			assertEquals(0, compiled.takeCompileTime());
+		}
+		finally
+		{
+			catalog.delete();
+			PatternSet.reload(null);
+		}
+	}
+
+	private static List<CustomPattern> parse(String catalog) throws IOException
+	{
+		return PatternSet.parse(new BufferedReader(new StringReader(catalog)), "test.tsv");
+	}
+
+	private static void assertInvalid(String catalog, String message)
+	{
+		try
+		{
+			parse(HEADER + catalog);
+			fail("accepted: " + catalog);
+		}
+		catch (IOException e)
+		{
+			assertTrue(e.getMessage(), e.getMessage().contains(message));
+			assertTrue(e.getMessage(), e.getMessage().startsWith("test.tsv"));
+		}
+	}
+
+	private static void write(File file, String catalog, long modified) throws IOException
+	{
+		Writer writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+		try
+		{
+			writer.write(HEADER + catalog);
+		}
+		finally
+		{
+			writer.close();
+		}
+		//get() notices the change by the modification time, which may have a resolution of seconds
+		assertTrue(file.setLastModified(modified));
+	}
+}
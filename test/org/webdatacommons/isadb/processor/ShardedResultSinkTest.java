@@ -0,0 +1,171 @@
+// http://webdatacommons.org/isadb/
+// The WebIsADb and the API are licensed under a Creative Commons Attribution-Non Commercial-Share Alike 3.0 License: http://creativecommons.org/licenses/by-nc-sa/3.0/.
+// Acknowledgements
+// This work was partially funded by the Deutsche Forschungsgemeinschaft within the JOIN-T project (research grant PO 1900/1-1). Part of the computational resources used for this work were provide by an Amazon AWS in Education Grant award.
+// this software is meant to be part of the CommonCrawl framework: http://commoncrawl.org/ to re-build a new WebIsADb from fresh CommonCrawl dumps.
+
+package org.webdatacommons.isadb.processor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.Test;
+import org.webdatacommons.isadb.util.ExternalSorter;
+import org.webdatacommons.isadb.util.MemoryResultStorage;
+import org.webdatacommons.isadb.util.ResultStorage;
+import org.webdatacommons.isadb.util.StorageOutputStream;
+
+/**
+ * The shards of the ShardedResultSink do not depend on spilling, and a failed shard leaves no shards behind
+ */
+public class ShardedResultSinkTest {
+
+	@Test
+	public void spilledEqualsInMemory() throws IOException
+	{
+		MemoryResultStorage spilled = new MemoryResultStorage();
+		MemoryResultStorage inMemory = new MemoryResultStorage();
+		//A budget of 1 byte spills every match, more runs per shard than are merged at once
+		Map<String, String> stats = writeMatches(new ShardedResultSink(spilled, "s", 4, false, 1, 1, -1));
+		assertTrue(Integer.parseInt(stats.get("sortSpills"))>4 * ExternalSorter.DEFAULT_MAX_FAN_IN);
+		stats = writeMatches(new ShardedResultSink(inMemory, "s", 4, false, Long.MAX_VALUE, 1, -1));
+		assertEquals("0", stats.get("sortSpills"));
+		assertEquals(inMemory.getKeys(), spilled.getKeys());
+		assertEquals(4, spilled.getKeys().size());
+		for (String key : inMemory.getKeys())
+		{
+			String rows = gunzip(inMemory.getObject(key));
+			assertEquals(key, rows, gunzip(spilled.getObject(key)));
+			assertTrue(rows.length()>0);
+		}
+	}
+
+	@Test
+	public void failedShardDeletesStoredShards() throws IOException
+	{
+		final MemoryResultStorage memory = new MemoryResultStorage();
+		final List<String> deleted = new ArrayList<String>();
+		ResultStorage failing = new ResultStorage() {
+			@Override
+			public StorageOutputStream create(String key) throws IOException
+			{
+				final StorageOutputStream out = memory.create(key);
+				if (!key.endsWith(".002.gz"))
+				{
+					return out;
+				}
+				return new StorageOutputStream() {
+					@Override
+					public void write(int b) throws IOException
+					{
+						throw new IOException("disk full");
+					}
+
+					@Override
+					public void close() throws IOException
+					{
+						out.close();
+					}
+
+					@Override
+					public void abort()
+					{
+						out.abort();
+					}
+				};
+			}
+
+			@Override
+			public void put(String key, File file) throws IOException
+			{
+				memory.put(key, file);
+			}
+
+			@Override
+			public void delete(String key)
+			{
+				deleted.add(key);
+				memory.delete(key);
+			}
+		};
+		ShardedResultSink sink = new ShardedResultSink(failing, "s", 4, false, 1 << 20, 1, -1);
+		writeMatches(sink, false);
+		try
+		{
+			sink.close();
+			fail("failed shard was not reported");
+		}
+		catch (IOException e)
+		{
+			assertEquals("disk full", e.getMessage());
+		}
+		List<String> expected = new ArrayList<String>();
+		for (int shard=0; shard<=2; shard++)
+		{
+			expected.add(sink.getShardKey(shard));
+		}
+		assertEquals(expected, deleted);
+		assertEquals(0, memory.getKeys().size());
+	}
+
+	private static Map<String, String> writeMatches(ShardedResultSink sink) throws IOException
+	{
+		writeMatches(sink, true);
+		Map<String, String> stats = new HashMap<String, String>();
+		sink.addStats(stats);
+		return stats;
+	}
+
+	private static void writeMatches(ShardedResultSink sink, boolean close) throws IOException
+	{
+		Random random = new Random(13);
+		for (int i=0; i<2000; i++)
+		{
+			ExtractedMatch match = new ExtractedMatch();
+			match.instances = new String[] {"Instance " + random.nextInt(300), "instance  " + random.nextInt(300)};
+			match.instanceTags = new String[] {"NN", "NNS"};
+			match.classes = new String[] {"class " + random.nextInt(40)};
+			match.classTags = new String[] {"NN"};
+			match.pid = "p" + random.nextInt(5);
+			match.pld = random.nextBoolean() ? "example.org" : null;
+			match.sentence = "sentence " + random.nextInt(1000);
+			sink.write(match);
+		}
+		if (close)
+		{
+			sink.close();
+		}
+	}
+
+	private static String gunzip(byte[] data) throws IOException
+	{
+		InputStream in = new GZIPInputStream(new ByteArrayInputStream(data));
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		byte[] buffer = new byte[4096];
+		try
+		{
+			for (int n; (n = in.read(buffer))>0; )
+			{
+				out.write(buffer, 0, n);
+			}
+		}
+		finally
+		{
+			in.close();
+		}
+		return out.toString("UTF-8");
+	}
+}
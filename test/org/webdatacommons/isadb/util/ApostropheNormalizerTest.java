@@ -0,0 +1,106 @@
+// http://webdatacommons.org/isadb/
+// The WebIsADb and the API are licensed under a Creative Commons Attribution-Non Commercial-Share Alike 3.0 License: http://creativecommons.org/licenses/by-nc-sa/3.0/.
+// Acknowledgements
+// This work was partially funded by the Deutsche Forschungsgemeinschaft within the JOIN-T project (research grant PO 1900/1-1). Part of the computational resources used for this work were provide by an Amazon AWS in Education Grant award.
+// this software is meant to be part of the CommonCrawl framework: http://commoncrawl.org/ to re-build a new WebIsADb from fresh CommonCrawl dumps.
+
+package org.webdatacommons.isadb.util;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * ApostropheNormalizer.normalize gives the result of the former replaceAll chain of
+ * FastWetProcessor.replaceVerbApostrophies and the quote stripping of the RecordExtractor
+ */
+public class ApostropheNormalizerTest {
+
+	//Prefixes and suffixes of the contractions in several cases, apostrophes, quotes, whitespace and other text
+	private static final String[] TOKENS = {"he", "She", "IT", "that", "where", "who", "what", "When", "why", "how", "here", "there",
+		"isn", "aren", "Don", "doesn", "can", "couldn", "shouldn", "won", "WOULDN", "haven", "i", "I", "t", "T", "s", "S", "d", "re",
+		"Ve", "ll", "m", "x", "the", "'", "\u2018", "\u2019", "\u201B", "\u201A", "\u201C", "\u201D", "\u201E", "\u201F", "\"", " ",
+		" ", " ", "\t", "\n", "\u00A0", "\u2028", ".", ","};
+
+	@Test
+	public void examples()
+	{
+		assertEquals("I am sure it is he is fine ", ApostropheNormalizer.normalize("I'm sure it's that's fine ", false));
+		//The replacement of won't starts with a blank, so a blank is doubled
+		assertEquals("they  will not go", ApostropheNormalizer.normalize("they won't go", false));
+		assertEquals("a quote and “s", ApostropheNormalizer.normalize("a \"quote\" and “s", true));
+		String unchanged = "no apostrophe here";
+		assertEquals(unchanged, ApostropheNormalizer.normalize(unchanged, true));
+	}
+
+	@Test
+	public void normalizeEqualsReplaceAllChain()
+	{
+		Random random = new Random(11);
+		for (int s=0; s<150000; s++)
+		{
+			StringBuilder sentence = new StringBuilder();
+			int length = random.nextInt(16);
+			for (int i=0; i<length; i++)
+			{
+				sentence.append(TOKENS[random.nextInt(TOKENS.length)]);
+			}
+			String text = sentence.toString();
+			assertEquals(text, replaceVerbApostrophies(text), ApostropheNormalizer.normalize(text, false));
+			assertEquals(text, stripQuotes(replaceVerbApostrophies(text)), ApostropheNormalizer.normalize(text, true));
+		}
+	}
+
+	/**
+	 * The replacements of FastWetProcessor.replaceVerbApostrophies before ApostropheNormalizer
+	 */
+	private static String replaceVerbApostrophies(String sentence)
+	{
+		if (sentence.contains("'")|sentence.contains("’")|sentence.contains("‘")|sentence.contains("‛"))
+		{
+			//Auxiliary Verb abbreviations
+			sentence = sentence.replaceAll("(?i)[\\u0027\\u2018\\u2019\\u201B]d\\s", " would ");
+			sentence = sentence.replaceAll("(?i)[\\u0027\\u2018\\u2019\\u201B]re\\s", " are ");
+			sentence = sentence.replaceAll("(?i)[\\u0027\\u2018\\u2019\\u201B]ve\\s", " have ");
+			sentence = sentence.replaceAll("(?i)[\\u0027\\u2018\\u2019\\u201B]ll\\s", " will ");
+			sentence = sentence.replaceAll("(?i)i[\\u0027\\u2018\\u2019\\u201B]m\\s", "I am ");
+
+			//Auxiliary Verb 's
+			sentence = sentence.replaceAll("(?i)he[\\u0027\\u2018\\u2019\\u201B]s\\s", "he is ");
+			sentence = sentence.replaceAll("(?i)she[\\u0027\\u2018\\u2019\\u201B]s\\s", "she is ");
+			sentence = sentence.replaceAll("(?i)it[\\u0027\\u2018\\u2019\\u201B]s\\s", "it is ");
+			sentence = sentence.replaceAll("(?i)that[\\u0027\\u2018\\u2019\\u201B]s\\s", "he is ");
+			sentence = sentence.replaceAll("(?i)where[\\u0027\\u2018\\u2019\\u201B]s\\s", "she is ");
+			sentence = sentence.replaceAll("(?i)who[\\u0027\\u2018\\u2019\\u201B]s\\s", "it is ");
+			sentence = sentence.replaceAll("(?i)what[\\u0027\\u2018\\u2019\\u201B]s\\s", "what is ");
+			sentence = sentence.replaceAll("(?i)when[\\u0027\\u2018\\u2019\\u201B]s\\s", "when is ");
+			sentence = sentence.replaceAll("(?i)why[\\u0027\\u2018\\u2019\\u201B]s\\s", "why is ");
+			sentence = sentence.replaceAll("(?i)how[\\u0027\\u2018\\u2019\\u201B]s\\s", "how is ");
+			sentence = sentence.replaceAll("(?i)here[\\u0027\\u2018\\u2019\\u201B]s\\s", "here is ");
+			sentence = sentence.replaceAll("(?i)there[\\u0027\\u2018\\u2019\\u201B]s\\s", "there is ");
+
+			//Negations
+			sentence = sentence.replaceAll("(?i)isn[\\u0027\\u2018\\u2019\\u201B]t\\s", "is not ");
+			sentence = sentence.replaceAll("(?i)aren[\\u0027\\u2018\\u2019\\u201B]t\\s", "are not ");
+			sentence = sentence.replaceAll("(?i)don[\\u0027\\u2018\\u2019\\u201B]t\\s", "do not ");
+			sentence = sentence.replaceAll("(?i)doesn[\\u0027\\u2018\\u2019\\u201B]t\\s", "does not ");
+			sentence = sentence.replaceAll("(?i)can[\\u0027\\u2018\\u2019\\u201B]t\\s", "can not ");
+			sentence = sentence.replaceAll("(?i)couldn[\\u0027\\u2018\\u2019\\u201B]t\\s", "could not ");
+			sentence = sentence.replaceAll("(?i)shouldn[\\u0027\\u2018\\u2019\\u201B]t\\s", "should not ");
+			sentence = sentence.replaceAll("(?i)won[\\u0027\\u2018\\u2019\\u201B]t\\s", " will not ");
+			sentence = sentence.replaceAll("(?i)wouldn[\\u0027\\u2018\\u2019\\u201B]t\\s", "would not ");
+			sentence = sentence.replaceAll("(?i)haven[\\u0027\\u2018\\u2019\\u201B]t\\s", "have not ");
+		}
+		return sentence;
+	}
+
+	/**
+	 * The quote stripping of the RecordExtractor before ApostropheNormalizer
+	 */
+	private static String stripQuotes(String sentence)
+	{
+		return sentence.replaceAll("(?<!s)[\\u201A\\u201C\\u201D\\u201E\\u201F\\u0022](?!s)", "");
+	}
+}
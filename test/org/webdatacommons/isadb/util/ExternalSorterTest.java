@@ -0,0 +1,88 @@
+// http://webdatacommons.org/isadb/
+// The WebIsADb and the API are licensed under a Creative Commons Attribution-Non Commercial-Share Alike 3.0 License: http://creativecommons.org/licenses/by-nc-sa/3.0/.
+// Acknowledgements
+// This work was partially funded by the Deutsche Forschungsgemeinschaft within the JOIN-T project (research grant PO 1900/1-1). Part of the computational resources used for this work were provide by an Amazon AWS in Education Grant award.
+// this software is meant to be part of the CommonCrawl framework: http://commoncrawl.org/ to re-build a new WebIsADb from fresh CommonCrawl dumps.
+
+package org.webdatacommons.isadb.util;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * ExternalSorter with spilled runs and merge passes gives the order of an in-memory sort
+ */
+public class ExternalSorterTest {
+
+	private File tempDirectory;
+
+	@Before
+	public void createTempDirectory() throws IOException
+	{
+		tempDirectory = Files.createTempDirectory("isadb-sort-test").toFile();
+	}
+
+	@After
+	public void deleteTempDirectory()
+	{
+		tempDirectory.delete();
+	}
+
+	@Test
+	public void spilledEqualsInMemorySort() throws IOException
+	{
+		Random random = new Random(9);
+		List<byte[]> rows = new ArrayList<byte[]>();
+		for (int i=0; i<20000; i++)
+		{
+			byte[] row = new byte[random.nextInt(12)];
+			for (int b=0; b<row.length; b++)
+			{
+				//Few distinct bytes for duplicates and common prefixes, with bytes above 0x7f for the unsigned order
+				row[b] = (byte) (0x7e + random.nextInt(4));
+			}
+			rows.add(row);
+		}
+		//A tiny budget: a run every 7 rows, merged in passes of at most 4 runs
+		ExternalSorter sorter = new ExternalSorter(tempDirectory, 4);
+		for (int i=0; i<rows.size(); i++)
+		{
+			sorter.add(rows.get(i));
+			if (i%7==6)
+			{
+				sorter.spill();
+			}
+		}
+		assertTrue(sorter.getRuns()>4);
+		final List<byte[]> merged = new ArrayList<byte[]>();
+		sorter.merge(new ExternalSorter.RowHandler() {
+			@Override
+			public void row(byte[] row)
+			{
+				merged.add(row);
+			}
+		});
+		Collections.sort(rows, ExternalSorter.BYTE_ORDER);
+		assertEquals(rows.size(), merged.size());
+		for (int i=0; i<rows.size(); i++)
+		{
+			assertArrayEquals(rows.get(i), merged.get(i));
+		}
+		//merge deletes the runs, including the runs of the merge passes
+		assertEquals(0, sorter.getRuns());
+		assertEquals(0, tempDirectory.list().length);
+	}
+}
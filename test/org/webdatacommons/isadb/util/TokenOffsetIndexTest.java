@@ -0,0 +1,73 @@
+// http://webdatacommons.org/isadb/
+// The WebIsADb and the API are licensed under a Creative Commons Attribution-Non Commercial-Share Alike 3.0 License: http://creativecommons.org/licenses/by-nc-sa/3.0/.
+// Acknowledgements
+// This work was partially funded by the Deutsche Forschungsgemeinschaft within the JOIN-T project (research grant PO 1900/1-1). Part of the computational resources used for this work were provide by an Amazon AWS in Education Grant award.
+// this software is meant to be part of the CommonCrawl framework: http://commoncrawl.org/ to re-build a new WebIsADb from fresh CommonCrawl dumps.
+
+package org.webdatacommons.isadb.util;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+import org.webdatacommons.isadb.processor.FastWetProcessor;
+
+import edu.stanford.nlp.ling.TaggedWord;
+
+/**
+ * TokenOffsetIndex.subset returns the tokens of FastWetProcessor.getWordListSubset
+ */
+public class TokenOffsetIndexTest {
+
+	@Test
+	public void subsetOfSentence()
+	{
+		String[] tokens = "cities such as Paris".split(" ");
+		TokenOffsetIndex index = new TokenOffsetIndex();
+		index.reset(tokens);
+		List<TaggedWord> words = tag(tokens);
+		//The tokens end at 6, 11, 14 and 20
+		assertEquals(words.subList(0, 1), index.subset(0, 7, words));
+		assertEquals(words.subList(3, 4), index.subset(15, 20, words));
+		assertEquals(0, index.subset(21, 30, words).size());
+	}
+
+	@Test
+	public void subsetEqualsGetWordListSubset()
+	{
+		Random random = new Random(5);
+		TokenOffsetIndex index = new TokenOffsetIndex();
+		for (int s=0; s<200000; s++)
+		{
+			String[] tokens = new String[random.nextInt(40)];
+			int length = 0;
+			for (int i=0; i<tokens.length; i++)
+			{
+				//Empty tokens come from repeated blanks
+				tokens[i] = random.nextInt(8)==0 ? "" : "abcdefghijkl".substring(0, 1+random.nextInt(10));
+				length += tokens[i].length() + 1;
+			}
+			List<TaggedWord> words = tag(tokens);
+			//The same index is reset for every sentence, like the index of a SentenceTagger
+			index.reset(tokens);
+			int onset = random.nextInt(length+5) - 3;
+			int offset = random.nextInt(length+5) - 3;
+			assertEquals(Arrays.toString(tokens) + " " + onset + " " + offset, FastWetProcessor.getWordListSubset(onset, offset, words),
+					index.subset(onset, offset, words));
+		}
+	}
+
+	private static List<TaggedWord> tag(String[] tokens)
+	{
+		List<TaggedWord> words = new ArrayList<TaggedWord>(tokens.length);
+		for (String token : tokens)
+		{
+			words.add(new TaggedWord(token, "NN"));
+		}
+		return words;
+	}
+}